@@ -0,0 +1,221 @@
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import bench.DataSet;
+import bench.TaskOps;
+
+/**
+ * TaskOps over a TaskManager filled with synthetic tasks. Lives in the default package
+ * so it can reach the application classes; see TaskOps.
+ */
+public class ManagerOps implements TaskOps {
+
+    private final SyntheticTasks generator;
+    private final TaskManager manager = new TaskManager();
+    private final DatabaseHelper dbHelper = new DatabaseHelper();
+    private int touchCursor;
+    private int touchStamp;
+    private ForkJoinPool queryPool;
+
+    public ManagerOps(DataSet data) {
+        generator = new SyntheticTasks(data.seed);
+        generator.setTextWords(data.titleWords, data.descriptionWords);
+        generator.setVocabularySize(data.vocabulary);
+        generator.setPriorityWeights(data.priorityWeights[0], data.priorityWeights[1], data.priorityWeights[2]);
+        generator.setDueDates(data.dueSpreadDays, data.overdueRatio);
+        generator.setDoneRatio(data.doneRatio);
+        for (Task task : generator.generate(data.size)) {
+            manager.addTask(task);
+        }
+    }
+
+    @Override
+    public String word(int i) {
+        return generator.word(i);
+    }
+
+    @Override
+    public int size() {
+        return manager.getTasks().size();
+    }
+
+    @Override
+    public int findByKeyword(String keyword) {
+        return manager.findByKeyword(keyword).size();
+    }
+
+    @Override
+    public int refineKeyword(String keyword, String longer) {
+        TaskManager.KeywordResult first = manager.findByKeyword(keyword, null);
+        return manager.findByKeyword(longer, first).getTasks().size();
+    }
+
+    @Override
+    public int scanKeyword(String keyword) {
+        String lower = keyword.toLowerCase();
+        int count = 0;
+        for (Task task : manager.getTasks()) {
+            if (task.getTitle().toLowerCase().contains(lower)
+                || (task.getDescription() != null && task.getDescription().toLowerCase().contains(lower))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int searchDatabase(String words, boolean prefix, int limit) {
+        return manager.searchDatabase(words, prefix, limit).size();
+    }
+
+    @Override
+    public int tasksByDueDate() {
+        return manager.tasksByDueDate().size();
+    }
+
+    @Override
+    public int tasksByPriority() {
+        return manager.tasksByPriority().size();
+    }
+
+    @Override
+    public int findOverdue() {
+        return manager.findOverdue().size();
+    }
+
+    @Override
+    public int overdueCount() {
+        return manager.statistics().getOverdue();
+    }
+
+    @Override
+    public int countIndexed(Boolean done, int priority) {
+        return manager.countTasks(done, priority(priority));
+    }
+
+    @Override
+    public int countByLoop(Boolean done, int priority) {
+        Priority wanted = priority(priority);
+        int count = 0;
+        for (Task task : manager.getTasks()) {
+            if ((done == null || task.isDone() == done) && (wanted == null || task.getPriority() == wanted)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void setQueryParallelism(int threads) {
+        if (queryPool != null) {
+            queryPool.shutdown();
+        }
+        // Parallel streams run on the pool of the thread that starts them
+        queryPool = threads > 0 ? new ForkJoinPool(threads) : null;
+        manager.setParallelThreshold(threads > 0 ? TaskManager.DEFAULT_PARALLEL_THRESHOLD : Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int query(String keyword, int dueWithinDays, String sort, int limit) {
+        TaskQuery query = TaskQuery.all().withKeyword(keyword).withDone(false)
+            .sortedBy(TaskQuery.Sort.valueOf(sort)).limitedTo(limit);
+        if (dueWithinDays >= 0) {
+            LocalDate today = LocalDate.now();
+            query = query.withDueBetween(today, today.plusDays(dueWithinDays));
+        }
+        TaskQuery finalQuery = query;
+        return queryPool == null ? manager.query(query).size() : queryPool.submit(() -> manager.query(finalQuery)).join().size();
+    }
+
+    @Override
+    public void saveToFile(Path file, boolean binary) {
+        manager.setBinarySnapshots(binary);
+        manager.saveToFile(file.toString());
+    }
+
+    @Override
+    public int loadFromFile(Path file, boolean binary) {
+        manager.setBinarySnapshots(binary);
+        manager.loadFromFile(file.toString());
+        // Includes the index rebuild a first query would pay for
+        return manager.getTasks().size();
+    }
+
+    @Override
+    public void saveToShards(Path directory, String scheme) {
+        manager.setBinarySnapshots(true);
+        manager.saveToShards(directory.toString(), ShardScheme.valueOf(scheme));
+    }
+
+    @Override
+    public int loadFromShards(Path directory, boolean everything) {
+        manager.loadFromShards(directory.toString());
+        // A count over every task pulls in the cold shards; pending tasks are never cold
+        return manager.countTasks(everything ? null : false, null);
+    }
+
+    @Override
+    public boolean saveDatabaseFull() {
+        List<Task> all = manager.getTasks();
+        return dbHelper.saveTasks(all, List.of(), List.of(), true);
+    }
+
+    @Override
+    public boolean saveDatabaseIncremental() {
+        return manager.saveToDatabase();
+    }
+
+    @Override
+    public int loadDatabase() {
+        manager.loadFromDatabase();
+        return manager.getTasks().size();
+    }
+
+    @Override
+    public int queryDatabase(boolean overdueOnly, int pageSize, int maxPages) {
+        TaskFilter filter = overdueOnly ? TaskFilter.overdue(LocalDate.now()) : TaskFilter.all();
+        TaskPage.Cursor cursor = null;
+        int rows = 0;
+        for (int page = 0; page < maxPages; page++) {
+            TaskPage result = manager.queryDatabase(filter, cursor, pageSize);
+            rows += result.getTasks().size();
+            cursor = result.getNext();
+            if (cursor == null) {
+                break;
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public void touch(int count) {
+        List<Task> tasks = manager.getTasks();
+        if (tasks.isEmpty()) {
+            return;
+        }
+        int stride = Math.max(1, tasks.size() / Math.max(1, count));
+        touchStamp++;
+        for (int i = 0; i < count; i++) {
+            touchCursor = (touchCursor + stride) % tasks.size();
+            tasks.get(touchCursor).setTitle("edited " + touchStamp + " " + i);
+        }
+    }
+
+    @Override
+    public void openJournal(Path snapshot) {
+        manager.setBinarySnapshots(true);
+        manager.saveToFile(snapshot.toString());
+        manager.loadWithJournal(snapshot.toString());
+    }
+
+    @Override
+    public void closeJournal() {
+        manager.closeJournal();
+    }
+
+    private static Priority priority(int ordinal) {
+        return ordinal < 0 ? null : Priority.values()[ordinal];
+    }
+}
@@ -0,0 +1,48 @@
+package bench;
+
+/**
+ * Shape of a synthetic data set, filled from a benchmark's @Param fields and handed to
+ * SyntheticTasks. priorityMix is "low:medium:high" weights, e.g. "1:1:1" or "6:3:1".
+ */
+public final class DataSet {
+
+    public final int size;
+    public final int titleWords;
+    public final int descriptionWords;
+    public final int vocabulary;
+    public final int[] priorityWeights;
+    public final int dueSpreadDays;
+    public final double overdueRatio;
+    public final double doneRatio;
+    public final long seed;
+
+    public DataSet(int size, int titleWords, int descriptionWords, int vocabulary, String priorityMix,
+                   int dueSpreadDays, double overdueRatio, double doneRatio, long seed) {
+        this.size = size;
+        this.titleWords = titleWords;
+        this.descriptionWords = descriptionWords;
+        this.vocabulary = vocabulary;
+        this.priorityWeights = parseWeights(priorityMix);
+        this.dueSpreadDays = dueSpreadDays;
+        this.overdueRatio = overdueRatio;
+        this.doneRatio = doneRatio;
+        this.seed = seed;
+    }
+
+    /** Defaults for everything but the size. */
+    public static DataSet ofSize(int size) {
+        return new DataSet(size, 3, 8, 2000, "1:1:1", 365, 0.1, 0.25, 42);
+    }
+
+    private static int[] parseWeights(String mix) {
+        String[] parts = mix.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("priorityMix must be low:medium:high, got " + mix);
+        }
+        int[] weights = new int[3];
+        for (int i = 0; i < 3; i++) {
+            weights[i] = Integer.parseInt(parts[i].trim());
+        }
+        return weights;
+    }
+}
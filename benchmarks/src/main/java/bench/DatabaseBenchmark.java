@@ -0,0 +1,77 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * SQLite persistence: a full rewrite of every row against an incremental save of a few
+ * edited tasks, at growing list sizes, plus a full load and keyset-paged queries. Each
+ * trial uses its own database file, set through -Dtaskmanager.db before the connection
+ * opens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"10"})
+    public int editsPerSave;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private TaskOps ops;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("task-bench-db");
+        System.setProperty("taskmanager.db", dir.resolve("tasks.db").toString());
+        ops = TaskOps.create(DataSet.ofSize(size));
+        ops.saveDatabaseIncremental();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Cleanup.deleteTree(dir);
+    }
+
+    @Benchmark
+    public boolean fullSave() {
+        ops.touch(editsPerSave);
+        return ops.saveDatabaseFull();
+    }
+
+    @Benchmark
+    public boolean incrementalSave() {
+        ops.touch(editsPerSave);
+        return ops.saveDatabaseIncremental();
+    }
+
+    @Benchmark
+    public int load() {
+        return ops.loadDatabase();
+    }
+
+    /** First page of overdue tasks, filtered in SQL, against loading everything. */
+    @Benchmark
+    public int firstOverduePage() {
+        return ops.queryDatabase(true, pageSize, 1);
+    }
+
+    /** Every row, one page at a time, holding a single page in memory. */
+    @Benchmark
+    public int pageThroughAll() {
+        return ops.queryDatabase(false, pageSize, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,58 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/** saveToFile and loadFromFile in JSON and in the memory-mapped binary snapshot format. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    @Param({"8"})
+    public int descriptionWords;
+
+    private TaskOps ops;
+    private Path dir;
+    private Path saved;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ops = TaskOps.create(new DataSet(size, 3, descriptionWords, 2000, "1:1:1", 365, 0.1, 0.25, 42));
+        dir = Files.createTempDirectory("task-bench");
+        saved = dir.resolve("tasks.saved");
+        ops.saveToFile(saved, isBinary());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Cleanup.deleteTree(dir);
+    }
+
+    @Benchmark
+    public void save() {
+        ops.saveToFile(dir.resolve("tasks.out"), isBinary());
+    }
+
+    @Benchmark
+    public int load() {
+        return ops.loadFromFile(saved, isBinary());
+    }
+
+    private boolean isBinary() {
+        return format.equals("binary");
+    }
+}
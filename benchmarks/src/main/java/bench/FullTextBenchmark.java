@@ -0,0 +1,69 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Full-text search in SQLite through the FTS5 index, for whole words and prefixes,
+ * against the in-memory contains() scan and the trigram index over the same tasks.
+ * The database is written once per trial into its own temporary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FullTextBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"2000"})
+    public int vocabulary;
+
+    @Param({"20"})
+    public int limit;
+
+    private TaskOps ops;
+    private Path dir;
+    private String word;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("task-bench-fts");
+        System.setProperty("taskmanager.db", dir.resolve("tasks.db").toString());
+        ops = TaskOps.create(new DataSet(size, 3, 8, vocabulary, "1:1:1", 365, 0.1, 0.25, 42));
+        ops.saveDatabaseFull();
+        word = ops.word(vocabulary / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Cleanup.deleteTree(dir);
+    }
+
+    @Benchmark
+    public int ftsWord() {
+        return ops.searchDatabase(word, false, limit);
+    }
+
+    @Benchmark
+    public int ftsPrefix() {
+        return ops.searchDatabase(word.substring(0, 3), true, limit);
+    }
+
+    @Benchmark
+    public int memoryScan() {
+        return ops.scanKeyword(word);
+    }
+
+    @Benchmark
+    public int trigramIndex() {
+        return ops.findByKeyword(word);
+    }
+}
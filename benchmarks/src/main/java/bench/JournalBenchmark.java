@@ -0,0 +1,51 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of making one CLI edit durable: a journaled edit (group commit) against an edit
+ * followed by a full saveToFile, which is what every CLI mutation did before the journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private TaskOps ops;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("task-bench-journal");
+        ops = TaskOps.create(DataSet.ofSize(size));
+        ops.openJournal(dir.resolve("tasks.txt"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ops.closeJournal();
+        Cleanup.deleteTree(dir);
+    }
+
+    @Benchmark
+    public void journaledEdit() {
+        ops.touch(1);
+    }
+
+    @Benchmark
+    public void editAndFullSave() {
+        ops.touch(1);
+        ops.saveToFile(dir.resolve("full.txt"), true);
+    }
+}
@@ -0,0 +1,59 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Composable in-memory queries, sequential (parallelism 0) against fork-join pools of
+ * growing size. The speedup only shows on a machine with that many cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int parallelism;
+
+    private TaskOps ops;
+    private String word;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ops = TaskOps.create(DataSet.ofSize(size));
+        ops.setQueryParallelism(parallelism);
+        word = ops.word(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ops.setQueryParallelism(0);
+    }
+
+    @Benchmark
+    public int dueSoonInListOrder() {
+        return ops.query(null, 90, "LIST_ORDER", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int pendingByTitle() {
+        return ops.query(null, -1, "TITLE", Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int top100ByTitle() {
+        return ops.query(null, -1, "TITLE", 100);
+    }
+
+    @Benchmark
+    public int keywordDueSoonByPriority() {
+        return ops.query(word, 90, "PRIORITY", Integer.MAX_VALUE);
+    }
+}
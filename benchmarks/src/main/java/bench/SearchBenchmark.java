@@ -0,0 +1,48 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/** Keyword search: trigram lookups, short-query scans and search-as-you-type refinement. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"8"})
+    public int descriptionWords;
+
+    @Param({"2000"})
+    public int vocabulary;
+
+    private TaskOps ops;
+    private String word;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ops = TaskOps.create(new DataSet(size, 3, descriptionWords, vocabulary, "1:1:1", 365, 0.1, 0.25, 42));
+        word = ops.word(vocabulary / 2);
+    }
+
+    @Benchmark
+    public int trigramQuery() {
+        return ops.findByKeyword(word);
+    }
+
+    @Benchmark
+    public int shortQueryScan() {
+        return ops.findByKeyword(word.substring(0, 2));
+    }
+
+    @Benchmark
+    public int refineLongerQuery() {
+        return ops.refineKeyword(word.substring(0, 3), word);
+    }
+}
@@ -0,0 +1,68 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * saveToShards and loadFromShards: a full save into a new directory, a save back after one
+ * edit (only that task's shard is rewritten), and loading only the hot shards or all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"BY_STATUS", "BY_DUE_MONTH"})
+    public String scheme;
+
+    private TaskOps ops;
+    private Path dir;
+    private Path saved;
+    private int fullSaves;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Mostly done tasks spread over past months, so there is something to leave cold
+        ops = TaskOps.create(new DataSet(size, 3, 8, 2000, "1:1:1", 365, 0.05, 0.75, 42));
+        dir = Files.createTempDirectory("task-bench");
+        saved = dir.resolve("saved");
+        ops.saveToShards(saved, scheme);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Cleanup.deleteTree(dir);
+    }
+
+    @Benchmark
+    public void saveAll() {
+        // Alternating directories makes every save a full one
+        ops.saveToShards(dir.resolve("full-" + (fullSaves++ % 2)), scheme);
+    }
+
+    @Benchmark
+    public void saveAfterOneEdit() {
+        ops.touch(1);
+        ops.saveToShards(saved, scheme);
+    }
+
+    @Benchmark
+    public int loadHot() {
+        return ops.loadFromShards(saved, false);
+    }
+
+    @Benchmark
+    public int loadAll() {
+        return ops.loadFromShards(saved, true);
+    }
+}
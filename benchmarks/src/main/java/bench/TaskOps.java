@@ -0,0 +1,97 @@
+package bench;
+
+import java.nio.file.Path;
+
+/**
+ * The application operations the benchmarks measure. JMH refuses benchmark classes in
+ * the default package, and a named package cannot import from it, so ManagerOps (in the
+ * default package, next to TaskManager) implements this and is looked up by name once
+ * per trial; the measured calls are plain interface calls.
+ */
+public interface TaskOps {
+
+    static TaskOps create(DataSet data) {
+        try {
+            return (TaskOps) Class.forName("ManagerOps").getConstructor(DataSet.class).newInstance(data);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("ManagerOps is missing from the benchmark classpath", e);
+        }
+    }
+
+    /** Word number i of the data set's vocabulary, so keywords are known to occur. */
+    String word(int i);
+
+    int size();
+
+    // --- Search ---
+    int findByKeyword(String keyword);
+
+    /** Searches for keyword, then refines that result for the longer keyword. */
+    int refineKeyword(String keyword, String longer);
+
+    /** Lowercased contains() over every title and description, as search worked originally. */
+    int scanKeyword(String keyword);
+
+    /** Ranked FTS5 search in the database, returning at most limit hits. */
+    int searchDatabase(String words, boolean prefix, int limit);
+
+    // --- Ordered views and filters ---
+    int tasksByDueDate();
+
+    int tasksByPriority();
+
+    int findOverdue();
+
+    /** The overdue count from the running statistics, without listing the tasks. */
+    int overdueCount();
+
+    /** Counts through the status/priority bitsets; priority is an ordinal or -1 for any. */
+    int countIndexed(Boolean done, int priority);
+
+    /** The same count by looping over every task, as the code did before the bitsets. */
+    int countByLoop(Boolean done, int priority);
+
+    // --- Composable queries ---
+    /** Runs queries sequentially (0) or on a fork-join pool of that many threads. */
+    void setQueryParallelism(int threads);
+
+    /**
+     * Pending tasks matching the keyword (null for any) and due within the next dueWithinDays
+     * (negative for any date), in the named TaskQuery.Sort order, at most limit of them.
+     */
+    int query(String keyword, int dueWithinDays, String sort, int limit);
+
+    // --- Files ---
+    void saveToFile(Path file, boolean binary);
+
+    int loadFromFile(Path file, boolean binary);
+
+    /** Saves binary shards into the directory, split by the named ShardScheme. */
+    void saveToShards(Path directory, String scheme);
+
+    /** Loads the hot shards, or every shard if everything is set; returns the tasks in memory. */
+    int loadFromShards(Path directory, boolean everything);
+
+    // --- Database ---
+    /** Rewrites every row, as every save did before incremental saves. */
+    boolean saveDatabaseFull();
+
+    /** Writes only what changed since the last save. */
+    boolean saveDatabaseIncremental();
+
+    int loadDatabase();
+
+    /**
+     * Reads up to maxPages pages through the keyset cursor, with the overdue filter
+     * pushed down to SQLite or no filter at all; returns the number of rows read.
+     */
+    int queryDatabase(boolean overdueOnly, int pageSize, int maxPages);
+
+    // --- Mutations ---
+    /** Edits the titles of count tasks spread over the list. */
+    void touch(int count);
+
+    void openJournal(Path snapshot);
+
+    void closeJournal();
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Ordered views and status/priority filters, including bitset counts against a plain loop
+ * and the running overdue count against listing the overdue tasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"1:1:1", "6:3:1"})
+    public String priorityMix;
+
+    @Param({"0.1"})
+    public double overdueRatio;
+
+    private TaskOps ops;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ops = TaskOps.create(new DataSet(size, 3, 8, 2000, priorityMix, 365, overdueRatio, 0.25, 42));
+    }
+
+    @Benchmark
+    public int sortByDueDate() {
+        return ops.tasksByDueDate();
+    }
+
+    @Benchmark
+    public int sortByPriority() {
+        return ops.tasksByPriority();
+    }
+
+    @Benchmark
+    public int findOverdue() {
+        return ops.findOverdue();
+    }
+
+    @Benchmark
+    public int countOverdueStatistics() {
+        return ops.overdueCount();
+    }
+
+    @Benchmark
+    public int countPendingHighBitset() {
+        return ops.countIndexed(false, 2);
+    }
+
+    @Benchmark
+    public int countPendingHighLoop() {
+        return ops.countByLoop(false, 2);
+    }
+}
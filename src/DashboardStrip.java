@@ -0,0 +1,76 @@
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Label;
+import javafx.util.Duration;
+
+/**
+ * One-line summary for MainApp: open tasks (and how many are HIGH), overdue, due today,
+ * due this week and done. It follows the task list shown by TaskListModel; a burst of
+ * changes is collapsed into one refresh, which reads TaskManager's running statistics
+ * off the FX thread. Refreshes run one at a time on a single thread, so their results
+ * reach the label in the order they were asked for. It also refreshes just after
+ * midnight, when tasks become overdue. All public methods are called on the FX thread.
+ */
+public class DashboardStrip {
+
+    private static final Duration COALESCE = Duration.millis(200);
+
+    private final TaskManager manager;
+    private final Label label = new Label();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("dashboard").factory());
+    private final PauseTransition coalesce = new PauseTransition(COALESCE);
+    private final PauseTransition midnight = new PauseTransition();
+
+    private DashboardStrip(TaskManager manager) {
+        this.manager = manager;
+        label.setStyle("-fx-font-weight: bold;");
+    }
+
+    /** A strip that follows tasks and shows its first summary as soon as it is computed. */
+    public static DashboardStrip create(TaskManager manager, ObservableList<Task> tasks) {
+        DashboardStrip strip = new DashboardStrip(manager);
+        strip.coalesce.setOnFinished(e -> strip.refreshNow());
+        tasks.addListener((ListChangeListener<Task>) change -> strip.coalesce.playFromStart());
+        strip.midnight.setOnFinished(e -> {
+            strip.refreshNow();
+            strip.scheduleMidnight();
+        });
+        strip.scheduleMidnight();
+        strip.refreshNow();
+        return strip;
+    }
+
+    public Label getNode() {
+        return label;
+    }
+
+    /** Recomputes the summary right away instead of after the next change. */
+    public void refreshNow() {
+        coalesce.stop();
+        executor.submit(() -> {
+            String text = "📊 " + manager.statistics();
+            Platform.runLater(() -> label.setText(text));
+        });
+    }
+
+    public void shutdown() {
+        coalesce.stop();
+        midnight.stop();
+        executor.shutdownNow();
+    }
+
+    private void scheduleMidnight() {
+        long nextDay = LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // A second late, so LocalDate.now() is already the new day
+        midnight.setDuration(Duration.millis(nextDay - System.currentTimeMillis() + 1000));
+        midnight.playFromStart();
+    }
+}
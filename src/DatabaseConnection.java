@@ -0,0 +1,319 @@
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Owns the single SQLite connection used for the whole lifetime of the process.
+ * The connection runs in WAL mode with synchronous=NORMAL, caches prepared statements
+ * per SQL string and is the only place where the tasks schema is defined.
+ *
+ * The connection and its cached statements are shared by every thread, so they are only
+ * used while holding this object's lock: a statement is bound, executed and its results
+ * read inside withStatement or the work given to inTransaction, and prepare() refuses to
+ * hand one out anywhere else.
+ *
+ * The schema version lives in PRAGMA user_version; opening an older database migrates
+ * it in one transaction. Version 1 stores due dates as epoch days and priorities as
+ * Priority ordinals, with composite indexes for the filters DatabaseHelper pushes down.
+ * Version 2 adds tasks_fts, an FTS5 index over titles and descriptions that triggers keep
+ * in step with every insert, update and delete on tasks. Version 3 adds the repeat rule
+ * of recurring tasks and, for stored occurrences, their series id and occurrence day.
+ */
+public final class DatabaseConnection {
+
+    // tasks.db in the working directory unless -Dtaskmanager.db=<path> says otherwise
+    private static final String DB_FILE_PROPERTY = "taskmanager.db";
+
+    private static final int SCHEMA_VERSION = 3;
+
+    private static final String TASKS_TABLE = """
+        CREATE TABLE tasks (
+            id INTEGER PRIMARY KEY AUTOINCREMENT,
+            title TEXT NOT NULL,
+            description TEXT,
+            dueDay INTEGER,
+            priority INTEGER,
+            isDone INTEGER NOT NULL DEFAULT 0
+        )
+    """;
+
+    // SQLite appends the rowid to every index, so each one also serves "ORDER BY ..., id"
+    private static final String[] TASKS_INDEXES = {
+        "CREATE INDEX tasks_done_priority_due ON tasks (isDone, priority, dueDay)",
+        "CREATE INDEX tasks_done_due ON tasks (isDone, dueDay)",
+        "CREATE INDEX tasks_priority_due ON tasks (priority, dueDay)",
+        "CREATE INDEX tasks_due ON tasks (dueDay)"
+    };
+
+    private static DatabaseConnection instance;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private final Map<String, PreparedStatement> keyStatements = new HashMap<>();
+
+    /** Work that runs inside a transaction on the shared connection. */
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    /** Work that binds, executes and reads one cached statement under the connection lock. */
+    @FunctionalInterface
+    public interface StatementWork<T> {
+        T run(PreparedStatement pstmt) throws SQLException;
+    }
+
+    private DatabaseConnection(String url) throws SQLException {
+        connection = DriverManager.getConnection(url);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            stmt.execute("PRAGMA temp_store=MEMORY");
+            stmt.execute("PRAGMA cache_size=-16000"); // 16 MB page cache
+        }
+        migrate();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "db-close"));
+    }
+
+    // External content: the text lives only in tasks, the FTS table holds just the index.
+    // Prefix indexes make 2- and 3-character "word*" queries cheap for search-as-you-type.
+    private static final String FTS_TABLE = """
+        CREATE VIRTUAL TABLE tasks_fts USING fts5(
+            title, description,
+            content = 'tasks', content_rowid = 'id',
+            tokenize = 'unicode61 remove_diacritics 2',
+            prefix = '2 3'
+        )
+    """;
+
+    private static final String[] FTS_TRIGGERS = {
+        """
+        CREATE TRIGGER tasks_fts_insert AFTER INSERT ON tasks BEGIN
+            INSERT INTO tasks_fts (rowid, title, description) VALUES (new.id, new.title, new.description);
+        END
+        """,
+        """
+        CREATE TRIGGER tasks_fts_delete AFTER DELETE ON tasks BEGIN
+            INSERT INTO tasks_fts (tasks_fts, rowid, title, description) VALUES ('delete', old.id, old.title, old.description);
+        END
+        """,
+        // Saves rewrite every column; only a changed text needs reindexing
+        """
+        CREATE TRIGGER tasks_fts_update AFTER UPDATE OF title, description ON tasks
+        WHEN old.title IS NOT new.title OR old.description IS NOT new.description BEGIN
+            INSERT INTO tasks_fts (tasks_fts, rowid, title, description) VALUES ('delete', old.id, old.title, old.description);
+            INSERT INTO tasks_fts (rowid, title, description) VALUES (new.id, new.title, new.description);
+        END
+        """
+    };
+
+    private static final String INDEX_ROWS_SQL = "INSERT INTO tasks_fts (rowid, title, description) "
+        + "SELECT id, title, description FROM tasks WHERE id IN (SELECT value FROM json_each(?))";
+
+    // --- Schema ---
+    private void migrate() throws SQLException {
+        int version = queryInt("PRAGMA user_version");
+        if (version >= SCHEMA_VERSION) {
+            return;
+        }
+        inTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                if (version < 1) {
+                    if (tableExists(stmt, "tasks")) {
+                        migrateToIntegerColumns(stmt);
+                    } else {
+                        createTasksTable(stmt);
+                    }
+                }
+                if (version < 2) {
+                    createFullTextIndex(stmt);
+                }
+                if (version < 3) {
+                    addRecurrenceColumns(stmt);
+                }
+                stmt.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+            }
+            return null;
+        });
+    }
+
+    private static void createTasksTable(Statement stmt) throws SQLException {
+        stmt.execute(TASKS_TABLE);
+        for (String index : TASKS_INDEXES) {
+            stmt.execute(index);
+        }
+    }
+
+    private static void createFullTextIndex(Statement stmt) throws SQLException {
+        stmt.execute(FTS_TABLE);
+        createFullTextTriggers(stmt);
+        stmt.execute("INSERT INTO tasks_fts (tasks_fts) VALUES ('rebuild')");
+    }
+
+    // NULL for every existing row: none of them recurs
+    private static void addRecurrenceColumns(Statement stmt) throws SQLException {
+        stmt.execute("ALTER TABLE tasks ADD COLUMN recurrence TEXT");
+        stmt.execute("ALTER TABLE tasks ADD COLUMN seriesId INTEGER");
+        stmt.execute("ALTER TABLE tasks ADD COLUMN occurrenceDay INTEGER");
+    }
+
+    private static void createFullTextTriggers(Statement stmt) throws SQLException {
+        for (String trigger : FTS_TRIGGERS) {
+            stmt.execute(trigger);
+        }
+    }
+
+    // Version 0 kept dueDate as yyyy-mm-dd TEXT and priority as the enum name
+    private static void migrateToIntegerColumns(Statement stmt) throws SQLException {
+        StringBuilder priorityRank = new StringBuilder("CASE priority");
+        for (Priority priority : Priority.values()) {
+            priorityRank.append(" WHEN '").append(priority.name()).append("' THEN ").append(priority.ordinal());
+        }
+        priorityRank.append(" END");
+
+        stmt.execute("ALTER TABLE tasks RENAME TO tasks_v0");
+        createTasksTable(stmt);
+        stmt.execute("INSERT INTO tasks (id, title, description, dueDay, priority, isDone) "
+            + "SELECT id, title, description, CAST(julianday(dueDate) - 2440587.5 AS INTEGER), "
+            + priorityRank + ", COALESCE(isDone, 0) FROM tasks_v0");
+        stmt.execute("DROP TABLE tasks_v0");
+    }
+
+    private static boolean tableExists(Statement stmt, String name) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + name + "'")) {
+            return rs.next();
+        }
+    }
+
+    private int queryInt(String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    public static synchronized DatabaseConnection getInstance() throws SQLException {
+        if (instance == null) {
+            instance = new DatabaseConnection("jdbc:sqlite:" + System.getProperty(DB_FILE_PROPERTY, "tasks.db"));
+        }
+        return instance;
+    }
+
+    /** The raw connection; like the statements, only to be used while holding this object's lock. */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /** Runs work on the cached statement for this SQL, holding the connection lock throughout. */
+    public synchronized <T> T withStatement(String sql, StatementWork<T> work) throws SQLException {
+        return work.run(prepare(sql));
+    }
+
+    /**
+     * Returns a cached statement for this SQL, for use inside inTransaction or withStatement
+     * work only; anywhere else another thread could rebind it mid-use. Callers must not close it.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        checkLocked();
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null) {
+            pstmt = connection.prepareStatement(sql);
+            statements.put(sql, pstmt);
+        }
+        pstmt.clearParameters();
+        return pstmt;
+    }
+
+    /** Same as {@link #prepare(String)} for INSERTs whose generated keys are read back. */
+    public PreparedStatement prepareReturningKeys(String sql) throws SQLException {
+        checkLocked();
+        PreparedStatement pstmt = keyStatements.get(sql);
+        if (pstmt == null) {
+            pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            keyStatements.put(sql, pstmt);
+        }
+        pstmt.clearParameters();
+        return pstmt;
+    }
+
+    private void checkLocked() {
+        if (!Thread.holdsLock(this)) {
+            throw new IllegalStateException("Shared statements are used inside inTransaction or withStatement only");
+        }
+    }
+
+    /** Runs the work in one explicit transaction, rolling back if it throws. */
+    public synchronized <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            T result = work.run(connection);
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Like {@link #inTransaction} for work that rewrites most of the table: the full-text
+     * triggers are dropped for its duration and the index is rebuilt in one pass before
+     * the commit, instead of being updated row by row.
+     */
+    public synchronized <T> T inBulkTransaction(SqlWork<T> work) throws SQLException {
+        return inTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                dropFullTextTriggers(stmt);
+                T result = work.run(conn);
+                stmt.execute("INSERT INTO tasks_fts (tasks_fts) VALUES ('rebuild')");
+                createFullTextTriggers(stmt);
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Runs work that only inserts rows and returns their ids, with the full-text triggers
+     * dropped; the new rows are then indexed by a single INSERT ... SELECT, which costs a
+     * fraction of firing the trigger once per row.
+     */
+    public synchronized void inBulkInsert(SqlWork<long[]> work) throws SQLException {
+        inTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                dropFullTextTriggers(stmt);
+                long[] ids = work.run(conn);
+                PreparedStatement index = prepare(INDEX_ROWS_SQL);
+                index.setString(1, Arrays.toString(ids)); // a JSON array for json_each
+                index.executeUpdate();
+                createFullTextTriggers(stmt);
+                return null;
+            }
+        });
+    }
+
+    private static void dropFullTextTriggers(Statement stmt) throws SQLException {
+        stmt.execute("DROP TRIGGER tasks_fts_insert");
+        stmt.execute("DROP TRIGGER tasks_fts_delete");
+        stmt.execute("DROP TRIGGER tasks_fts_update");
+    }
+
+    public synchronized void close() {
+        try {
+            for (PreparedStatement pstmt : statements.values()) {
+                pstmt.close();
+            }
+            for (PreparedStatement pstmt : keyStatements.values()) {
+                pstmt.close();
+            }
+            statements.clear();
+            keyStatements.clear();
+            if (!connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -2,82 +2,405 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class DatabaseHelper {
 
-    private static final String DB_URL = "jdbc:sqlite:tasks.db";
+    private static final String INSERT_SQL = "INSERT INTO tasks (title, description, dueDay, priority, isDone, "
+        + "recurrence, seriesId, occurrenceDay, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE tasks SET title = ?, description = ?, dueDay = ?, priority = ?, isDone = ?, "
+        + "recurrence = ?, seriesId = ?, occurrenceDay = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM tasks WHERE id = ?";
+    private static final String SELECT_SQL = "SELECT id, title, description, dueDay, priority, isDone, "
+        + "recurrence, seriesId, occurrenceDay FROM tasks";
+    private static final int ID_PARAM = 9;
+
+    // bm25() is lower for better matches; a title hit weighs ten description hits
+    private static final String SEARCH_SQL = "SELECT t.id, t.title, t.description, t.dueDay, t.priority, t.isDone, "
+        + "t.recurrence, t.seriesId, t.occurrenceDay, "
+        + "bm25(tasks_fts, 10.0, 1.0) AS score, snippet(tasks_fts, -1, ?, ?, '…', 12) "
+        + "FROM tasks_fts JOIN tasks t ON t.id = tasks_fts.rowid "
+        + "WHERE tasks_fts MATCH ? ORDER BY score LIMIT ?";
+
+    public static final String HIGHLIGHT_START = "[";
+    public static final String HIGHLIGHT_END = "]";
+
+    private static final Priority[] PRIORITIES = Priority.values();
 
     public DatabaseHelper() {
-        createTableIfNotExists();
-    }
-
-    private void createTableIfNotExists() {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS tasks (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                title TEXT NOT NULL,
-                description TEXT,
-                dueDate TEXT,
-                priority TEXT,
-                isDone INTEGER
-            );
-        """;
-
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
+        // Opening the shared connection also creates the schema
+        try {
+            DatabaseConnection.getInstance();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes one batch of changes in a single transaction: DELETEs for removed tasks,
+     * UPDATEs for edited ones and INSERTs for new ones. With clearTable set (the list came
+     * from a file) the table is emptied first and every task arrives as an insert.
+     * Inserted tasks without an id receive the one SQLite assigned.
+     * Returns true if the transaction was committed.
+     */
+    public boolean saveTasks(List<Task> inserted, List<Task> updated, List<Task> deleted, boolean clearTable) {
+        long started = TaskMetrics.start();
+        try {
+            DatabaseConnection db = DatabaseConnection.getInstance();
+            DatabaseConnection.SqlWork<Void> work = conn -> {
+                if (clearTable) {
+                    db.prepare("DELETE FROM tasks").executeUpdate();
+                }
+                deleteRows(db, deleted);
+                updateRows(db, updated);
+                insertRows(db, inserted);
+                return null;
+            };
+            if (clearTable) {
+                db.inBulkTransaction(work);
+            } else {
+                db.inTransaction(work);
+            }
+            TaskMetrics.stop(TaskMetrics.Op.DB_WRITE, started, inserted.size() + updated.size() + deleted.size());
+            return true;
         } catch (SQLException e) {
+            TaskMetrics.failed(TaskMetrics.Op.DB_WRITE, started);
             e.printStackTrace();
+            return false;
         }
     }
 
-    public void saveTasks(List<Task> tasks) {
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            // Clear old data
-            conn.createStatement().execute("DELETE FROM tasks");
+    /**
+     * Appends new rows in one transaction, as bulk imports do, indexing them for full-text
+     * search in one pass instead of row by row. The tasks receive their row ids.
+     * Returns true if the transaction was committed.
+     */
+    public boolean insertTasks(List<Task> tasks) {
+        long started = TaskMetrics.start();
+        try {
+            DatabaseConnection db = DatabaseConnection.getInstance();
+            db.inBulkInsert(conn -> {
+                insertRows(db, tasks);
+                long[] ids = new long[tasks.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = tasks.get(i).getId();
+                }
+                return ids;
+            });
+            TaskMetrics.stop(TaskMetrics.Op.DB_WRITE, started, tasks.size());
+            return true;
+        } catch (SQLException e) {
+            TaskMetrics.failed(TaskMetrics.Op.DB_WRITE, started);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private void deleteRows(DatabaseConnection db, List<Task> deleted) throws SQLException {
+        if (deleted.isEmpty()) {
+            return;
+        }
+        PreparedStatement pstmt = db.prepare(DELETE_SQL);
+        for (Task task : deleted) {
+            pstmt.setLong(1, task.getId());
+            pstmt.addBatch();
+        }
+        pstmt.executeBatch();
+    }
+
+    private void updateRows(DatabaseConnection db, List<Task> updated) throws SQLException {
+        if (updated.isEmpty()) {
+            return;
+        }
+        PreparedStatement pstmt = db.prepare(UPDATE_SQL);
+        for (Task task : updated) {
+            checkInterrupted();
+            bindColumns(pstmt, task);
+            pstmt.setLong(ID_PARAM, task.getId());
+            pstmt.addBatch();
+        }
+        pstmt.executeBatch();
+    }
 
-            String insertSql = "INSERT INTO tasks (title, description, dueDate, priority, isDone) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement pstmt = conn.prepareStatement(insertSql);
+    private void insertRows(DatabaseConnection db, List<Task> inserted) throws SQLException {
+        PreparedStatement pstmt = db.prepareReturningKeys(INSERT_SQL);
+        for (Task task : inserted) {
+            checkInterrupted();
+            bindColumns(pstmt, task);
+            // Keep an existing id; a NULL id lets SQLite assign the next one
+            if (task.getId() != 0) {
+                pstmt.setLong(ID_PARAM, task.getId());
+            } else {
+                pstmt.setNull(ID_PARAM, Types.INTEGER);
+            }
+            pstmt.executeUpdate();
 
-            for (Task task : tasks) {
-                pstmt.setString(1, task.getTitle());
-                pstmt.setString(2, task.getDescription());
-                pstmt.setString(3, task.getDueDate().toString());
-                pstmt.setString(4, task.getPriority().name());
-                pstmt.setInt(5, task.isDone() ? 1 : 0);
-                pstmt.addBatch();
+            if (task.getId() == 0) {
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        task.setId(keys.getLong(1));
+                    }
+                }
             }
+        }
+    }
 
-            pstmt.executeBatch();
+    private void bindColumns(PreparedStatement pstmt, Task task) throws SQLException {
+        pstmt.setString(1, task.getTitle());
+        pstmt.setString(2, task.getDescription());
+        if (task.getDueDate() != null) {
+            pstmt.setLong(3, task.getDueDate().toEpochDay());
+        } else {
+            pstmt.setNull(3, Types.INTEGER);
+        }
+        if (task.getPriority() != null) {
+            pstmt.setInt(4, task.getPriority().ordinal());
+        } else {
+            pstmt.setNull(4, Types.INTEGER);
+        }
+        pstmt.setInt(5, task.isDone() ? 1 : 0);
+        pstmt.setString(6, task.getRecurrence() == null ? null : task.getRecurrence().toString());
+        if (task.isOccurrence()) {
+            pstmt.setLong(7, task.getSeriesId());
+        } else {
+            pstmt.setNull(7, Types.INTEGER);
+        }
+        if (task.getOccurrenceDate() != null) {
+            pstmt.setLong(8, task.getOccurrenceDate().toEpochDay());
+        } else {
+            pstmt.setNull(8, Types.INTEGER);
+        }
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+    // Columns in SELECT_SQL order; reading by index skips the name lookups
+    private static Task readTask(ResultSet rs) throws SQLException {
+        long dueDay = rs.getLong(4);
+        LocalDate dueDate = rs.wasNull() ? null : LocalDate.ofEpochDay(dueDay);
+        int rank = rs.getInt(5);
+        Priority priority = rs.wasNull() ? null : PRIORITIES[rank];
+        Task task = new Task(rs.getString(2), rs.getString(3), dueDate, priority);
+        task.setDone(rs.getInt(6) == 1);
+        task.setId(rs.getLong(1));
+        String rule = rs.getString(7);
+        if (rule != null) {
+            task.setRecurrence(Recurrence.parse(rule));
         }
+        long occurrenceDay = rs.getLong(9);
+        task.setOccurrenceOf(rs.getLong(8), rs.wasNull() ? null : LocalDate.ofEpochDay(occurrenceDay));
+        task.markClean();
+        return task;
     }
 
     public List<Task> loadTasks() {
         List<Task> tasks = new ArrayList<>();
+        loadTasks(tasks::add);
+        return tasks;
+    }
 
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            String sql = "SELECT title, description, dueDate, priority, isDone FROM tasks";
-            ResultSet rs = conn.createStatement().executeQuery(sql);
+    /** Streams every row to the sink as it is read. Returns false if the query failed. */
+    public boolean loadTasks(Consumer<Task> sink) {
+        long started = TaskMetrics.start();
+        long rows = 0;
+        try {
+            rows = DatabaseConnection.getInstance().withStatement(SELECT_SQL, pstmt -> {
+                long read = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        read++;
+                        sink.accept(readTask(rs));
+                    }
+                }
+                return read;
+            });
+            TaskMetrics.stop(TaskMetrics.Op.DB_READ, started, rows);
+            return true;
 
-            while (rs.next()) {
-                String title = rs.getString("title");
-                String description = rs.getString("description");
-                LocalDate dueDate = LocalDate.parse(rs.getString("dueDate"));
-                Priority priority = Priority.valueOf(rs.getString("priority"));
-                boolean isDone = rs.getInt("isDone") == 1;
+        } catch (SQLException e) {
+            TaskMetrics.failed(TaskMetrics.Op.DB_READ, started);
+            e.printStackTrace();
+            return false;
+        }
+    }
 
-                Task task = new Task(title, description, dueDate, priority);
-                task.setDone(isDone);
-                tasks.add(task);
+    public long countTasks() {
+        return countTasks(TaskFilter.all());
+    }
+
+    /** Number of rows matching the filter, counted from the indexes; -1 if the query failed. */
+    public long countTasks(TaskFilter filter) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM tasks" + whereClause(filter, null, params);
+        try {
+            return DatabaseConnection.getInstance().withStatement(sql, pstmt -> {
+                bindParams(pstmt, params);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getLong(1) : 0L;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    // --- Full-text search ---
+
+    /**
+     * Ranked full-text matches for the words in text, best first, at most limit of them.
+     * Every word must occur in the title or description; with prefix set each word also
+     * matches longer words it starts with, as wanted while the user is still typing.
+     * Matched terms in the snippet are wrapped in HIGHLIGHT_START/HIGHLIGHT_END.
+     * Returns null if the query failed.
+     */
+    public List<TaskSearchHit> searchTasks(String text, boolean prefix, int limit) {
+        String match = matchExpression(text, prefix);
+        List<TaskSearchHit> hits = new ArrayList<>();
+        if (match == null) {
+            return hits;
+        }
+        long started = TaskMetrics.start();
+        try {
+            DatabaseConnection.getInstance().withStatement(SEARCH_SQL, pstmt -> {
+                pstmt.setString(1, HIGHLIGHT_START);
+                pstmt.setString(2, HIGHLIGHT_END);
+                pstmt.setString(3, match);
+                pstmt.setInt(4, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        hits.add(new TaskSearchHit(readTask(rs), -rs.getDouble(10), rs.getString(11)));
+                    }
+                }
+                return null;
+            });
+            TaskMetrics.stop(TaskMetrics.Op.DB_READ, started, hits.size());
+            return hits;
+        } catch (SQLException e) {
+            TaskMetrics.failed(TaskMetrics.Op.DB_READ, started);
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Quotes every word so user input can never be read as FTS5 query syntax
+    private static String matchExpression(String text, boolean prefix) {
+        StringBuilder match = new StringBuilder();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append('"').append(word).append('"');
+            if (prefix) {
+                match.append('*');
             }
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
 
+    // --- Paged queries ---
+
+    /**
+     * Reads at most pageSize rows matching the filter, in the filter's order, starting
+     * after the cursor (null for the first page). The filter runs inside SQLite and
+     * paging seeks on (sort key, id), so only one page is ever held in memory.
+     * Returns null if the query failed.
+     */
+    public TaskPage queryTasks(TaskFilter filter, TaskPage.Cursor after, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        if (after != null && !after.getFilter().equals(filter)) {
+            throw new IllegalArgumentException("Cursor belongs to a different filter");
+        }
+        long started = TaskMetrics.start();
+        List<Object> params = new ArrayList<>();
+        String sql = SELECT_SQL + whereClause(filter, after, params) + orderClause(filter) + " LIMIT ?";
+        // One row past the page tells whether another page follows
+        params.add(pageSize + 1);
+        try {
+            List<Task> tasks = new ArrayList<>(pageSize);
+            boolean more = DatabaseConnection.getInstance().withStatement(sql, pstmt -> {
+                bindParams(pstmt, params);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (tasks.size() == pageSize) {
+                            return true;
+                        }
+                        tasks.add(readTask(rs));
+                    }
+                }
+                return false;
+            });
+            TaskPage.Cursor next = null;
+            if (more) {
+                Task last = tasks.get(tasks.size() - 1);
+                Long lastDueDay = last.getDueDate() != null ? last.getDueDate().toEpochDay() : null;
+                next = new TaskPage.Cursor(filter, last.getId(), lastDueDay);
+            }
+            TaskMetrics.stop(TaskMetrics.Op.DB_READ, started, tasks.size());
+            return new TaskPage(tasks, next);
         } catch (SQLException e) {
+            TaskMetrics.failed(TaskMetrics.Op.DB_READ, started);
             e.printStackTrace();
+            return null;
         }
+    }
 
-        return tasks;
+    // The shape of the SQL depends only on which conditions are set, so statements cache well
+    private static String whereClause(TaskFilter filter, TaskPage.Cursor after, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getDone() != null) {
+            conditions.add("isDone = ?");
+            params.add(filter.getDone() ? 1 : 0);
+        }
+        if (filter.getPriority() != null) {
+            conditions.add("priority = ?");
+            params.add(filter.getPriority().ordinal());
+        }
+        if (filter.getDueFrom() != null) {
+            conditions.add("dueDay >= ?");
+            params.add(filter.getDueFrom().toEpochDay());
+        }
+        if (filter.getDueTo() != null) {
+            conditions.add("dueDay <= ?");
+            params.add(filter.getDueTo().toEpochDay());
+        }
+        if (after != null) {
+            if (filter.getOrder() == TaskFilter.Order.ID) {
+                conditions.add("id > ?");
+                params.add(after.getLastId());
+            } else if (after.getLastDueDay() != null) {
+                // Rows without a due date sort first, so they are all behind this cursor
+                conditions.add("(dueDay, id) > (?, ?)");
+                params.add(after.getLastDueDay());
+                params.add(after.getLastId());
+            } else {
+                conditions.add("(dueDay IS NOT NULL OR id > ?)");
+                params.add(after.getLastId());
+            }
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String orderClause(TaskFilter filter) {
+        return switch (filter.getOrder()) {
+            case ID -> " ORDER BY id";
+            case DUE_DATE -> " ORDER BY dueDay, id";
+        };
+    }
+
+    private static void bindParams(PreparedStatement pstmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            pstmt.setObject(i + 1, params.get(i));
+        }
+    }
+
+    // A save running on a background thread is cancelled by interrupting it
+    private static void checkInterrupted() throws SQLException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new SQLException("Save cancelled");
+        }
     }
 }
@@ -0,0 +1,159 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Ordered index of task slots keyed by (due epoch-day, priority, slot), with pending and
+ * completed tasks in separate trees. Overdue, date-range and "next N due" queries are
+ * range scans costing O(log n + k), and a due-date ordered view is just an iteration.
+ *
+ * Recurring tasks are left out; their occurrences come from RecurrenceIndex.
+ *
+ * Each key packs the epoch-day into the high 32 bits, a priority rank (HIGH first,
+ * missing last) into the next 2 bits and the slot into the low 30 bits.
+ */
+public class DueDateIndex {
+
+    private static final int SLOT_BITS = 30;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+    private static final int NO_DUE_DATE = Integer.MAX_VALUE;
+
+    private final NavigableSet<Long> pending = new TreeSet<>();
+    private final NavigableSet<Long> completed = new TreeSet<>();
+
+    // Current key of each slot and whether it sits in the completed tree
+    private long[] keys = new long[16];
+    private final BitSet indexed = new BitSet();
+    private final BitSet inCompleted = new BitSet();
+
+    public void add(int slot, Task task) {
+        if (slot > SLOT_MASK) {
+            throw new IllegalStateException("Too many tasks for the due-date index: " + slot);
+        }
+        if (slot >= keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(slot + 1, keys.length * 2));
+        }
+        if (task.isRecurring()) {
+            // Its due date is only the first occurrence; RecurrenceIndex generates the rest
+            return;
+        }
+        long key = key(task, slot);
+        keys[slot] = key;
+        indexed.set(slot);
+        inCompleted.set(slot, task.isDone());
+        (task.isDone() ? completed : pending).add(key);
+    }
+
+    public void remove(int slot) {
+        if (!indexed.get(slot)) {
+            return;
+        }
+        (inCompleted.get(slot) ? completed : pending).remove(keys[slot]);
+        indexed.clear(slot);
+        inCompleted.clear(slot);
+    }
+
+    /** Re-files the slot after its due date, priority, done flag or repeat rule changed. */
+    public void update(int slot, Task task) {
+        remove(slot);
+        add(slot, task);
+    }
+
+    public void clear() {
+        pending.clear();
+        completed.clear();
+        indexed.clear();
+        inCompleted.clear();
+    }
+
+    /** Pending tasks due strictly before the given day, earliest first. */
+    public Iterator<Integer> overdue(LocalDate today) {
+        return slotsOf(pending.headSet(lowKey(today.toEpochDay()), false));
+    }
+
+    /**
+     * Tasks due in [from, to], earliest first; a null bound is open, but tasks without a
+     * due date never match. isDone == null means both pending and completed.
+     */
+    public Iterator<Integer> dueBetween(LocalDate from, LocalDate to, Boolean isDone) {
+        long low = from == null ? Long.MIN_VALUE : lowKey(from.toEpochDay());
+        long high = to == null ? lowKey(NO_DUE_DATE) : lowKey(to.toEpochDay() + 1);
+        if (isDone != null) {
+            return slotsOf((isDone ? completed : pending).subSet(low, true, high, false));
+        }
+        return slotsOf(merge(pending.subSet(low, true, high, false), completed.subSet(low, true, high, false)));
+    }
+
+    /** Up to limit pending tasks due on or after the given day, soonest first. */
+    public List<Integer> nextDue(LocalDate from, int limit) {
+        List<Integer> result = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Integer> it = slotsOf(pending.tailSet(lowKey(from.toEpochDay()), true));
+        while (it.hasNext() && result.size() < limit) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /** Every task ordered by due date, then priority (HIGH first), then list order. */
+    public Iterator<Integer> inDueOrder() {
+        return slotsOf(merge(pending, completed));
+    }
+
+    private static long key(Task task, int slot) {
+        long day = task.getDueDate() == null ? NO_DUE_DATE : task.getDueDate().toEpochDay();
+        int rank = task.getPriority() == null ? 3 : Priority.values().length - 1 - task.getPriority().ordinal();
+        return (day << 32) | ((long) rank << SLOT_BITS) | slot;
+    }
+
+    private static long lowKey(long epochDay) {
+        return epochDay << 32;
+    }
+
+    private static Iterator<Integer> slotsOf(Iterable<Long> keys) {
+        return slotsOf(keys.iterator());
+    }
+
+    private static Iterator<Integer> slotsOf(Iterator<Long> keys) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                return (int) (keys.next() & SLOT_MASK);
+            }
+        };
+    }
+
+    // Merges two ascending key sets into one ascending iterator
+    private static Iterator<Long> merge(SortedSet<Long> a, SortedSet<Long> b) {
+        Iterator<Long> left = a.iterator();
+        Iterator<Long> right = b.iterator();
+        return new Iterator<>() {
+            private Long nextLeft = left.hasNext() ? left.next() : null;
+            private Long nextRight = right.hasNext() ? right.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextLeft != null || nextRight != null;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Long result;
+                if (nextRight == null || (nextLeft != null && nextLeft < nextRight)) {
+                    result = nextLeft;
+                    nextLeft = left.hasNext() ? left.next() : null;
+                } else {
+                    result = nextRight;
+                    nextRight = right.hasNext() ? right.next() : null;
+                }
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,270 @@
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Inverted trigram index over the lowercased title and description of each task.
+ * A substring query is answered by intersecting the sorted posting lists of its
+ * trigrams and then confirming the few remaining candidates, instead of lowercasing
+ * and scanning every task. Queries shorter than three characters fall back to a scan
+ * of the cached lowercase text.
+ *
+ * Queries poll the thread's interrupt flag and give up with a CancellationException,
+ * so a search-as-you-type caller can abandon a query that a newer keystroke replaced.
+ */
+public class KeywordIndex {
+
+    // Separates title from description so a match can never span the two
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    // How many slots a scan checks between looks at the interrupt flag
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private String[] texts = new String[16];
+    private int slotLimit;
+
+    // Bumped when an indexed text changes in place, which can make a slot start matching
+    private long version;
+
+    public void add(int slot, Task task) {
+        if (slot >= texts.length) {
+            texts = Arrays.copyOf(texts, Math.max(slot + 1, texts.length * 2));
+        }
+        String text = normalize(task);
+        texts[slot] = text;
+        slotLimit = Math.max(slotLimit, slot + 1);
+        for (long gram : trigrams(text)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(slot);
+        }
+    }
+
+    public void remove(int slot) {
+        if (slot >= texts.length || texts[slot] == null) {
+            return;
+        }
+        for (long gram : trigrams(texts[slot])) {
+            Postings list = postings.get(gram);
+            if (list != null) {
+                list.remove(slot);
+                if (list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        texts[slot] = null;
+    }
+
+    public void update(int slot, Task task) {
+        remove(slot);
+        add(slot, task);
+        version++;
+    }
+
+    public void clear() {
+        postings.clear();
+        texts = new String[16];
+        slotLimit = 0;
+        version++;
+    }
+
+    /**
+     * Moves every entry to its new slot after TaskSlots.compact(); newSlotOf is that
+     * method's result. The mapping keeps slot order, so posting lists stay sorted.
+     */
+    public void renumber(int[] newSlotOf) {
+        for (Postings list : postings.values()) {
+            for (int i = 0; i < list.size; i++) {
+                list.slots[i] = newSlotOf[list.slots[i]];
+            }
+        }
+        String[] moved = new String[texts.length];
+        int limit = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (texts[slot] != null) {
+                moved[newSlotOf[slot]] = texts[slot];
+                limit = newSlotOf[slot] + 1;
+            }
+        }
+        texts = moved;
+        slotLimit = limit;
+        version++;
+    }
+
+    /** A query's matching slots plus what is needed to narrow them for a longer query. */
+    public static final class Matches {
+        private final String query;
+        private final int[] slots;
+        private final int slotLimit;
+        private final long version;
+
+        private Matches(String query, int[] slots, int slotLimit, long version) {
+            this.query = query;
+            this.slots = slots;
+            this.slotLimit = slotLimit;
+            this.version = version;
+        }
+
+        public int[] getSlots() {
+            return slots;
+        }
+    }
+
+    /**
+     * Like search, but when the keyword contains the previous query every match must be
+     * one of the previous matches, so only those (plus slots added since) are checked.
+     * Falls back to a full search if texts were edited in between; previous may be null.
+     */
+    public Matches search(String keyword, Matches previous) {
+        String query = keyword.toLowerCase(Locale.ROOT);
+        if (previous == null || previous.version != version || previous.query.isEmpty()
+            || !query.contains(previous.query)) {
+            return new Matches(query, search(query), slotLimit, version);
+        }
+        int[] result = new int[Math.max(16, previous.slots.length)];
+        int count = 0;
+        for (int i = 0; i < previous.slots.length; i++) {
+            checkCancelled(i);
+            int slot = previous.slots[i];
+            if (texts[slot] != null && texts[slot].contains(query)) {
+                result[count++] = slot;
+            }
+        }
+        // Tasks added since the previous query have slots past its limit
+        for (int slot = previous.slotLimit; slot < slotLimit; slot++) {
+            checkCancelled(slot);
+            if (texts[slot] != null && texts[slot].contains(query)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = slot;
+            }
+        }
+        return new Matches(query, Arrays.copyOf(result, count), slotLimit, version);
+    }
+
+    /** Slots of the tasks whose title or description contains the keyword, in ascending order. */
+    public int[] search(String keyword) {
+        String query = keyword.toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return new int[0];
+        }
+        if (query.length() < 3) {
+            return scan(query);
+        }
+
+        Set<Long> grams = trigrams(query);
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] candidates = Arrays.copyOf(lists.get(0).slots, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = intersect(candidates, count, lists.get(i));
+        }
+
+        // Trigrams only prove the pieces are present; confirm the whole substring
+        int matches = 0;
+        for (int i = 0; i < count; i++) {
+            checkCancelled(i);
+            int slot = candidates[i];
+            if (texts[slot].contains(query)) {
+                candidates[matches++] = slot;
+            }
+        }
+        return Arrays.copyOf(candidates, matches);
+    }
+
+    private int[] scan(String query) {
+        int[] result = new int[16];
+        int count = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            checkCancelled(slot);
+            if (texts[slot] != null && texts[slot].contains(query)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static void checkCancelled(int iteration) {
+        if (iteration % CANCEL_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Keyword search interrupted");
+        }
+    }
+
+    // Keeps the entries of candidates[0..count) that also appear in the list; both are sorted
+    private static int intersect(int[] candidates, int count, Postings list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            int slot = candidates[i];
+            while (j < list.size && list.slots[j] < slot) {
+                j++;
+            }
+            if (j < list.size && list.slots[j] == slot) {
+                candidates[kept++] = slot;
+            }
+        }
+        return kept;
+    }
+
+    private static String normalize(Task task) {
+        String title = task.getTitle() == null ? "" : task.getTitle();
+        String description = task.getDescription() == null ? "" : task.getDescription();
+        return (title + FIELD_SEPARATOR + description).toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            char a = text.charAt(i);
+            char b = text.charAt(i + 1);
+            char c = text.charAt(i + 2);
+            if (a == FIELD_SEPARATOR || b == FIELD_SEPARATOR || c == FIELD_SEPARATOR) {
+                continue;
+            }
+            grams.add(((long) a << 32) | ((long) b << 16) | c);
+        }
+        return grams;
+    }
+
+    /** Sorted, growable int array of slots. */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            // Slots are mostly handed out in increasing order, so this is usually an append
+            int at = size == 0 || slots[size - 1] < slot ? size : Arrays.binarySearch(slots, 0, size, slot);
+            if (at < 0) {
+                at = -at - 1;
+            } else if (at < size) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, at, slots, at + 1, size - at);
+            slots[at] = slot;
+            size++;
+        }
+
+        void remove(int slot) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at >= 0) {
+                System.arraycopy(slots, at + 1, slots, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+/**
+ * Search-as-you-type for MainApp. Keystrokes are debounced, the query runs on a
+ * background thread, and a query still running when a newer one starts is interrupted
+ * and its result dropped. A keyword that extends the last one refines the last result
+ * instead of searching every task again. All public methods are called on the FX thread.
+ */
+public class LiveSearch {
+
+    private static final Duration DEBOUNCE = Duration.millis(150);
+
+    private final TaskManager manager;
+    private final Consumer<List<Task>> onResults;
+    private final Runnable onCleared;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+
+    private String pendingKeyword = "";
+    private Future<?> inFlight;
+    private long generation;
+    private TaskManager.KeywordResult lastResult;
+
+    private LiveSearch(TaskManager manager, Consumer<List<Task>> onResults, Runnable onCleared) {
+        this.manager = manager;
+        this.onResults = onResults;
+        this.onCleared = onCleared;
+    }
+
+    /** onResults receives each query's matches; onCleared runs when the keyword is emptied. */
+    public static LiveSearch create(TaskManager manager, Consumer<List<Task>> onResults, Runnable onCleared) {
+        LiveSearch search = new LiveSearch(manager, onResults, onCleared);
+        search.debounce.setOnFinished(e -> search.runNow(search.pendingKeyword));
+        return search;
+    }
+
+    /** Schedules a search once typing pauses. */
+    public void keywordChanged(String keyword) {
+        pendingKeyword = keyword;
+        debounce.playFromStart();
+    }
+
+    /** Searches immediately, replacing anything pending or running. */
+    public void runNow(String keyword) {
+        debounce.stop();
+        cancelInFlight();
+        long query = ++generation;
+        String trimmed = keyword.trim();
+        if (trimmed.isEmpty()) {
+            lastResult = null;
+            onCleared.run();
+            return;
+        }
+        TaskManager.KeywordResult previous = lastResult;
+        inFlight = executor.submit(() -> {
+            try {
+                TaskManager.KeywordResult result = manager.findByKeyword(trimmed, previous);
+                Platform.runLater(() -> {
+                    // A newer query may have started after this one finished
+                    if (query == generation) {
+                        lastResult = result;
+                        onResults.accept(result.getTasks());
+                    }
+                });
+            } catch (CancellationException e) {
+                // Superseded by a newer keystroke
+            }
+        });
+    }
+
+    public void shutdown() {
+        debounce.stop();
+        cancelInFlight();
+        executor.shutdownNow();
+    }
+
+    private void cancelInFlight() {
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+    }
+}
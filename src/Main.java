@@ -1,3 +1,9 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Scanner;
 import java.time.LocalDate;
 
@@ -7,7 +13,32 @@ public class Main {
         TaskManager manager = new TaskManager();
 
         String filename = "tasks.txt";
-        manager.loadFromFile(filename);
+        // -Dtaskmanager.binary=true saves binary snapshots; tasks.txt stays JSON otherwise,
+        // and either kind loads
+        manager.setBinarySnapshots(Boolean.getBoolean("taskmanager.binary"));
+        // -Dtaskmanager.shards=BY_STATUS or BY_DUE_MONTH keeps tasks in tasks.shards instead
+        String shardProperty = System.getProperty("taskmanager.shards");
+        ShardScheme shardScheme = shardProperty == null ? null : ShardScheme.valueOf(shardProperty.toUpperCase());
+        String shardDirectory = "tasks.shards";
+        if (shardScheme == null) {
+            manager.loadWithJournal(filename);
+        } else if (TaskShardStore.exists(Path.of(shardDirectory))) {
+            manager.loadFromShards(shardDirectory);
+        } else {
+            // First run in shard mode: start from tasks.txt, and the save on exit moves it into shards
+            manager.loadFromFile(filename);
+        }
+
+        // Main --batch [script, or - for stdin] [--ndjson] [--stop-on-error] runs commands without the menu
+        if (args.length > 0 && args[0].equals("--batch")) {
+            int status = runBatch(args, manager);
+            if (shardScheme != null) {
+                manager.saveToShards(shardDirectory, shardScheme);
+            }
+            // The journal already holds the batch, so the snapshot is left for compaction
+            manager.closeJournal();
+            System.exit(status);
+        }
 
         while (true) {
             System.out.println("\n== Task Manager ==");
@@ -20,87 +51,304 @@ public class Main {
             System.out.println("7. Sort Tasks by Due Date");
             System.out.println("8. Sort Tasks by Priority");
             System.out.println("9. View Overdue Tasks");
+            System.out.println("10. Browse Database");
+            System.out.println("11. Import Tasks (CSV/NDJSON)");
+            System.out.println("12. Export Tasks (CSV/NDJSON)");
+            System.out.println("13. Statistics");
 
             System.out.print("Choose an option: ");
 
-            int choice = scanner.nextInt();
-            scanner.nextLine(); // Consume newline
-
-            switch (choice) {
-                case 1:
-                	System.out.print("Enter title: ");
-                	String title = scanner.nextLine();
-
-                	System.out.print("Enter description: ");
-                	String desc = scanner.nextLine();
-
-                	System.out.print("Enter due date (yyyy-mm-dd): ");
-                	String dateInput = scanner.nextLine();
-                	LocalDate dueDate = LocalDate.parse(dateInput);
-
-                	// Choose priority
-                	System.out.print("Enter priority (LOW, MEDIUM, HIGH): ");
-                	String priorityInput = scanner.nextLine().toUpperCase();
-                	Priority priority = Priority.valueOf(priorityInput);
-
-                	manager.addTask(title, desc, dueDate, priority);
-
-                    break;
-                case 2:
-                    manager.listTasks();
-                    break;
-                case 3:
-                    System.out.print("Enter task number to mark done: ");
-                    int doneIndex = scanner.nextInt() - 1;
-                    scanner.nextLine(); // Consume newline
-                    manager.markTaskDone(doneIndex);
-                    break;
-                case 4:
-                    System.out.print("Enter task number to delete: ");
-                    int delIndex = scanner.nextInt() - 1;
-                    scanner.nextLine(); // Consume newline
-                    manager.deleteTask(delIndex);
-                    break;
-                case 5:
-                    System.out.println("Saving tasks... Goodbye!");
-                    manager.saveToFile(filename);  
-                    scanner.close();               
-                    return;
-                case 6:
-                    System.out.println("Search by: 1. Keyword  2. Status  3. Priority");
-                    String filterOption = scanner.nextLine();
-
-                    if (filterOption.equals("1")) {
-                        System.out.print("Enter keyword to search: ");
-                        String keyword = scanner.nextLine();
-                        manager.searchByKeyword(keyword);
-                    } else if (filterOption.equals("2")) {
-                        System.out.print("Enter status (done/undone): ");
-                        String status = scanner.nextLine();
-                        boolean isDone = status.equalsIgnoreCase("done");
-                        manager.searchByStatus(isDone);
-                    } else if (filterOption.equals("3")) {
-                        System.out.print("Enter priority (LOW, MEDIUM, HIGH): ");
-                        String pr = scanner.nextLine().toUpperCase();
-                        Priority searchPriority = Priority.valueOf(pr);
-                        manager.searchByPriority(searchPriority);
-                    } else {
-                        System.out.println("Invalid filter option.");
-                    }
-                    break;
-                case 7:
-                    manager.sortByDueDate();
-                    break;
-                case 8:
-                    manager.sortByPriority();
-                    break;
-                case 9:
-                    manager.showOverdueTasks();
-                    break;
-
-                default:
-                    System.out.println("Invalid option.");
+            // A mistyped number, date or priority reports the problem instead of ending the program
+            try {
+                int choice = Integer.parseInt(scanner.nextLine().trim());
+
+                switch (choice) {
+                    case 1:
+                    	System.out.print("Enter title: ");
+                    	String title = scanner.nextLine();
+
+                    	System.out.print("Enter description: ");
+                    	String desc = scanner.nextLine();
+
+                    	System.out.print("Enter due date (yyyy-mm-dd): ");
+                    	String dateInput = scanner.nextLine();
+                    	LocalDate dueDate = LocalDate.parse(dateInput);
+
+                    	// Choose priority
+                    	System.out.print("Enter priority (LOW, MEDIUM, HIGH): ");
+                    	String priorityInput = scanner.nextLine().toUpperCase();
+                    	Priority priority = Priority.valueOf(priorityInput);
+
+                    	System.out.print("Repeat (blank for none, e.g. FREQ=WEEKLY;INTERVAL=2;UNTIL=2026-12-31): ");
+                    	String repeatInput = scanner.nextLine().trim();
+
+                    	Task newTask = new Task(title, desc, dueDate, priority);
+                    	if (!repeatInput.isEmpty()) {
+                    	    newTask.setRecurrence(Recurrence.parse(repeatInput));
+                    	}
+                    	manager.addTask(newTask);
+
+                        break;
+                    case 2:
+                        manager.listTasks();
+                        break;
+                    case 3:
+                        // Occurrences of recurring tasks are listed as id@date
+                        System.out.print("Enter task ID to mark done (id@yyyy-mm-dd for one occurrence): ");
+                        String doneInput = scanner.nextLine().trim();
+                        int at = doneInput.indexOf('@');
+                        if (at >= 0) {
+                            long seriesId = Long.parseLong(doneInput.substring(0, at));
+                            LocalDate occurrence = LocalDate.parse(doneInput.substring(at + 1));
+                            System.out.println(manager.markOccurrenceDone(seriesId, occurrence)
+                                ? "Occurrence marked as done." : "Task " + seriesId + " does not repeat on " + occurrence + ".");
+                        } else {
+                            long doneId = Long.parseLong(doneInput);
+                            System.out.println(manager.markTaskDone(doneId) ? "Task marked as done." : "No task with ID " + doneId + ".");
+                        }
+                        break;
+                    case 4:
+                        System.out.print("Enter task ID to delete: ");
+                        long delId = Long.parseLong(scanner.nextLine().trim());
+                        System.out.println(manager.deleteTask(delId) ? "Task deleted." : "No task with ID " + delId + ".");
+                        break;
+                    case 5:
+                        System.out.println("Saving tasks... Goodbye!");
+                        if (shardScheme == null) {
+                            manager.saveToFile(filename);
+                        } else {
+                            manager.saveToShards(shardDirectory, shardScheme);
+                        }
+                        manager.closeJournal();
+                        scanner.close();
+                        return;
+                    case 6:
+                        System.out.println("Search by: 1. Keyword  2. Status  3. Priority  4. Full text (database)  5. Combined query");
+                        String filterOption = scanner.nextLine();
+
+                        if (filterOption.equals("1")) {
+                            System.out.print("Enter keyword to search: ");
+                            String keyword = scanner.nextLine();
+                            manager.searchByKeyword(keyword);
+                        } else if (filterOption.equals("2")) {
+                            System.out.print("Enter status (done/undone): ");
+                            String status = scanner.nextLine();
+                            boolean isDone = status.equalsIgnoreCase("done");
+                            manager.searchByStatus(isDone);
+                        } else if (filterOption.equals("3")) {
+                            System.out.print("Enter priority (LOW, MEDIUM, HIGH): ");
+                            String pr = scanner.nextLine().toUpperCase();
+                            Priority searchPriority = Priority.valueOf(pr);
+                            manager.searchByPriority(searchPriority);
+                        } else if (filterOption.equals("4")) {
+                            System.out.print("Enter words to search (prefixes match too): ");
+                            String words = scanner.nextLine();
+                            List<TaskSearchHit> hits = manager.searchDatabase(words, true, SEARCH_LIMIT);
+                            if (hits != null && hits.isEmpty()) {
+                                System.out.println("No matching tasks found for: " + words);
+                            } else if (hits != null) {
+                                hits.forEach(System.out::println);
+                            }
+                        } else if (filterOption.equals("5")) {
+                            runQuery(scanner, manager);
+                        } else {
+                            System.out.println("Invalid filter option.");
+                        }
+                        break;
+                    case 7:
+                        manager.sortByDueDate();
+                        break;
+                    case 8:
+                        manager.sortByPriority();
+                        break;
+                    case 9:
+                        manager.showOverdueTasks();
+                        break;
+                    case 10:
+                        browseDatabase(scanner, manager);
+                        break;
+                    case 11:
+                        System.out.print("Enter file to import (.csv or .ndjson): ");
+                        importTasks(Path.of(scanner.nextLine().trim()), manager);
+                        break;
+                    case 12:
+                        System.out.print("Enter file to export to (.csv or .ndjson): ");
+                        exportTasks(Path.of(scanner.nextLine().trim()), manager);
+                        break;
+                    case 13:
+                        manager.showStatistics();
+                        break;
+
+                    default:
+                        System.out.println("Invalid option.");
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                System.out.println("Invalid input: " + e.getMessage());
             }
         }
     }
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    // Returns the exit status: 0 if every command succeeded, 1 if some failed, 2 if none ran
+    private static int runBatch(String[] args, TaskManager manager) {
+        String script = "-";
+        TaskBatch.Output output = TaskBatch.Output.TEXT;
+        boolean stopOnError = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--ndjson")) {
+                output = TaskBatch.Output.NDJSON;
+            } else if (args[i].equals("--stop-on-error")) {
+                stopOnError = true;
+            } else {
+                script = args[i];
+            }
+        }
+        TaskBatch batch = new TaskBatch(output);
+        batch.setStopOnError(stopOnError);
+        try (BufferedReader in = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8)) {
+            batch.parse(in);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not read " + script + ": " + e.getMessage());
+            return 2;
+        }
+        if (!batch.getErrors().isEmpty()) {
+            batch.getErrors().forEach(error -> System.err.println("⚠️ " + error));
+            System.err.println("Nothing was run.");
+            return 2;
+        }
+
+        // One buffered writer for every result; System.out would flush line by line
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+            StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+        long started = System.nanoTime();
+        try {
+            int failed = batch.run(manager, out);
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            System.err.println("Ran " + batch.size() + " commands in " + millis + " ms, " + failed + " failed.");
+            return failed == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not write results: " + e.getMessage());
+            return 2;
+        }
+    }
+
+    private static void importTasks(Path file, TaskManager manager) {
+        TaskTextFormat format = TaskTextFormat.forFile(file);
+        if (format == null) {
+            System.out.println("Unsupported file type: " + file);
+            return;
+        }
+        TaskImporter importer = new TaskImporter(format);
+        importer.setErrorListener(error -> System.out.println("⚠️ Skipped " + error));
+        try {
+            System.out.println("Imported " + importer.run(file, TaskImporter.toManager(manager)));
+        } catch (IOException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        }
+    }
+
+    private static void exportTasks(Path file, TaskManager manager) {
+        TaskTextFormat format = TaskTextFormat.forFile(file);
+        if (format == null) {
+            System.out.println("Unsupported file type: " + file);
+            return;
+        }
+        try {
+            System.out.println("Exported " + new TaskExporter(format).export(manager.getTasks(), file));
+        } catch (IOException e) {
+            System.out.println("Export failed: " + e.getMessage());
+        }
+    }
+
+    // Combines any of the in-memory conditions, e.g. pending HIGH tasks mentioning "report" due this month
+    private static void runQuery(Scanner scanner, TaskManager manager) {
+        System.out.print("Keyword (blank for any): ");
+        TaskQuery query = TaskQuery.all().withKeyword(scanner.nextLine());
+
+        System.out.print("Status (done/undone, blank for any): ");
+        String status = scanner.nextLine().trim();
+        if (!status.isEmpty()) {
+            query = query.withDone(status.equalsIgnoreCase("done"));
+        }
+        System.out.print("Priority (LOW, MEDIUM, HIGH, blank for any): ");
+        String pr = scanner.nextLine().trim().toUpperCase();
+        if (!pr.isEmpty()) {
+            query = query.withPriority(Priority.valueOf(pr));
+        }
+        System.out.print("Due from (yyyy-mm-dd, blank for open): ");
+        String from = scanner.nextLine().trim();
+        System.out.print("Due until (yyyy-mm-dd, blank for open): ");
+        String to = scanner.nextLine().trim();
+        if (!from.isEmpty() || !to.isEmpty()) {
+            query = query.withDueBetween(from.isEmpty() ? null : LocalDate.parse(from),
+                to.isEmpty() ? null : LocalDate.parse(to));
+        }
+        System.out.print("Sort by (list, due_date, priority, title; blank for list): ");
+        String sort = scanner.nextLine().trim().toUpperCase();
+        if (!sort.isEmpty()) {
+            query = query.sortedBy(sort.equals("LIST") ? TaskQuery.Sort.LIST_ORDER : TaskQuery.Sort.valueOf(sort));
+        }
+        System.out.print("Limit (blank for none): ");
+        String limit = scanner.nextLine().trim();
+        if (!limit.isEmpty()) {
+            query = query.limitedTo(Integer.parseInt(limit));
+        }
+
+        List<Task> matches = manager.query(query);
+        for (Task task : matches) {
+            System.out.println(task.getId() + ". " + task);
+        }
+        if (matches.isEmpty()) {
+            System.out.println("No matching tasks found.");
+        }
+    }
+
+    private static final int PAGE_SIZE = 20;
+    private static final int SEARCH_LIMIT = 20;
+
+    // Pages through tasks.db with the filters applied in SQL, so only one page is in memory
+    private static void browseDatabase(Scanner scanner, TaskManager manager) {
+        TaskFilter filter = TaskFilter.all().withOrder(TaskFilter.Order.DUE_DATE);
+
+        System.out.print("Status (done/undone, blank for any): ");
+        String status = scanner.nextLine().trim();
+        if (!status.isEmpty()) {
+            filter = filter.withDone(status.equalsIgnoreCase("done"));
+        }
+        System.out.print("Priority (LOW, MEDIUM, HIGH, blank for any): ");
+        String pr = scanner.nextLine().trim().toUpperCase();
+        if (!pr.isEmpty()) {
+            filter = filter.withPriority(Priority.valueOf(pr));
+        }
+        System.out.print("Due from (yyyy-mm-dd, blank for open): ");
+        String from = scanner.nextLine().trim();
+        System.out.print("Due until (yyyy-mm-dd, blank for open): ");
+        String to = scanner.nextLine().trim();
+        if (!from.isEmpty() || !to.isEmpty()) {
+            filter = filter.withDueBetween(from.isEmpty() ? null : LocalDate.parse(from),
+                to.isEmpty() ? null : LocalDate.parse(to));
+        }
+
+        System.out.println(manager.countInDatabase(filter) + " matching tasks in the database.");
+        TaskPage.Cursor cursor = null;
+        do {
+            TaskPage page = manager.queryDatabase(filter, cursor, PAGE_SIZE);
+            if (page == null) {
+                return;
+            }
+            for (Task task : page.getTasks()) {
+                System.out.println(task.getId() + ". " + task);
+            }
+            cursor = page.getNext();
+            if (cursor != null) {
+                System.out.print("-- Enter for more, q to stop: ");
+                if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                    return;
+                }
+            }
+        } while (cursor != null);
+    }
 }
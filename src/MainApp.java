@@ -1,16 +1,20 @@
 import javafx.application.Application;
+import javafx.collections.FXCollections;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
-import javafx.scene.paint.Color;
-import javafx.util.Callback;
 import java.time.LocalDate;
+import java.util.List;
 
 public class MainApp extends Application {
 
     private TaskManager manager = new TaskManager();  // logic backend
+    private PersistenceExecutor persistence = new PersistenceExecutor();  // saves/loads off the FX thread
+    private TaskListModel taskListModel;  // applies the manager's changes to the ListView
+    private LiveSearch liveSearch;  // debounced background search as the user types
+    private DashboardStrip dashboard;  // running counts above the list
     private ListView<Task> taskListView = new ListView<>();
     private static final String SAVE_FILE = "tasks.json";
 
@@ -23,6 +27,7 @@ public class MainApp extends Application {
     @Override
     public void start(Stage stage) {
         stage.setTitle("🗂️ Personal Task Manager");
+        taskListModel = TaskListModel.create(manager);
 
         // --- Input Fields ---
         TextField titleField = new TextField();
@@ -53,44 +58,22 @@ public class MainApp extends Application {
         Button searchButton = new Button("🔍 Search");
         Button showAllButton = new Button("👁 Show All");
 
-        searchButton.setOnAction(e -> {
-            String keyword = searchField.getText().trim().toLowerCase();
-            filterTasks(keyword);
-        });
+        liveSearch = LiveSearch.create(manager, this::showMatches, this::refreshTaskList);
+        searchField.textProperty().addListener((obs, oldText, text) -> liveSearch.keywordChanged(text));
+        searchField.setOnAction(e -> liveSearch.runNow(searchField.getText()));
+        searchButton.setOnAction(e -> liveSearch.runNow(searchField.getText()));
 
         showAllButton.setOnAction(e -> {
             searchField.clear();
-            refreshTaskList();
+            liveSearch.runNow("");
         });
 
         HBox searchBox = new HBox(10, searchField, searchButton, showAllButton);
         searchBox.setPadding(new Insets(10, 0, 0, 0));
 
-        // --- List Cell Factory (Color-coded) ---
-        taskListView.setCellFactory(new Callback<>() {
-            @Override
-            public ListCell<Task> call(ListView<Task> listView) {
-                return new ListCell<>() {
-                    @Override
-                    protected void updateItem(Task task, boolean empty) {
-                        super.updateItem(task, empty);
-                        if (empty || task == null) {
-                            setText(null);
-                        } else {
-                            setText(task.toString());
-                            setStyle("-fx-font-weight: bold;");
-                            if (task.getPriority() == Priority.HIGH) {
-                                setTextFill(Color.RED);
-                            } else if (task.getPriority() == Priority.MEDIUM) {
-                                setTextFill(Color.ORANGE);
-                            } else {
-                                setTextFill(Color.GREEN);
-                            }
-                        }
-                    }
-                };
-            }
-        });
+        // --- List Cell Factory (Color-coded, cached text) ---
+        taskListView.setCellFactory(taskListModel::createCell);
+        taskListView.setItems(taskListModel.getAllTasks());
 
         // --- Button Actions ---
         addButton.setOnAction(e -> {
@@ -106,39 +89,46 @@ public class MainApp extends Application {
 
             Task newTask = new Task(title, desc, dueDate, priority);
             manager.addTask(newTask);
-            refreshTaskList();
+            refreshTaskList();  // back to the full list if a search was showing
             titleField.clear(); descField.clear(); dueDatePicker.setValue(null);
         });
 
         deleteButton.setOnAction(e -> {
             Task selected = taskListView.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                manager.getTasks().remove(selected);
-                refreshTaskList();
+                manager.deleteTask(selected);
             }
         });
 
         markDoneButton.setOnAction(e -> {
             Task selected = taskListView.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                selected.setDone(true);
-                refreshTaskList();
+                manager.markTaskDone(selected);
             }
         });
 
         saveButton.setOnAction(e -> {
-            manager.saveToDatabase();
-            showAlert("Saved", "Tasks saved to database successfully.");
+            persistence.submit("Saving", progress -> manager.saveToDatabase(), null, ok -> {
+                if (ok) {
+                    showAlert("Saved", "Tasks saved to database successfully.");
+                } else {
+                    showAlert("❗ Error", "Saving to the database did not complete.");
+                }
+            });
         });
 
-
-
         loadButton.setOnAction(e -> {
-        	manager.initDatabase();
-        	manager.loadFromDatabase();
-
-            refreshTaskList();
-            showAlert("📂 Loaded", "Tasks loaded successfully.");
+            persistence.submit("Loading", progress -> {
+                manager.initDatabase();
+                return manager.loadFromDatabase(progress);
+            }, this::showFirstPage, ok -> {
+                refreshTaskList();
+                if (ok) {
+                    showAlert("📂 Loaded", "Tasks loaded successfully.");
+                } else {
+                    showAlert("❗ Error", "Loading from the database did not complete; the current tasks were kept.");
+                }
+            });
         });
         themeToggle.setOnAction(e -> {
             darkMode = !darkMode;
@@ -153,6 +143,24 @@ public class MainApp extends Application {
 
         
         
+        // --- Status Bar (background saves/loads) ---
+        ProgressBar progressBar = new ProgressBar(0);
+        Label statusLabel = new Label();
+        Button cancelButton = new Button("✖ Cancel");
+        cancelButton.setOnAction(e -> persistence.cancel());
+
+        persistence.currentJobProperty().addListener((obs, oldJob, job) -> {
+            progressBar.progressProperty().bind(job.progressProperty());
+            statusLabel.textProperty().bind(job.messageProperty());
+            cancelButton.disableProperty().bind(job.runningProperty().not());
+            saveButton.disableProperty().bind(job.runningProperty());
+            loadButton.disableProperty().bind(job.runningProperty());
+        });
+        cancelButton.setDisable(true);
+
+        HBox statusBar = new HBox(10, progressBar, statusLabel, cancelButton);
+        statusBar.setPadding(new Insets(5, 0, 0, 0));
+
         // --- Layout ---
         HBox buttons = new HBox(10, addButton, deleteButton, markDoneButton, saveButton, loadButton, themeToggle);
         VBox form = new VBox(10, titleField, descField, dueDatePicker, priorityBox, buttons);
@@ -160,18 +168,14 @@ public class MainApp extends Application {
         form.setStyle("-fx-background-color: #f8f9fa; -fx-border-color: #d3d3d3; -fx-border-radius: 5;");
 
         TitledPane inputPane = new TitledPane("📝 Add New Task", form);
-       
-        
-        searchButton.setOnAction(e -> {
-            String keyword = searchField.getText().trim().toLowerCase();
-            filterTasks(keyword);
-        });
 
         TitledPane searchPane = new TitledPane("🔎 Search", searchBox);
 
         TitledPane taskPane = new TitledPane("📋 Tasks", taskListView);
 
-        VBox mainLayout = new VBox(10, inputPane, searchPane, taskPane);
+        dashboard = DashboardStrip.create(manager, taskListModel.getAllTasks());
+
+        VBox mainLayout = new VBox(10, inputPane, searchPane, dashboard.getNode(), taskPane, statusBar);
         mainLayout.setPadding(new Insets(15));
         mainLayout.setStyle("-fx-background-color: #f0f4f8;");
 
@@ -181,28 +185,31 @@ public class MainApp extends Application {
         stage.show();
 
         // --- Load tasks initially ---
-        manager.loadFromFile(SAVE_FILE);
-        refreshTaskList();
         applyLightTheme(scene);
+        persistence.submit("Loading " + SAVE_FILE, progress -> manager.loadFromFile(SAVE_FILE, progress),
+                this::showFirstPage, ok -> refreshTaskList());
+    }
+
+    @Override
+    public void stop() {
+        liveSearch.shutdown();
+        dashboard.shutdown();
+        persistence.shutdown();
     }
 
+    // Shown until the load completes and the full list takes over
+    private void showFirstPage(List<Task> page) {
+        taskListView.setItems(FXCollections.observableArrayList(page));
+    }
+
+    // The model already holds every change, so showing all tasks is just a switch of lists
     private void refreshTaskList() {
-        taskListView.getItems().setAll(manager.getTasks());
+        taskListView.setItems(taskListModel.getAllTasks());
     }
 
-    private void filterTasks(String keyword) {
-        if (keyword.isEmpty()) {
-            refreshTaskList();
-            return;
-        }
-        taskListView.getItems().setAll(
-            manager.getTasks().stream()
-                .filter(task ->
-                    task.getTitle().toLowerCase().contains(keyword) ||
-                    task.getDescription().toLowerCase().contains(keyword)
-                )
-                .toList()
-        );
+    private void showMatches(List<Task> matches) {
+        taskListModel.setMatches(matches);
+        taskListView.setItems(taskListModel.getMatches());
     }
 
     private void showAlert(String title, String msg) {
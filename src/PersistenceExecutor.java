@@ -0,0 +1,92 @@
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.concurrent.Worker;
+
+/**
+ * Runs MainApp's saves and loads on virtual threads so the JavaFX application thread
+ * never waits on file or database I/O. The running job is published as a Worker for
+ * the status bar (progress, message, cancel), and every callback is delivered on the
+ * FX thread.
+ */
+public class PersistenceExecutor {
+
+    /** A save or load; it reports through the listener and returns false if it did not complete. */
+    @FunctionalInterface
+    public interface Job {
+        boolean run(TaskLoadListener progress) throws Exception;
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ReadOnlyObjectWrapper<Worker<Boolean>> currentJob = new ReadOnlyObjectWrapper<>();
+
+    public ReadOnlyObjectProperty<Worker<Boolean>> currentJobProperty() {
+        return currentJob.getReadOnlyProperty();
+    }
+
+    /**
+     * Starts the job on a new virtual thread. onFirstPage (optional) receives the first
+     * decoded tasks of a load; onDone receives true if the job completed, false if it
+     * failed or was cancelled.
+     */
+    public Worker<Boolean> submit(String description, Job job, Consumer<List<Task>> onFirstPage, Consumer<Boolean> onDone) {
+        javafx.concurrent.Task<Boolean> worker = new javafx.concurrent.Task<>() {
+            @Override
+            protected Boolean call() throws Exception {
+                updateMessage(description + "...");
+                updateProgress(-1, -1);
+                return job.run(new TaskLoadListener() {
+                    @Override
+                    public void firstPage(List<Task> page) {
+                        if (onFirstPage != null) {
+                            Platform.runLater(() -> onFirstPage.accept(page));
+                        }
+                    }
+
+                    @Override
+                    public void progress(long loaded, long total) {
+                        updateProgress(loaded, total);
+                        updateMessage(description + ": " + loaded + (total >= 0 ? " / " + total : "") + " tasks");
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return isWorkerCancelled();
+                    }
+                });
+            }
+
+            private boolean isWorkerCancelled() {
+                return isCancelled();
+            }
+        };
+
+        worker.setOnSucceeded(e -> onDone.accept(Boolean.TRUE.equals(worker.getValue())));
+        worker.setOnCancelled(e -> onDone.accept(false));
+        worker.setOnFailed(e -> {
+            System.err.println("⚠️ " + description + " failed: " + worker.getException());
+            onDone.accept(false);
+        });
+
+        currentJob.set(worker);
+        executor.execute(worker);
+        return worker;
+    }
+
+    public void cancel() {
+        Worker<Boolean> job = currentJob.get();
+        if (job != null && job.isRunning()) {
+            job.cancel();
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
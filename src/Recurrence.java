@@ -0,0 +1,237 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Immutable repeat rule of a recurring task: every N days, weeks or months from the task's
+ * due date, optionally until a date and/or for a number of occurrences. Occurrence n is
+ * computed directly from the start, so finding the occurrences in a window never walks
+ * the series from its beginning.
+ *
+ * Stored as text in an RRULE-like form, e.g. "FREQ=WEEKLY;INTERVAL=2;UNTIL=2026-12-31;COUNT=10";
+ * only FREQ is required.
+ */
+public final class Recurrence {
+
+    public enum Frequency {
+        DAILY,
+        WEEKLY,
+        /** Same day of the month; in shorter months the last day. */
+        MONTHLY
+    }
+
+    /** last() of a series without an end. */
+    public static final long ENDLESS = Long.MAX_VALUE;
+
+    private final Frequency frequency;
+    private final int interval;
+    private final LocalDate until;
+    private final int count;
+
+    private Recurrence(Frequency frequency, int interval, LocalDate until, int count) {
+        this.frequency = Objects.requireNonNull(frequency);
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1: " + interval);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count: " + count);
+        }
+        this.interval = interval;
+        this.until = until;
+        this.count = count;
+    }
+
+    public static Recurrence daily() {
+        return new Recurrence(Frequency.DAILY, 1, null, 0);
+    }
+
+    public static Recurrence weekly() {
+        return new Recurrence(Frequency.WEEKLY, 1, null, 0);
+    }
+
+    public static Recurrence monthly() {
+        return new Recurrence(Frequency.MONTHLY, 1, null, 0);
+    }
+
+    public static Recurrence everyDays(int days) {
+        return new Recurrence(Frequency.DAILY, days, null, 0);
+    }
+
+    /** Every interval days, weeks or months instead of every one. */
+    public Recurrence every(int interval) {
+        return new Recurrence(frequency, interval, until, count);
+    }
+
+    /** No occurrences after this date; null for none. */
+    public Recurrence until(LocalDate until) {
+        return new Recurrence(frequency, interval, until, count);
+    }
+
+    /** At most count occurrences; 0 for no limit. */
+    public Recurrence times(int count) {
+        return new Recurrence(frequency, interval, until, count);
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    // --- Occurrences (numbered from 0, the start itself) ---
+
+    /** The date of occurrence n; it is only part of the series if n <= last(start). */
+    public LocalDate occurrence(LocalDate start, long n) {
+        return switch (frequency) {
+            case DAILY -> start.plusDays(n * interval);
+            case WEEKLY -> start.plusWeeks(n * interval);
+            // From the start each time, so the 31st does not drift to the 28th after February
+            case MONTHLY -> start.plusMonths(n * interval);
+        };
+    }
+
+    /** The number of the first occurrence on or after the date, ignoring the end of the series. */
+    public long firstOnOrAfter(LocalDate start, LocalDate date) {
+        if (!date.isAfter(start)) {
+            return 0;
+        }
+        if (frequency == Frequency.MONTHLY) {
+            long n = Math.max(0, ChronoUnit.MONTHS.between(start, date) / interval - 1);
+            while (occurrence(start, n).isBefore(date)) {
+                n++;
+            }
+            return n;
+        }
+        long step = frequency == Frequency.WEEKLY ? 7L * interval : interval;
+        return Math.ceilDiv(ChronoUnit.DAYS.between(start, date), step);
+    }
+
+    /** The number of the last occurrence, ENDLESS if the series has no end, -1 if it has none at all. */
+    public long last(LocalDate start) {
+        long last = count > 0 ? count - 1 : ENDLESS;
+        if (until != null) {
+            last = Math.min(last, firstOnOrAfter(start, until.plusDays(1)) - 1);
+        }
+        return last;
+    }
+
+    /** Whether the series starting on start has an occurrence on the date. */
+    public boolean occursOn(LocalDate start, LocalDate date) {
+        if (date.isBefore(start)) {
+            return false;
+        }
+        long n = firstOnOrAfter(start, date);
+        return n <= last(start) && occurrence(start, n).equals(date);
+    }
+
+    // --- Text forms ---
+
+    /** For display, e.g. "every 2 weeks until 2026-12-31". */
+    public String describe() {
+        String unit = frequency == Frequency.DAILY ? "day" : frequency == Frequency.WEEKLY ? "week" : "month";
+        StringBuilder text = new StringBuilder("every ");
+        text.append(interval == 1 ? unit : interval + " " + unit + "s");
+        if (until != null) {
+            text.append(" until ").append(until);
+        }
+        if (count > 0) {
+            text.append(", ").append(count).append(count == 1 ? " time" : " times");
+        }
+        return text.toString();
+    }
+
+    /** Parses the stored form; throws IllegalArgumentException saying what is wrong. */
+    public static Recurrence parse(String text) {
+        Frequency frequency = null;
+        int interval = 1;
+        LocalDate until = null;
+        int count = 0;
+        for (String part : text.trim().split(";")) {
+            int eq = part.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected NAME=value in repeat rule: " + part);
+            }
+            String name = part.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+            String value = part.substring(eq + 1).trim();
+            switch (name) {
+                case "FREQ" -> frequency = parseFrequency(value);
+                case "INTERVAL" -> interval = parseNumber(name, value);
+                case "UNTIL" -> until = parseDate(value);
+                case "COUNT" -> count = parseNumber(name, value);
+                default -> throw new IllegalArgumentException("Unknown repeat rule part: " + name);
+            }
+        }
+        if (frequency == null) {
+            throw new IllegalArgumentException("Repeat rule needs FREQ=DAILY, WEEKLY or MONTHLY: " + text);
+        }
+        return new Recurrence(frequency, interval, until, count);
+    }
+
+    private static Frequency parseFrequency(String value) {
+        try {
+            return Frequency.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Bad FREQ in repeat rule: " + value);
+        }
+    }
+
+    private static int parseNumber(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad " + name + " in repeat rule: " + value);
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Bad UNTIL in repeat rule: " + value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("FREQ=").append(frequency);
+        if (interval != 1) {
+            text.append(";INTERVAL=").append(interval);
+        }
+        if (until != null) {
+            text.append(";UNTIL=").append(until);
+        }
+        if (count > 0) {
+            text.append(";COUNT=").append(count);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Recurrence other)) {
+            return false;
+        }
+        return frequency == other.frequency && interval == other.interval
+            && Objects.equals(until, other.until) && count == other.count;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(frequency, interval, until, count);
+    }
+}
@@ -0,0 +1,118 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Recurring tasks and the stored exceptions to them. A series is kept once, as the task
+ * holding the Recurrence; its occurrences in a date window are generated when a query
+ * asks for them, skipping every date that has an exception (an occurrence that was
+ * completed or edited and is therefore stored as a task of its own). The cost of a
+ * window is the number of occurrences in it, whatever the length of the series.
+ *
+ * Series are keyed by slot, so they come out in list order; exceptions are keyed by series
+ * id and occurrence date, which stay the same when slots are renumbered.
+ */
+public class RecurrenceIndex {
+
+    /** How far past the start (or today, if later) a window without an end is filled. */
+    public static final int OPEN_END_DAYS = 366;
+
+    /** How far before today a window without a start looks for missed occurrences. */
+    public static final int OPEN_START_DAYS = 31;
+
+    private static final Comparator<Task> DUE_ORDER = Comparator.comparing(Task::getDueDate)
+        .thenComparing(Task::getPriority, Comparator.nullsLast(Comparator.<Priority>reverseOrder()));
+
+    private final NavigableMap<Integer, Task> series = new TreeMap<>();
+    private final Map<Long, NavigableMap<LocalDate, Long>> exceptions = new HashMap<>();
+
+    public void add(int slot, Task task) {
+        if (task.isRecurring()) {
+            series.put(slot, task);
+        }
+        if (task.isOccurrence() && task.getOccurrenceDate() != null) {
+            exceptions.computeIfAbsent(task.getSeriesId(), id -> new TreeMap<>())
+                .put(task.getOccurrenceDate(), task.getId());
+        }
+    }
+
+    public void remove(int slot, Task task) {
+        series.remove(slot);
+        if (task.isOccurrence() && task.getOccurrenceDate() != null) {
+            NavigableMap<LocalDate, Long> dates = exceptions.get(task.getSeriesId());
+            if (dates != null) {
+                dates.remove(task.getOccurrenceDate(), task.getId());
+                if (dates.isEmpty()) {
+                    exceptions.remove(task.getSeriesId());
+                }
+            }
+        }
+    }
+
+    /** Re-files the slot after its repeat rule was set or cleared. */
+    public void update(int slot, Task task) {
+        series.remove(slot);
+        if (task.isRecurring()) {
+            series.put(slot, task);
+        }
+    }
+
+    public void clear() {
+        series.clear();
+        exceptions.clear();
+    }
+
+    public boolean hasSeries() {
+        return !series.isEmpty();
+    }
+
+    /** The id of the stored exception for that occurrence, or 0 if it has none. */
+    public long exceptionId(long seriesId, LocalDate date) {
+        NavigableMap<LocalDate, Long> dates = exceptions.get(seriesId);
+        Long id = dates == null ? null : dates.get(date);
+        return id == null ? 0 : id;
+    }
+
+    /** Ids of every stored exception of the series. */
+    public List<Long> exceptionIds(long seriesId) {
+        NavigableMap<LocalDate, Long> dates = exceptions.get(seriesId);
+        return dates == null ? List.of() : new ArrayList<>(dates.values());
+    }
+
+    /**
+     * Unsaved tasks for the occurrences of every pending series due in [from, to], at most
+     * perSeries from each, ordered like DueDateIndex: by date, priority (HIGH first), then
+     * list order. A null from starts OPEN_START_DAYS before today, or at the series' first
+     * occurrence if that is later, so a series missed for years does not flood the result;
+     * a null to ends OPEN_END_DAYS after from or today, whichever is later. Ended (done)
+     * series and occurrences with an exception are left out.
+     */
+    public List<Task> occurrences(LocalDate from, LocalDate to, LocalDate today, int perSeries) {
+        List<Task> result = new ArrayList<>();
+        LocalDate floor = from != null ? from : today.minusDays(OPEN_START_DAYS);
+        for (Task task : series.values()) {
+            LocalDate start = task.getDueDate();
+            if (task.isDone() || start == null) {
+                continue;
+            }
+            Recurrence rule = task.getRecurrence();
+            LocalDate first = floor.isBefore(start) ? start : floor;
+            LocalDate end = to != null ? to : (first.isAfter(today) ? first : today).plusDays(OPEN_END_DAYS);
+            NavigableMap<LocalDate, Long> skipped = exceptions.getOrDefault(task.getId(), Collections.emptyNavigableMap());
+            long last = rule.last(start);
+            int produced = 0;
+            for (long n = rule.firstOnOrAfter(start, first); n <= last && produced < perSeries; n++) {
+                LocalDate date = rule.occurrence(start, n);
+                if (date.isAfter(end)) {
+                    break;
+                }
+                if (!skipped.containsKey(date)) {
+                    result.add(task.occurrenceOn(date));
+                    produced++;
+                }
+            }
+        }
+        // Series were visited in list order and the sort is stable, so ties keep that order
+        result.sort(DUE_ORDER);
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/** How TaskShardStore splits the task list into shards, and which shards are cold. */
+public enum ShardScheme {
+
+    /** "pending" and "done"; the done shard is cold. */
+    BY_STATUS {
+        @Override
+        public String keyOf(Task task) {
+            return task.isDone() ? "done" : "pending";
+        }
+
+        @Override
+        public boolean isCold(TaskShardStore.Shard shard, LocalDate today) {
+            return shard.getPending() == 0;
+        }
+    },
+
+    /**
+     * One shard per due month, e.g. "2026-10", plus "undated"; a month before the current
+     * one whose tasks are all done is cold.
+     */
+    BY_DUE_MONTH {
+        @Override
+        public String keyOf(Task task) {
+            return task.getDueDate() == null ? UNDATED : YearMonth.from(task.getDueDate()).toString();
+        }
+
+        @Override
+        public boolean isCold(TaskShardStore.Shard shard, LocalDate today) {
+            return shard.getPending() == 0 && !shard.getKey().equals(UNDATED)
+                && YearMonth.parse(shard.getKey()).isBefore(YearMonth.from(today));
+        }
+    };
+
+    static final String UNDATED = "undated";
+
+    /** The shard the task belongs in; keys are also used in file names. */
+    public abstract String keyOf(Task task);
+
+    /** Cold shards are left on disk when the directory is loaded, until a query needs them. */
+    public abstract boolean isCold(TaskShardStore.Shard shard, LocalDate today);
+}
@@ -0,0 +1,145 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Bitsets over task slots: one per Priority, one for done tasks and one for all live
+ * tasks. Combined filters such as "undone HIGH tasks" are word-wise AND/ANDNOT
+ * operations, and per-combination counts are kept as plain counters.
+ */
+public class StatusPriorityIndex {
+
+    private final BitSet live = new BitSet();
+    private final BitSet done = new BitSet();
+    private final Map<Priority, BitSet> byPriority = new EnumMap<>(Priority.class);
+
+    // counts[priority ordinal][done ? 1 : 0]; the last row holds tasks without a priority
+    private final int[][] counts = new int[Priority.values().length + 1][2];
+
+    public StatusPriorityIndex() {
+        for (Priority priority : Priority.values()) {
+            byPriority.put(priority, new BitSet());
+        }
+    }
+
+    public void add(int slot, Task task) {
+        live.set(slot);
+        if (task.isDone()) {
+            done.set(slot);
+        }
+        if (task.getPriority() != null) {
+            byPriority.get(task.getPriority()).set(slot);
+        }
+        counts[row(task.getPriority())][task.isDone() ? 1 : 0]++;
+    }
+
+    public void remove(int slot, Task task) {
+        if (!live.get(slot)) {
+            return;
+        }
+        counts[row(task.getPriority())][done.get(slot) ? 1 : 0]--;
+        live.clear(slot);
+        done.clear(slot);
+        if (task.getPriority() != null) {
+            byPriority.get(task.getPriority()).clear(slot);
+        }
+    }
+
+    public void doneChanged(int slot, boolean isDone, Priority priority) {
+        if (!live.get(slot) || done.get(slot) == isDone) {
+            return;
+        }
+        counts[row(priority)][isDone ? 0 : 1]--;
+        counts[row(priority)][isDone ? 1 : 0]++;
+        done.set(slot, isDone);
+    }
+
+    public void priorityChanged(int slot, Priority oldPriority, Priority newPriority) {
+        if (!live.get(slot)) {
+            return;
+        }
+        int status = done.get(slot) ? 1 : 0;
+        if (oldPriority != null) {
+            byPriority.get(oldPriority).clear(slot);
+        }
+        if (newPriority != null) {
+            byPriority.get(newPriority).set(slot);
+        }
+        counts[row(oldPriority)][status]--;
+        counts[row(newPriority)][status]++;
+    }
+
+    public void clear() {
+        live.clear();
+        done.clear();
+        for (BitSet bits : byPriority.values()) {
+            bits.clear();
+        }
+        for (int[] row : counts) {
+            row[0] = 0;
+            row[1] = 0;
+        }
+    }
+
+    /**
+     * Slots matching both filters; a null argument means "any".
+     * The returned set is a fresh copy the caller may modify.
+     */
+    public BitSet select(Boolean isDone, Priority priority) {
+        BitSet result = (BitSet) (priority == null ? live : byPriority.get(priority)).clone();
+        if (isDone != null) {
+            if (isDone) {
+                result.and(done);
+            } else {
+                result.andNot(done);
+            }
+        }
+        return result;
+    }
+
+    /** Number of tasks matching both filters, in constant time. */
+    public int count(Boolean isDone, Priority priority) {
+        int total = 0;
+        for (int r = 0; r < counts.length; r++) {
+            if (priority != null && r != priority.ordinal()) {
+                continue;
+            }
+            if (isDone == null || !isDone) {
+                total += counts[r][0];
+            }
+            if (isDone == null || isDone) {
+                total += counts[r][1];
+            }
+        }
+        return total;
+    }
+
+    /** A copy of the counters, counts[priority ordinal][done ? 1 : 0] with a last row for no priority. */
+    public int[][] counts() {
+        int[][] copy = new int[counts.length][];
+        for (int r = 0; r < counts.length; r++) {
+            copy[r] = counts[r].clone();
+        }
+        return copy;
+    }
+
+    /** Slots ordered by priority (LOW to HIGH, missing last), list order within a priority. */
+    public PrimitiveIterator.OfInt inPriorityOrder() {
+        BitSet noPriority = (BitSet) live.clone();
+        List<BitSet> groups = new ArrayList<>();
+        for (Priority priority : Priority.values()) {
+            groups.add(byPriority.get(priority));
+            noPriority.andNot(byPriority.get(priority));
+        }
+        groups.add(noPriority);
+
+        IntStream slots = IntStream.empty();
+        for (BitSet group : groups) {
+            slots = IntStream.concat(slots, group.stream());
+        }
+        return slots.iterator();
+    }
+
+    private static int row(Priority priority) {
+        return priority == null ? Priority.values().length : priority.ordinal();
+    }
+}
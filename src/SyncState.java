@@ -0,0 +1,6 @@
+public enum SyncState {
+    NEW,
+    CLEAN,
+    DIRTY,
+    DELETED
+}
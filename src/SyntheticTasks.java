@@ -0,0 +1,116 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded generator of synthetic tasks for benchmarks and load tests. Text length,
+ * vocabulary size (which sets how selective a keyword is), the priority mix and the
+ * due-date spread around today are all adjustable; the same seed and settings always
+ * give the same tasks, apart from dates, which are relative to the day it runs.
+ */
+public class SyntheticTasks {
+
+    private static final String[] SYLLABLES = {
+        "ka", "lo", "mi", "ne", "ru", "ta", "vo", "shi", "pen", "dor",
+        "ex", "qua", "bri", "zel", "fon", "gra", "hul", "jin", "wes", "yor"
+    };
+
+    private final long seed;
+    private int titleWords = 3;
+    private int descriptionWords = 8;
+    private String[] vocabulary = vocabulary(2000);
+    private final int[] priorityWeights = {1, 1, 1};
+    private int dueSpreadDays = 365;
+    private double overdueRatio = 0.1;
+    private double doneRatio = 0.25;
+
+    public SyntheticTasks(long seed) {
+        this.seed = seed;
+    }
+
+    public void setTextWords(int titleWords, int descriptionWords) {
+        this.titleWords = Math.max(1, titleWords);
+        this.descriptionWords = Math.max(0, descriptionWords);
+    }
+
+    /** Number of distinct words; a smaller vocabulary makes every keyword match more tasks. */
+    public void setVocabularySize(int words) {
+        vocabulary = vocabulary(Math.max(1, words));
+    }
+
+    /** Relative weights of LOW, MEDIUM and HIGH. */
+    public void setPriorityWeights(int low, int medium, int high) {
+        priorityWeights[0] = Math.max(0, low);
+        priorityWeights[1] = Math.max(0, medium);
+        priorityWeights[2] = Math.max(0, high);
+        if (priorityWeights[0] + priorityWeights[1] + priorityWeights[2] == 0) {
+            throw new IllegalArgumentException("At least one priority weight must be positive");
+        }
+    }
+
+    /** Pending tasks are due within spreadDays from today, except overdueRatio of them that are past due. */
+    public void setDueDates(int spreadDays, double overdueRatio) {
+        this.dueSpreadDays = Math.max(1, spreadDays);
+        this.overdueRatio = overdueRatio;
+    }
+
+    public void setDoneRatio(double doneRatio) {
+        this.doneRatio = doneRatio;
+    }
+
+    /** A word of the vocabulary, e.g. to use as a search keyword that is known to occur. */
+    public String word(int index) {
+        return vocabulary[Math.floorMod(index, vocabulary.length)];
+    }
+
+    public List<Task> generate(int count) {
+        Random random = new Random(seed);
+        LocalDate today = LocalDate.now();
+        int totalWeight = priorityWeights[0] + priorityWeights[1] + priorityWeights[2];
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = words(random, titleWords);
+            String description = words(random, descriptionWords);
+
+            LocalDate due = random.nextDouble() < overdueRatio
+                ? today.minusDays(1 + random.nextInt(dueSpreadDays))
+                : today.plusDays(random.nextInt(dueSpreadDays));
+
+            int pick = random.nextInt(totalWeight);
+            Priority priority = pick < priorityWeights[0] ? Priority.LOW
+                : pick < priorityWeights[0] + priorityWeights[1] ? Priority.MEDIUM : Priority.HIGH;
+
+            Task task = new Task(title, description, due, priority);
+            task.setDone(random.nextDouble() < doneRatio);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+    // Distinct pronounceable words: the index written in base-20 syllables ("ka", "lo", ... "kalo", ...)
+    private static String[] vocabulary(int size) {
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int n = i;
+            do {
+                word.append(SYLLABLES[n % SYLLABLES.length]);
+                n /= SYLLABLES.length;
+            } while (n > 0);
+            words[i] = word.toString();
+        }
+        return words;
+    }
+}
@@ -1,11 +1,31 @@
 import java.time.LocalDate;
+import java.util.Objects;
 
+/**
+ * A task. Once a TaskManager holds it, every setter hands the change to the manager, which
+ * writes the field under its write lock and updates its indexes; the editable fields are
+ * volatile, so a thread reading a live task without the lock sees each field's latest value.
+ */
 public class Task {
-    private String title;
-    private String description;
-    private boolean isDone;
-    private LocalDate dueDate;
-    private Priority priority;
+    private long id;
+    private volatile String title;
+    private volatile String description;
+    private volatile boolean isDone;
+    private volatile LocalDate dueDate;
+    private volatile Priority priority;
+
+    // A recurring task (a series) has a rule and its due date is the first occurrence.
+    // An occurrence of one names its series and the date it was generated for.
+    private volatile Recurrence recurrence;
+    private long seriesId;
+    private LocalDate occurrenceDate;
+
+    // Persistence state, so only changed rows are written back to the database
+    private transient volatile SyncState syncState = SyncState.NEW;
+
+    // Owning TaskManager's index hooks; slot is the task's handle in those indexes
+    private transient volatile TaskChangeListener listener;
+    private transient int slot = -1;
 
     // Required for Gson to deserialize
     public Task() {
@@ -20,7 +40,7 @@ public class Task {
     }
 
     public void markDone() {
-        isDone = true;
+        setDone(true);
     }
 
     public boolean isDone() {
@@ -28,7 +48,15 @@ public class Task {
     }
 
     public void setDone(boolean done) {
-        this.isDone = done;
+        change(TaskField.DONE, done);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
     }
 
     public String getTitle() {
@@ -48,30 +76,192 @@ public class Task {
     }
 
     public void setTitle(String title) {
-        this.title = title;
+        change(TaskField.TITLE, title);
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        change(TaskField.DESCRIPTION, description);
     }
 
     public void setDueDate(LocalDate dueDate) {
-        this.dueDate = dueDate;
+        change(TaskField.DUE_DATE, dueDate);
     }
 
     public void setPriority(Priority priority) {
-        this.priority = priority;
+        change(TaskField.PRIORITY, priority);
+    }
+
+    // --- Recurrence ---
+
+    /** The repeat rule, or null if the task does not recur. */
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public void setRecurrence(Recurrence recurrence) {
+        change(TaskField.RECURRENCE, recurrence);
+    }
+
+    public boolean isRecurring() {
+        return recurrence != null;
+    }
+
+    /** The id of the recurring task this is an occurrence of, or 0. */
+    public long getSeriesId() {
+        return seriesId;
+    }
+
+    /** The date this occurrence was generated for; it keeps naming it if the due date is moved. */
+    public LocalDate getOccurrenceDate() {
+        return occurrenceDate;
+    }
+
+    public boolean isOccurrence() {
+        return seriesId != 0;
+    }
+
+    // Set once, by readers and by occurrenceOn
+    void setOccurrenceOf(long seriesId, LocalDate occurrenceDate) {
+        this.seriesId = seriesId;
+        this.occurrenceDate = occurrenceDate;
+    }
+
+    /** A detached copy with the same id, fields and occurrence link; see TaskManager.copyOf. */
+    public Task copy() {
+        Task copy = new Task(getTitle(), getDescription(), getDueDate(), getPriority());
+        copy.isDone = isDone();
+        copy.recurrence = getRecurrence();
+        copy.id = getId();
+        copy.setOccurrenceOf(seriesId, occurrenceDate);
+        return copy;
+    }
+
+    /** A new, unsaved task for one occurrence of this recurring task, with its text and priority. */
+    public Task occurrenceOn(LocalDate date) {
+        Task occurrence = new Task(getTitle(), getDescription(), date, getPriority());
+        occurrence.setOccurrenceOf(getId(), date);
+        return occurrence;
+    }
+
+    // --- Persistence state ---
+    public SyncState getSyncState() {
+        return syncState;
+    }
+
+    public void markClean() {
+        syncState = SyncState.CLEAN;
+    }
+
+    public void markDeleted() {
+        syncState = SyncState.DELETED;
+    }
+
+    // Used to put a task back into the next save after a failed one
+    void markNew() {
+        if (syncState != SyncState.DELETED) {
+            syncState = SyncState.NEW;
+        }
+    }
+
+    // Puts back the state a task had before a batch that was rolled back
+    void restoreSyncState(SyncState state) {
+        syncState = state;
+    }
+
+    void markDirtyForSave() {
+        if (syncState != SyncState.DELETED) {
+            syncState = SyncState.DIRTY;
+        }
+    }
+
+    private void markDirty() {
+        if (syncState == SyncState.CLEAN) {
+            syncState = SyncState.DIRTY;
+        }
+    }
+
+    // --- Index hooks (managed by TaskManager) ---
+    TaskChangeListener getListener() {
+        return listener;
+    }
+
+    void setListener(TaskChangeListener listener) {
+        this.listener = listener;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    // --- Field changes ---
+
+    // A task a manager holds is changed by that manager, under its write lock
+    private void change(TaskField field, Object value) {
+        TaskChangeListener owner = listener;
+        if (owner != null) {
+            owner.changeTask(this, field, value);
+        } else {
+            put(field, value);
+        }
+    }
+
+    /**
+     * Writes the field and returns its old value, marking the task dirty if it changed.
+     * Only the owning manager calls this for a task it holds, with its write lock held.
+     */
+    Object put(TaskField field, Object value) {
+        Object old = get(field);
+        if (Objects.equals(old, value)) {
+            return old;
+        }
+        switch (field) {
+            case TITLE -> title = (String) value;
+            case DESCRIPTION -> description = (String) value;
+            case DONE -> isDone = (Boolean) value;
+            case DUE_DATE -> dueDate = (LocalDate) value;
+            case PRIORITY -> priority = (Priority) value;
+            case RECURRENCE -> recurrence = (Recurrence) value;
+        }
+        markDirty();
+        return old;
+    }
+
+    /** The current value of the field, boxed; the types are those TaskJournal records. */
+    Object get(TaskField field) {
+        return switch (field) {
+            case TITLE -> getTitle();
+            case DESCRIPTION -> getDescription();
+            case DONE -> isDone();
+            case DUE_DATE -> getDueDate();
+            case PRIORITY -> getPriority();
+            case RECURRENCE -> getRecurrence();
+        };
     }
 
     @Override
     public String toString() {
-        String status = isDone ? "[✓]" : "[ ]";
+        return format(LocalDate.now());
+    }
+
+    /** The toString text with overdue judged against the given day, for callers that cache it. */
+    public String format(LocalDate today) {
+        // Reads each field once, so the line is consistent with itself
+        boolean done = isDone();
+        LocalDate due = getDueDate();
+        String status = done ? "[✓]" : "[ ]";
         String overdueText = "";
 
-        if (!isDone && dueDate != null && dueDate.isBefore(LocalDate.now())) {
+        // A recurring task's due date is only its first occurrence
+        Recurrence repeats = getRecurrence();
+        if (!done && due != null && due.isBefore(today) && repeats == null) {
             overdueText = " (Overdue!)";
         }
+        String repeatText = repeats == null ? "" : ", Repeats: " + repeats.describe();
 
-        return status + " " + title + " (Due: " + dueDate + ", Priority: " + priority + ")" + overdueText + " - " + description;
+        return status + " " + getTitle() + " (Due: " + due + ", Priority: " + getPriority() + repeatText + ")" + overdueText + " - " + getDescription();
     }
 }
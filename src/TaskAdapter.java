@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.time.LocalDate;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Reads and writes a single Task field by field, replacing Gson's reflective
+ * serialization. The field names match the files written by earlier versions.
+ */
+public class TaskAdapter extends TypeAdapter<Task> {
+
+    private final LocalDateAdapter dateAdapter = new LocalDateAdapter();
+
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (task.getId() != 0) {
+            out.name("id").value(task.getId());
+        }
+        out.name("title").value(task.getTitle());
+        out.name("description").value(task.getDescription());
+        out.name("isDone").value(task.isDone());
+        out.name("dueDate");
+        dateAdapter.write(out, task.getDueDate());
+        out.name("priority").value(task.getPriority() == null ? null : task.getPriority().name());
+        // Only recurring tasks and their occurrences carry these, so other files stay as they were
+        if (task.getRecurrence() != null) {
+            out.name("recurrence").value(task.getRecurrence().toString());
+        }
+        if (task.isOccurrence()) {
+            out.name("seriesId").value(task.getSeriesId());
+            out.name("occurrenceDate");
+            dateAdapter.write(out, task.getOccurrenceDate());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Task read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        long id = 0;
+        String title = null;
+        String description = null;
+        boolean isDone = false;
+        LocalDate dueDate = null;
+        Priority priority = null;
+        Recurrence recurrence = null;
+        long seriesId = 0;
+        LocalDate occurrenceDate = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id" -> id = in.nextLong();
+                case "title" -> title = in.nextString();
+                case "description" -> description = in.nextString();
+                case "isDone" -> isDone = in.nextBoolean();
+                case "dueDate" -> dueDate = dateAdapter.read(in);
+                case "priority" -> priority = Priority.valueOf(in.nextString());
+                case "recurrence" -> recurrence = Recurrence.parse(in.nextString());
+                case "seriesId" -> seriesId = in.nextLong();
+                case "occurrenceDate" -> occurrenceDate = dateAdapter.read(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        Task task = new Task(title, description, dueDate, priority);
+        task.setDone(isDone);
+        task.setId(id);
+        task.setRecurrence(recurrence);
+        task.setOccurrenceOf(seriesId, occurrenceDate);
+        return task;
+    }
+}
@@ -0,0 +1,557 @@
+import java.io.*;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Batch mode for the CLI: runs a script of commands, one per line, against a TaskManager
+ * as one batch (see TaskManager.inBatch): other threads see its changes all at once and
+ * the journal keeps all or none of them. Every line is parsed and checked before anything
+ * runs, so a bad date or priority rejects the script before it changes anything. By
+ * default a command that fails while running (e.g. an unknown id) is reported, the
+ * commands before it stay applied and the rest carry on; with setStopOnError the first
+ * failure stops the script and rolls back everything it changed (see
+ * TaskManager.inAtomicBatch).
+ *
+ * Commands take positional arguments and name=value options; values with spaces are
+ * double-quoted, with \" and \\ escapes. Only an unquoted name= makes an option, so a
+ * quoted argument may contain '='. Blank lines and lines starting with # are skipped.
+ *
+ *   add "Buy milk" due=2026-10-20 priority=HIGH description="2 litres" repeat=FREQ=WEEKLY
+ *   done 12            done 12@2026-10-20      (one occurrence of a recurring task)
+ *   delete 12
+ *   query keyword=report done=false priority=HIGH from=2026-10-01 to=2026-10-31 sort=due_date limit=20
+ *   export pending.csv done=false                (same filters as query; .csv or .ndjson)
+ *
+ * Results go through the one writer given to run, as text or as NDJSON: query prints each
+ * task as the NDJSON export does, and every command ends with a record such as
+ * {"line":3,"command":"done","ok":true,"id":12}. They are collected while the batch holds
+ * the manager's write lock (queries as copies of the tasks they found) and written, along
+ * with export files, only after it is released, so slow output never blocks other threads.
+ */
+public class TaskBatch {
+
+    public enum Output {
+        TEXT,
+        NDJSON
+    }
+
+    /** A script line that could not be parsed. */
+    public static final class ParseError {
+        private final int line;
+        private final String message;
+
+        ParseError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+
+    private static final Set<String> ADD_OPTIONS = Set.of("title", "description", "due", "priority", "repeat");
+    private static final Set<String> QUERY_OPTIONS = Set.of("keyword", "done", "priority", "from", "to", "sort", "limit");
+    private static final TaskAdapter ADAPTER = new TaskAdapter();
+
+    private final Output output;
+    private final List<Command> commands = new ArrayList<>();
+    private final List<ParseError> errors = new ArrayList<>();
+    private boolean stopOnError;
+
+    public TaskBatch(Output output) {
+        this.output = output;
+    }
+
+    /** Stops at the first failing command and rolls back the whole script. */
+    public void setStopOnError(boolean stopOnError) {
+        this.stopOnError = stopOnError;
+    }
+
+    // --- Parsing ---
+
+    /** Parses the whole script; check getErrors() before running it. */
+    public void parse(BufferedReader script) throws IOException {
+        int number = 0;
+        for (String line = script.readLine(); line != null; line = script.readLine()) {
+            number++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                commands.add(parseCommand(number, tokenize(trimmed)));
+            } catch (IllegalArgumentException e) {
+                errors.add(new ParseError(number, e.getMessage()));
+            } catch (DateTimeParseException e) {
+                errors.add(new ParseError(number, "bad date: " + e.getParsedString()));
+            }
+        }
+    }
+
+    public List<ParseError> getErrors() {
+        return errors;
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    // Splits on whitespace outside double quotes; quotes themselves are dropped
+    static List<Token> tokenize(String line) {
+        List<Token> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean inToken = false;
+        boolean quoted = false;
+        boolean sawQuote = false;
+        int nameEnd = -1;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '\\' && i + 1 < line.length()) {
+                    token.append(line.charAt(++i));
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    token.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                sawQuote = true;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(new Token(token.toString(), nameEnd));
+                    token.setLength(0);
+                    inToken = false;
+                    sawQuote = false;
+                    nameEnd = -1;
+                }
+            } else {
+                // name= counts only before any quote: "a=b" and x"=y" stay arguments
+                if (c == '=' && nameEnd < 0 && !sawQuote && token.length() > 0) {
+                    nameEnd = token.length();
+                }
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        if (inToken) {
+            tokens.add(new Token(token.toString(), nameEnd));
+        }
+        return tokens;
+    }
+
+    private static Command parseCommand(int line, List<Token> tokens) {
+        String name = tokens.get(0).text.toLowerCase(Locale.ROOT);
+        List<String> args = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        for (Token token : tokens.subList(1, tokens.size())) {
+            if (token.nameEnd > 0) {
+                options.put(token.text.substring(0, token.nameEnd).toLowerCase(Locale.ROOT),
+                    token.text.substring(token.nameEnd + 1));
+            } else {
+                args.add(token.text);
+            }
+        }
+        return switch (name) {
+            case "add" -> parseAdd(line, args, options);
+            case "done" -> parseDone(line, args, options);
+            case "delete" -> {
+                long id = parseId(single(name, args, options, Set.of()));
+                yield new Command(line, name, manager ->
+                    Outcome.result(line, name, manager.deleteTask(id), id, "no task with ID " + id));
+            }
+            case "query" -> {
+                if (!args.isEmpty()) {
+                    throw new IllegalArgumentException("query takes only options, e.g. done=false");
+                }
+                TaskQuery query = parseQuery(options);
+                // Copies, so later commands in the script do not change what this one printed
+                yield new Command(line, name, manager -> Outcome.tasks(line, name, manager.copyOf(manager.query(query))));
+            }
+            case "export" -> parseExport(line, args, options);
+            default -> throw new IllegalArgumentException("unknown command: " + name
+                + " (expected add, done, delete, query or export)");
+        };
+    }
+
+    private static Command parseAdd(int line, List<String> args, Map<String, String> options) {
+        checkOptions("add", options, ADD_OPTIONS);
+        if (args.size() > 1 || (args.size() == 1 && options.containsKey("title"))) {
+            throw new IllegalArgumentException("add takes one title; quote titles with spaces");
+        }
+        String title = args.isEmpty() ? options.get("title") : args.get(0);
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("add needs a title");
+        }
+        String due = options.get("due");
+        String priority = options.get("priority");
+        Task template = new Task(title, options.getOrDefault("description", ""),
+            due == null ? null : LocalDate.parse(due), priority == null ? Priority.MEDIUM : parsePriority(priority));
+        if (options.containsKey("repeat")) {
+            if (template.getDueDate() == null) {
+                throw new IllegalArgumentException("a repeating task needs a due date");
+            }
+            template.setRecurrence(Recurrence.parse(options.get("repeat")));
+        }
+        return new Command(line, "add", manager -> {
+            // A fresh task each run, so a parsed script can be run more than once
+            Task task = new Task(template.getTitle(), template.getDescription(), template.getDueDate(), template.getPriority());
+            task.setRecurrence(template.getRecurrence());
+            manager.addTask(task);
+            return Outcome.result(line, "add", true, task.getId(), null);
+        });
+    }
+
+    private static Command parseDone(int line, List<String> args, Map<String, String> options) {
+        String target = single("done", args, options, Set.of());
+        int at = target.indexOf('@');
+        if (at < 0) {
+            long id = parseId(target);
+            return new Command(line, "done", manager ->
+                Outcome.result(line, "done", manager.markTaskDone(id), id, "no task with ID " + id));
+        }
+        long seriesId = parseId(target.substring(0, at));
+        LocalDate date = LocalDate.parse(target.substring(at + 1));
+        return new Command(line, "done", manager -> Outcome.result(line, "done",
+            manager.markOccurrenceDone(seriesId, date), seriesId, "task " + seriesId + " does not repeat on " + date));
+    }
+
+    private static Command parseExport(int line, List<String> args, Map<String, String> options) {
+        Path file = Path.of(single("export", args, Map.of(), Set.of()));
+        TaskTextFormat format = TaskTextFormat.forFile(file);
+        if (format == null) {
+            throw new IllegalArgumentException("export needs a .csv or .ndjson file: " + file);
+        }
+        TaskQuery query = options.isEmpty() ? null : parseQuery(options);
+        return new Command(line, "export", manager -> {
+            // The tasks are copied under the lock; the file is written after the batch
+            List<Task> tasks = manager.copyOf(query == null ? manager.getTasks() : manager.query(query));
+            return new Outcome(false, out -> {
+                try {
+                    TaskBulkReport report = new TaskExporter(format).export(tasks, file);
+                    out.exported(line, report.getWritten(), file);
+                } catch (IOException e) {
+                    out.result(line, "export", false, 0, "export failed: " + e.getMessage());
+                }
+            });
+        });
+    }
+
+    private static TaskQuery parseQuery(Map<String, String> options) {
+        checkOptions("query", options, QUERY_OPTIONS);
+        TaskQuery query = TaskQuery.all();
+        if (options.containsKey("keyword")) {
+            query = query.withKeyword(options.get("keyword"));
+        }
+        if (options.containsKey("done")) {
+            query = query.withDone(parseBoolean(options.get("done")));
+        }
+        if (options.containsKey("priority")) {
+            query = query.withPriority(parsePriority(options.get("priority")));
+        }
+        String from = options.get("from");
+        String to = options.get("to");
+        if (from != null || to != null) {
+            query = query.withDueBetween(from == null ? null : LocalDate.parse(from), to == null ? null : LocalDate.parse(to));
+        }
+        String sort = options.get("sort");
+        if (sort != null) {
+            String upper = sort.toUpperCase(Locale.ROOT);
+            try {
+                query = query.sortedBy(upper.equals("LIST") ? TaskQuery.Sort.LIST_ORDER : TaskQuery.Sort.valueOf(upper));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("bad sort (expected list, due_date, priority or title): " + sort);
+            }
+        }
+        if (options.containsKey("limit")) {
+            query = query.limitedTo(parseNumber("limit", options.get("limit")));
+        }
+        return query;
+    }
+
+    // The one positional argument of a command without options
+    private static String single(String name, List<String> args, Map<String, String> options, Set<String> allowed) {
+        checkOptions(name, options, allowed);
+        if (args.size() != 1) {
+            throw new IllegalArgumentException(name + " takes exactly one argument");
+        }
+        return args.get(0);
+    }
+
+    private static void checkOptions(String name, Map<String, String> options, Set<String> allowed) {
+        for (String option : options.keySet()) {
+            if (!allowed.contains(option)) {
+                throw new IllegalArgumentException("unknown option for " + name + ": " + option);
+            }
+        }
+    }
+
+    private static long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad task ID: " + value);
+        }
+    }
+
+    private static int parseNumber(String name, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("bad " + name + ": " + value);
+    }
+
+    private static Priority parsePriority(String value) {
+        try {
+            return Priority.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("bad priority (expected LOW, MEDIUM or HIGH): " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "done" -> true;
+            case "false", "no", "undone", "pending" -> false;
+            default -> throw new IllegalArgumentException("bad done (expected true or false): " + value);
+        };
+    }
+
+    // --- Running ---
+
+    /**
+     * Runs every parsed command in one TaskManager batch, then writes the results to out,
+     * which is flushed but not closed; returns the number of commands that failed. After
+     * a rollback (see setStopOnError) only the failed command and the rollback are written.
+     */
+    public int run(TaskManager manager, Writer out) throws IOException {
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("The script has " + errors.size() + " parse errors");
+        }
+        List<Outcome> outcomes = new ArrayList<>(commands.size());
+        boolean rolledBack = false;
+        if (stopOnError) {
+            try {
+                manager.inAtomicBatch(() -> runAll(manager, outcomes));
+            } catch (ScriptFailed e) {
+                rolledBack = true;
+            }
+        } else {
+            manager.inBatch(() -> runAll(manager, outcomes));
+        }
+
+        Printer printer = new Printer(out, output);
+        if (rolledBack) {
+            outcomes.get(outcomes.size() - 1).report.write(printer);
+            printer.rolledBack(commands.get(outcomes.size() - 1).line, outcomes.size() - 1);
+        } else {
+            for (Outcome outcome : outcomes) {
+                outcome.report.write(printer);
+            }
+        }
+        out.flush();
+        return printer.failed;
+    }
+
+    // Runs the commands in order under the batch's lock, collecting what each one did
+    private Void runAll(TaskManager manager, List<Outcome> outcomes) {
+        for (Command command : commands) {
+            Outcome outcome;
+            try {
+                outcome = command.action.run(manager);
+            } catch (RuntimeException e) {
+                // Reported like any other failure; without stopOnError the script carries on
+                outcome = Outcome.result(command.line, command.name, false, 0, String.valueOf(e.getMessage()));
+            }
+            outcomes.add(outcome);
+            if (outcome.failed && stopOnError) {
+                throw new ScriptFailed();
+            }
+        }
+        return null;
+    }
+
+    // Thrown out of an atomic batch to roll it back; the failure itself is in the outcomes
+    private static final class ScriptFailed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ScriptFailed() {
+            super(null, null, false, false);
+        }
+    }
+
+    // One word of a script line; nameEnd is where the option name of an unquoted name= ends, or -1
+    static final class Token {
+        final String text;
+        final int nameEnd;
+
+        Token(String text, int nameEnd) {
+            this.text = text;
+            this.nameEnd = nameEnd;
+        }
+    }
+
+    // A parsed line, ready to run
+    private static final class Command {
+        final int line;
+        final String name;
+        final Action action;
+
+        Command(int line, String name, Action action) {
+            this.line = line;
+            this.name = name;
+            this.action = action;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        Outcome run(TaskManager manager);
+    }
+
+    // What a command did: whether it failed, and how to report it once the lock is released
+    private static final class Outcome {
+        final boolean failed;
+        final Report report;
+
+        Outcome(boolean failed, Report report) {
+            this.failed = failed;
+            this.report = report;
+        }
+
+        static Outcome result(int line, String command, boolean ok, long id, String error) {
+            return new Outcome(!ok, out -> out.result(line, command, ok, id, error));
+        }
+
+        static Outcome tasks(int line, String command, List<Task> tasks) {
+            return new Outcome(false, out -> out.tasks(line, command, tasks));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Report {
+        void write(Printer out) throws IOException;
+    }
+
+    // Writes results in the chosen form; counts failed commands
+    private static final class Printer {
+        private final Writer out;
+        private final Output output;
+        int failed;
+
+        Printer(Writer out, Output output) {
+            this.out = out;
+            this.output = output;
+        }
+
+        void result(int line, String command, boolean ok, long id, String error) throws IOException {
+            if (!ok) {
+                failed++;
+            }
+            if (output == Output.TEXT) {
+                out.write(ok ? pastTense(command) + " " + id : "error at line " + line + ": " + error);
+                out.write('\n');
+                return;
+            }
+            JsonWriter json = start(line, command, ok);
+            if (ok) {
+                json.name("id").value(id);
+            } else {
+                json.name("error").value(error);
+            }
+            end(json);
+        }
+
+        // undone is how many commands ran before the failed one; none of their changes were kept
+        void rolledBack(int line, int undone) throws IOException {
+            if (output == Output.TEXT) {
+                out.write("rolled back " + undone + (undone == 1 ? " command" : " commands")
+                    + " after the error at line " + line + "; nothing was changed\n");
+                return;
+            }
+            JsonWriter json = start(line, "rollback", true);
+            json.name("count").value(undone);
+            end(json);
+        }
+
+        void tasks(int line, String command, List<Task> tasks) throws IOException {
+            for (Task task : tasks) {
+                if (output == Output.TEXT) {
+                    out.write(task.getId() != 0 ? Long.toString(task.getId()) : task.getSeriesId() + "@" + task.getOccurrenceDate());
+                    out.write(". ");
+                    out.write(task.toString());
+                } else {
+                    JsonWriter json = new JsonWriter(out);
+                    json.setSerializeNulls(false);
+                    ADAPTER.write(json, task);
+                }
+                out.write('\n');
+            }
+            if (output == Output.TEXT) {
+                out.write(tasks.size() + (tasks.size() == 1 ? " matching task\n" : " matching tasks\n"));
+                return;
+            }
+            JsonWriter json = start(line, command, true);
+            json.name("count").value(tasks.size());
+            end(json);
+        }
+
+        void exported(int line, long written, Path file) throws IOException {
+            if (output == Output.TEXT) {
+                out.write("exported " + written + " to " + file + "\n");
+                return;
+            }
+            JsonWriter json = start(line, "export", true);
+            json.name("count").value(written);
+            json.name("file").value(file.toString());
+            end(json);
+        }
+
+        private static String pastTense(String command) {
+            return switch (command) {
+                case "add" -> "added";
+                case "delete" -> "deleted";
+                default -> command;
+            };
+        }
+
+        private JsonWriter start(int line, String command, boolean ok) throws IOException {
+            // JsonWriter writes straight through without a buffer of its own, so one per record
+            // is cheap, and it is never flushed: that would flush out after every record
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            json.name("line").value(line);
+            json.name("command").value(command);
+            json.name("ok").value(ok);
+            return json;
+        }
+
+        private void end(JsonWriter json) throws IOException {
+            json.endObject();
+            out.write('\n');
+        }
+    }
+}
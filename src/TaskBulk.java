@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Command-line bulk import and export of CSV or NDJSON files, chosen by extension
+ * (.csv, .ndjson or .jsonl).
+ *
+ * Usage: java TaskBulk import <file> <target> [--threads N] [--batch N] [--keep-ids]
+ *        java TaskBulk export <source> <file>
+ *
+ * A target or source is "db" for tasks.db (or -Dtaskmanager.db), "json:<path>" for a
+ * JSON array file or "snapshot:<path>" for a binary snapshot; exports can also read any
+ * task file TaskManager loads. Rejected rows are printed to stderr and do not stop the
+ * run; the summary shows rows/sec.
+ */
+public class TaskBulk {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            usage();
+            return;
+        }
+        switch (args[0]) {
+            case "import" -> runImport(args);
+            case "export" -> runExport(args[1], Path.of(args[2]));
+            default -> usage();
+        }
+    }
+
+    private static void runImport(String[] args) throws IOException {
+        Path source = Path.of(args[1]);
+        TaskImporter importer = new TaskImporter(formatOf(source));
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> importer.setParserThreads(Integer.parseInt(args[++i]));
+                case "--batch" -> importer.setBatchSize(Integer.parseInt(args[++i]));
+                case "--keep-ids" -> importer.setKeepIds(true);
+                default -> {
+                    usage();
+                    return;
+                }
+            }
+        }
+        importer.setErrorListener(error -> System.err.println("⚠️ " + error));
+
+        String target = args[2];
+        TaskImporter.Sink sink;
+        if (target.equals("db")) {
+            sink = TaskImporter.toDatabase(new DatabaseHelper());
+        } else if (target.startsWith("json:")) {
+            sink = TaskImporter.toJson(Path.of(target.substring(5)), false);
+        } else if (target.startsWith("snapshot:")) {
+            sink = TaskImporter.toSnapshot(Path.of(target.substring(9)));
+        } else {
+            usage();
+            return;
+        }
+        System.out.println("Imported " + importer.run(source, sink));
+    }
+
+    private static void runExport(String source, Path target) throws IOException {
+        TaskExporter exporter = new TaskExporter(formatOf(target));
+        TaskBulkReport report;
+        if (source.equals("db")) {
+            report = exporter.exportDatabase(new DatabaseHelper(), target);
+        } else {
+            TaskManager manager = new TaskManager();
+            String file = source.startsWith("json:") ? source.substring(5)
+                : source.startsWith("snapshot:") ? source.substring(9) : source;
+            manager.loadFromFile(file);
+            report = exporter.export(manager.getTasks(), target);
+        }
+        System.out.println("Exported " + report);
+    }
+
+    private static TaskTextFormat formatOf(Path file) {
+        TaskTextFormat format = TaskTextFormat.forFile(file);
+        if (format == null) {
+            throw new IllegalArgumentException("Use a .csv, .ndjson or .jsonl file: " + file);
+        }
+        return format;
+    }
+
+    private static void usage() {
+        System.out.println("Usage: java TaskBulk import <file.csv|file.ndjson> <db|json:path|snapshot:path>"
+            + " [--threads N] [--batch N] [--keep-ids]");
+        System.out.println("       java TaskBulk export <db|json:path|snapshot:path> <file.csv|file.ndjson>");
+    }
+}
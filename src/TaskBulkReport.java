@@ -0,0 +1,99 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import or export: how many records were read and written, the
+ * rows that were rejected and the throughput. Only the first MAX_ERRORS_KEPT errors
+ * are kept; getErrorCount() counts all of them.
+ */
+public final class TaskBulkReport {
+
+    public static final int MAX_ERRORS_KEPT = 100;
+
+    /** A record that could not be imported, by the line it starts on (1-based). */
+    public static final class RowError {
+        private final long line;
+        private final String message;
+
+        RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+
+    private long rows;
+    private long written;
+    private long errorCount;
+    private final List<RowError> errors = new ArrayList<>();
+    private long elapsedNanos;
+    private boolean cancelled;
+
+    void addRows(long count) {
+        rows += count;
+    }
+
+    void addWritten(long count) {
+        written += count;
+    }
+
+    void addError(RowError error) {
+        errorCount++;
+        if (errors.size() < MAX_ERRORS_KEPT) {
+            errors.add(error);
+        }
+    }
+
+    void finish(long startedNanos, boolean cancelled) {
+        this.elapsedNanos = System.nanoTime() - startedNanos;
+        this.cancelled = cancelled;
+    }
+
+    /** Records read from the source, good or bad. */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows, %d written, %d errors in %.2f s (%,.0f rows/sec)%s",
+            rows, written, errorCount, elapsedNanos / 1e9, getRowsPerSecond(), cancelled ? ", cancelled" : "");
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * The owner of a task: its setters hand every change here instead of writing the field,
+ * so the owner can write it under its own lock and update the indexes over that field.
+ */
+public interface TaskChangeListener {
+    /** Writes value into the task's field through Task.put and reacts to the change, if any. */
+    void changeTask(Task task, TaskField field, Object value);
+}
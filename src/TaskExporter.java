@@ -0,0 +1,90 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.function.Consumer;
+
+/**
+ * Writes tasks as CSV or NDJSON through one buffered writer, to a temporary file that is
+ * moved into place once complete. Exporting the database streams rows straight from the
+ * query to the file, so the table never has to fit in memory.
+ */
+public class TaskExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TaskTextFormat format;
+
+    public TaskExporter(TaskTextFormat format) {
+        this.format = format;
+    }
+
+    public TaskBulkReport export(Iterable<Task> tasks, Path target) throws IOException {
+        return write(target, out -> {
+            for (Task task : tasks) {
+                out.accept(task);
+            }
+            return true;
+        });
+    }
+
+    /** Streams every row of the tasks table to the file. */
+    public TaskBulkReport exportDatabase(DatabaseHelper db, Path target) throws IOException {
+        return write(target, db::loadTasks);
+    }
+
+    // Produces the tasks into the sink; returns false if the source failed
+    @FunctionalInterface
+    private interface Source {
+        boolean produce(Consumer<Task> sink) throws IOException;
+    }
+
+    private TaskBulkReport write(Path target, Source source) throws IOException {
+        long startedNanos = System.nanoTime();
+        long started = TaskMetrics.start();
+        TaskBulkReport report = new TaskBulkReport();
+        Path tmp = TaskImporter.tempFileFor(target);
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                if (format.header() != null) {
+                    out.write(format.header());
+                    out.write('\n');
+                }
+                boolean complete;
+                try {
+                    complete = source.produce(task -> {
+                        try {
+                            out.write(format.format(task));
+                            out.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        report.addRows(1);
+                        report.addWritten(1);
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                if (!complete) {
+                    throw new IOException("Reading the tasks to export failed");
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            report.finish(startedNanos, false);
+            TaskMetrics.stop(TaskMetrics.Op.EXPORT, started, report.getWritten(), target);
+            return report;
+        } catch (IOException | RuntimeException e) {
+            TaskMetrics.failed(TaskMetrics.Op.EXPORT, started);
+            throw e;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+public enum TaskField {
+    TITLE,
+    DESCRIPTION,
+    DONE,
+    DUE_DATE,
+    PRIORITY,
+    RECURRENCE
+}
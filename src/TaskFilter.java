@@ -0,0 +1,129 @@
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Immutable set of conditions on status, priority and due date, plus the order results
+ * come back in. Unset conditions match everything; a due-date range never matches tasks
+ * without a due date. DatabaseHelper turns a filter into an indexed WHERE clause.
+ */
+public final class TaskFilter {
+
+    /**
+     * Result order; ties are always broken by task id. DUE_DATE pages come straight off an
+     * index for every filter; ID order has to sort the matches once a status or priority
+     * is set.
+     */
+    public enum Order {
+        ID,
+        DUE_DATE
+    }
+
+    private static final TaskFilter ALL = new TaskFilter(null, null, null, null, Order.ID);
+
+    private final Boolean done;
+    private final Priority priority;
+    private final LocalDate dueFrom;
+    private final LocalDate dueTo;
+    private final Order order;
+
+    private TaskFilter(Boolean done, Priority priority, LocalDate dueFrom, LocalDate dueTo, Order order) {
+        this.done = done;
+        this.priority = priority;
+        this.dueFrom = dueFrom;
+        this.dueTo = dueTo;
+        this.order = Objects.requireNonNull(order);
+    }
+
+    public static TaskFilter all() {
+        return ALL;
+    }
+
+    /** Undone tasks due before today, earliest first. */
+    public static TaskFilter overdue(LocalDate today) {
+        return ALL.withDone(false).withDueBetween(null, today.minusDays(1)).withOrder(Order.DUE_DATE);
+    }
+
+    /** Only done or only undone tasks; null matches both. */
+    public TaskFilter withDone(Boolean done) {
+        return new TaskFilter(done, priority, dueFrom, dueTo, order);
+    }
+
+    public TaskFilter withPriority(Priority priority) {
+        return new TaskFilter(done, priority, dueFrom, dueTo, order);
+    }
+
+    /** Tasks due between the two dates, both inclusive; a null bound is open. */
+    public TaskFilter withDueBetween(LocalDate from, LocalDate to) {
+        return new TaskFilter(done, priority, from, to, order);
+    }
+
+    public TaskFilter withOrder(Order order) {
+        return new TaskFilter(done, priority, dueFrom, dueTo, order);
+    }
+
+    public Boolean getDone() {
+        return done;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public LocalDate getDueFrom() {
+        return dueFrom;
+    }
+
+    public LocalDate getDueTo() {
+        return dueTo;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public boolean hasDueRange() {
+        return dueFrom != null || dueTo != null;
+    }
+
+    public boolean matches(Task task) {
+        if (done != null && task.isDone() != done) {
+            return false;
+        }
+        if (priority != null && task.getPriority() != priority) {
+            return false;
+        }
+        if (hasDueRange()) {
+            LocalDate due = task.getDueDate();
+            if (due == null
+                || (dueFrom != null && due.isBefore(dueFrom))
+                || (dueTo != null && due.isAfter(dueTo))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TaskFilter other)) {
+            return false;
+        }
+        return Objects.equals(done, other.done) && priority == other.priority
+            && Objects.equals(dueFrom, other.dueFrom) && Objects.equals(dueTo, other.dueTo)
+            && order == other.order;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(done, priority, dueFrom, dueTo, order);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskFilter[done=" + done + ", priority=" + priority + ", due=" + dueFrom + ".." + dueTo
+            + ", order=" + order + "]";
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Open-addressing hash map from task id to slot with primitive long keys, so an id
+ * lookup is a few array reads with no boxing. Ids are positive; 0 marks an empty entry.
+ * Linear probing with backward-shift deletion keeps lookups short without tombstones.
+ */
+public class TaskIdIndex {
+
+    private static final long EMPTY = 0;
+
+    private long[] keys = new long[16];
+    private int[] values = new int[16];
+    private int size;
+
+    /** Slot of the task with this id, or -1. */
+    public int get(long id) {
+        if (id == EMPTY) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        for (int i = indexOf(id, mask); ; i = (i + 1) & mask) {
+            long key = keys[i];
+            if (key == id) {
+                return values[i];
+            }
+            if (key == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    public boolean contains(long id) {
+        return get(id) >= 0;
+    }
+
+    public void put(long id, int slot) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Task ids must be positive: " + id);
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = indexOf(id, mask);
+        while (keys[i] != EMPTY && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = id;
+            size++;
+        }
+        values[i] = slot;
+    }
+
+    public void remove(long id) {
+        if (id == EMPTY) {
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = indexOf(id, mask);
+        while (keys[i] != id) {
+            if (keys[i] == EMPTY) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        // Shift later entries of the probe run back so no lookup stops early at the hole
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = indexOf(keys[j], mask);
+            // Move j into the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? hole < home && home <= j : hole < home || home <= j;
+            if (!stays) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    public void clear() {
+        keys = new long[16];
+        values = new int[16];
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int indexOf(long id, int mask) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
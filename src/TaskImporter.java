@@ -0,0 +1,382 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Imports a CSV or NDJSON file as a three-stage pipeline:
+ *
+ *   reader   one thread splits the file into chunks of CHUNK_RECORDS records
+ *   parsers  a pool parses and validates chunks in parallel
+ *   writer   the calling thread takes the parsed chunks in file order and hands the
+ *            tasks to a Sink in batches of batchSize
+ *
+ * Chunks travel through a bounded queue of futures, so the reader stalls once the writer
+ * falls behind and memory stays at a few chunks however large the file is. A bad record
+ * is reported as a RowError and skipped; a batch the sink rejects is reported the same
+ * way. Neither stops the run. A quoted field that is still open after MAX_RECORD_LINES
+ * lines or MAX_RECORD_CHARS characters, or at the end of the file, is taken to be a stray
+ * quote: its first line is reported and reading resumes with the line after it.
+ */
+public class TaskImporter {
+
+    private static final int CHUNK_RECORDS = 1000;
+    private static final int DEFAULT_BATCH_SIZE = 10_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RECORD_LINES = 1000;
+    private static final int MAX_RECORD_CHARS = 1 << 20;
+
+    /** Receives the imported tasks, batch by batch, on the thread that called run(). */
+    public interface Sink {
+        void write(List<Task> batch) throws IOException;
+
+        /** Called once after the last batch of a run that was not cancelled. */
+        default void finish() throws IOException {
+        }
+
+        /** Called instead of finish() when the run is cancelled or fails. */
+        default void abandon() {
+        }
+    }
+
+    // Raw records with the line each one starts on
+    private static final class Chunk {
+        final List<String> records;
+        final long[] lines;
+
+        Chunk(List<String> records, long[] lines) {
+            this.records = records;
+            this.lines = lines;
+        }
+    }
+
+    // The tasks and errors parsed from one chunk
+    private static final class Parsed {
+        final List<Task> tasks;
+        final long firstLine;
+        final List<TaskBulkReport.RowError> errors;
+        final int records;
+
+        Parsed(List<Task> tasks, long firstLine, List<TaskBulkReport.RowError> errors, int records) {
+            this.tasks = tasks;
+            this.firstLine = firstLine;
+            this.errors = errors;
+            this.records = records;
+        }
+    }
+
+    private static final Parsed END = new Parsed(List.of(), 0, List.of(), 0);
+
+    private final TaskTextFormat format;
+    private int parserThreads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean keepIds;
+    private Consumer<TaskBulkReport.RowError> errorListener = error -> {
+    };
+    private TaskLoadListener listener = TaskLoadListener.NONE;
+
+    public TaskImporter(TaskTextFormat format) {
+        this.format = format;
+    }
+
+    public void setParserThreads(int parserThreads) {
+        this.parserThreads = Math.max(1, parserThreads);
+    }
+
+    /** Tasks handed to the sink per call; each database batch is one transaction. */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Keep the ids found in the file; by default imported tasks get fresh ones, and stored
+     * occurrences of recurring tasks become ordinary tasks.
+     */
+    public void setKeepIds(boolean keepIds) {
+        this.keepIds = keepIds;
+    }
+
+    /** Called on the writer thread for every rejected record, in file order. */
+    public void setErrorListener(Consumer<TaskBulkReport.RowError> errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    /** Progress is reported after every chunk with an unknown total; cancelling stops the run. */
+    public void setListener(TaskLoadListener listener) {
+        this.listener = listener;
+    }
+
+    public TaskBulkReport run(Path source, Sink sink) throws IOException {
+        long startedNanos = System.nanoTime();
+        long started = TaskMetrics.start();
+        TaskBulkReport report = new TaskBulkReport();
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, r -> {
+            Thread thread = new Thread(r, "import-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        BlockingQueue<Future<Parsed>> queue = new ArrayBlockingQueue<>(2 * parserThreads);
+        IOException[] readFailure = new IOException[1];
+        Thread reader = new Thread(() -> readChunks(source, parsers, queue, readFailure), "import-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        boolean finished = false;
+        try {
+            List<Task> batch = new ArrayList<>(batchSize);
+            long batchLine = 0;
+            while (true) {
+                Parsed parsed = queue.take().get();
+                if (parsed == END) {
+                    break;
+                }
+                report.addRows(parsed.records);
+                for (TaskBulkReport.RowError error : parsed.errors) {
+                    report.addError(error);
+                    errorListener.accept(error);
+                }
+                if (batch.isEmpty()) {
+                    batchLine = parsed.firstLine;
+                }
+                batch.addAll(parsed.tasks);
+                if (batch.size() >= batchSize) {
+                    writeBatch(sink, batch, batchLine, report);
+                }
+                listener.progress(report.getRows(), -1);
+                if (listener.isCancelled() || Thread.currentThread().isInterrupted()) {
+                    report.finish(startedNanos, true);
+                    return report;
+                }
+            }
+            if (readFailure[0] != null) {
+                throw readFailure[0];
+            }
+            writeBatch(sink, batch, batchLine, report);
+            sink.finish();
+            finished = true;
+            report.finish(startedNanos, false);
+            TaskMetrics.stop(TaskMetrics.Op.IMPORT, started, report.getWritten(), source);
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.finish(startedNanos, true);
+            return report;
+        } catch (ExecutionException e) {
+            throw new IOException("Import parser failed", e.getCause());
+        } finally {
+            reader.interrupt();
+            parsers.shutdownNow();
+            if (!finished) {
+                sink.abandon();
+                TaskMetrics.failed(TaskMetrics.Op.IMPORT, started);
+            }
+        }
+    }
+
+    private void writeBatch(Sink sink, List<Task> batch, long firstLine, TaskBulkReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            sink.write(batch);
+            report.addWritten(batch.size());
+        } catch (IOException | RuntimeException e) {
+            TaskBulkReport.RowError error = new TaskBulkReport.RowError(firstLine,
+                "batch of " + batch.size() + " tasks from here on was not written: " + e.getMessage());
+            report.addError(error);
+            errorListener.accept(error);
+        }
+        batch.clear();
+    }
+
+    // --- Reader stage ---
+    private void readChunks(Path source, ExecutorService parsers, BlockingQueue<Future<Parsed>> queue,
+                            IOException[] failure) {
+        try {
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+                 Reader raw = Channels.newReader(channel, StandardCharsets.UTF_8);
+                 BufferedReader in = new BufferedReader(raw, BUFFER_SIZE)) {
+
+                TaskTextFormat.RecordParser parser = null;
+                List<String> records = new ArrayList<>(CHUNK_RECORDS);
+                long[] lines = new long[CHUNK_RECORDS];
+                long lineNumber = 0;
+                // Lines after a stray quote, read again once its first line has been reported
+                Deque<String> replay = new ArrayDeque<>();
+                String line;
+                while ((line = replay.isEmpty() ? in.readLine() : replay.poll()) != null) {
+                    lineNumber++;
+                    if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                        line = line.substring(1);
+                    }
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    long recordLine = lineNumber;
+                    String record = line;
+                    boolean inQuotes = format.endsInQuotes(line, false);
+                    if (inQuotes) {
+                        StringBuilder text = new StringBuilder(line);
+                        List<String> continuation = new ArrayList<>();
+                        while (inQuotes && continuation.size() < MAX_RECORD_LINES && text.length() < MAX_RECORD_CHARS
+                                && (line = replay.isEmpty() ? in.readLine() : replay.poll()) != null) {
+                            continuation.add(line);
+                            text.append('\n').append(line);
+                            inQuotes = format.endsInQuotes(line, inQuotes);
+                        }
+                        if (inQuotes) {
+                            // Left incomplete, so the parser reports it as unterminated
+                            for (int i = continuation.size() - 1; i >= 0; i--) {
+                                replay.push(continuation.get(i));
+                            }
+                        } else {
+                            lineNumber += continuation.size();
+                            record = text.toString();
+                        }
+                    }
+                    if (parser == null) {
+                        boolean header = format.isHeader(record);
+                        parser = format.parser(header ? record : null);
+                        if (header) {
+                            continue;
+                        }
+                    }
+                    lines[records.size()] = recordLine;
+                    records.add(record);
+                    if (records.size() == CHUNK_RECORDS) {
+                        submit(parsers, queue, parser, new Chunk(records, lines));
+                        records = new ArrayList<>(CHUNK_RECORDS);
+                        lines = new long[CHUNK_RECORDS];
+                    }
+                }
+                if (!records.isEmpty()) {
+                    submit(parsers, queue, parser, new Chunk(records, lines));
+                }
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+            queue.put(CompletableFuture.completedFuture(END));
+        } catch (InterruptedException e) {
+            // The writer stopped early; nobody is waiting for the rest
+        }
+    }
+
+    private void submit(ExecutorService parsers, BlockingQueue<Future<Parsed>> queue,
+                        TaskTextFormat.RecordParser parser, Chunk chunk) throws InterruptedException {
+        queue.put(parsers.submit(() -> parse(parser, chunk)));
+    }
+
+    // --- Parser stage ---
+    private Parsed parse(TaskTextFormat.RecordParser parser, Chunk chunk) {
+        List<Task> tasks = new ArrayList<>(chunk.records.size());
+        List<TaskBulkReport.RowError> errors = new ArrayList<>();
+        for (int i = 0; i < chunk.records.size(); i++) {
+            String record = chunk.records.get(i);
+            try {
+                if (format.isIncomplete(record)) {
+                    throw new IllegalArgumentException("unterminated quoted field");
+                }
+                Task task = parser.parse(record);
+                if (!keepIds) {
+                    task.setId(0);
+                    // Its series gets a fresh id too, so the link would point at another task
+                    task.setOccurrenceOf(0, null);
+                }
+                tasks.add(task);
+            } catch (RuntimeException e) {
+                errors.add(new TaskBulkReport.RowError(chunk.lines[i], e.getMessage()));
+            }
+        }
+        return new Parsed(tasks, chunk.lines[0], errors, chunk.records.size());
+    }
+
+    // --- Sinks ---
+
+    /** Inserts every batch in its own transaction; the tasks receive their row ids. */
+    public static Sink toDatabase(DatabaseHelper db) {
+        return batch -> {
+            if (!db.insertTasks(batch)) {
+                throw new IOException("database transaction failed");
+            }
+        };
+    }
+
+    /** Adds every batch to the manager under one lock acquisition. */
+    public static Sink toManager(TaskManager manager) {
+        return manager::addTasks;
+    }
+
+    /** Streams the tasks into a JSON array file, moved into place only once complete. */
+    public static Sink toJson(Path target, boolean compact) throws IOException {
+        Path tmp = tempFileFor(target);
+        TaskJsonCodec.ArrayWriter out = new TaskJsonCodec(compact).openArray(tmp);
+        return new Sink() {
+            @Override
+            public void write(List<Task> batch) throws IOException {
+                for (Task task : batch) {
+                    out.write(task);
+                }
+            }
+
+            @Override
+            public void finish() throws IOException {
+                out.finish();
+                out.close();
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            @Override
+            public void abandon() {
+                discard(out, tmp);
+            }
+        };
+    }
+
+    /** Writes a binary snapshot; the format needs the full count up front, so tasks are held until finish(). */
+    public static Sink toSnapshot(Path target) {
+        List<Task> all = new ArrayList<>();
+        return new Sink() {
+            @Override
+            public void write(List<Task> batch) {
+                all.addAll(batch);
+            }
+
+            @Override
+            public void finish() throws IOException {
+                Path tmp = tempFileFor(target);
+                try {
+                    TaskSnapshot.write(tmp, all);
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        };
+    }
+
+    static Path tempFileFor(Path target) throws IOException {
+        return Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+    }
+
+    static void discard(AutoCloseable out, Path tmp) {
+        try {
+            out.close();
+        } catch (Exception e) {
+            // The file is deleted below anyway
+        }
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not delete " + tmp + ": " + e.getMessage());
+        }
+    }
+}
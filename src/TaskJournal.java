@@ -0,0 +1,401 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of TaskManager mutations, stored next to the task
+ * snapshot file as compact binary records. Records are buffered and written with group
+ * commit: one fsync per batch, at most every COMMIT_INTERVAL_MS. Once the journal grows
+ * past COMPACT_THRESHOLD_BYTES it is folded into a fresh snapshot and truncated.
+ *
+ * Each record is framed as [int length][int crc32][payload]; replay stops at the first
+ * torn or corrupt record and truncates the file there. Records address tasks by id;
+ * journals written before ids were stable address them by list position, which replay
+ * still translates through the target. Records logged between beginBatch and endBatch are
+ * nested in a single record, so replay applies a batch completely or not at all.
+ */
+public class TaskJournal implements Closeable {
+
+    private static final long COMMIT_INTERVAL_MS = 20;
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final long COMPACT_THRESHOLD_BYTES = 4L * 1024 * 1024;
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_EDIT = 3;
+    private static final byte OP_DELETE_BY_ID = 4;
+    private static final byte OP_EDIT_BY_ID = 5;
+    private static final byte OP_ADD_RECURRING = 6;
+    private static final byte OP_BATCH = 7;
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    /** Writes a complete snapshot of the current tasks to the given file and fsyncs it. */
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        void write(Path target) throws IOException;
+    }
+
+    /** Receives replayed operations in the order they were journaled. */
+    public interface ReplayTarget {
+        void replayAdd(Task task);
+
+        void replayDelete(long id);
+
+        void replayEdit(long id, TaskField field, Object value);
+
+        /** Id of the task at a list position, for records written before ids were stable. */
+        long idAt(int position);
+    }
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final Path snapshotTmpPath;
+    private final Path obsoleteJournalPath;
+    private final SnapshotWriter snapshotWriter;
+
+    private FileChannel channel;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(BATCH_BYTES);
+    private final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream payload = new DataOutputStream(payloadBytes);
+    private final CRC32 crc = new CRC32();
+    private long journalSize;
+
+    // Framed records of the open batch; null when there is none
+    private ByteArrayOutputStream batch;
+
+    private final ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "journal-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TaskJournal(Path snapshotPath, SnapshotWriter snapshotWriter) {
+        this.snapshotPath = snapshotPath;
+        this.journalPath = Path.of(snapshotPath + ".journal");
+        this.snapshotTmpPath = Path.of(snapshotPath + ".snapshot.tmp");
+        this.obsoleteJournalPath = Path.of(snapshotPath + ".journal.old");
+        this.snapshotWriter = snapshotWriter;
+    }
+
+    public Path getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * Finishes or rolls back a compaction interrupted by a crash. Must run before the
+     * snapshot file is loaded.
+     */
+    public void recover() throws IOException {
+        if (Files.exists(obsoleteJournalPath)) {
+            // The new snapshot was fully written before the old journal was retired
+            if (Files.exists(snapshotTmpPath)) {
+                Files.move(snapshotTmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.delete(obsoleteJournalPath);
+        } else {
+            Files.deleteIfExists(snapshotTmpPath);
+        }
+    }
+
+    /** Replays the journal into the target, then opens it for appending. */
+    public synchronized void open(ReplayTarget target) throws IOException {
+        long validBytes = replay(target);
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validBytes);
+        channel.position(validBytes);
+        journalSize = validBytes;
+        committer.scheduleWithFixedDelay(this::commitQuietly, COMMIT_INTERVAL_MS, COMMIT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private long replay(ReplayTarget target) throws IOException {
+        if (!Files.exists(journalPath)) {
+            return 0;
+        }
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath), BATCH_BYTES))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] body;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length <= 0 || length > 64 * 1024 * 1024) {
+                        break;
+                    }
+                    body = in.readNBytes(length);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (body.length < length) {
+                    break;
+                }
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    System.err.println("⚠️ Journal record at offset " + valid + " is corrupt; ignoring the rest.");
+                    break;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(body)), target);
+                valid += 8 + length;
+            }
+        }
+        return valid;
+    }
+
+    private void apply(DataInputStream in, ReplayTarget target) throws IOException {
+        byte op = in.readByte();
+        switch (op) {
+            case OP_ADD, OP_ADD_RECURRING -> {
+                long id = in.readLong();
+                String title = readString(in);
+                String description = readString(in);
+                LocalDate dueDate = readDate(in);
+                Priority priority = readPriority(in);
+                boolean isDone = in.readBoolean();
+                Task task = new Task(title, description, dueDate, priority);
+                task.setDone(isDone);
+                task.setId(id);
+                if (op == OP_ADD_RECURRING) {
+                    task.setRecurrence(readRecurrence(in));
+                    task.setOccurrenceOf(in.readLong(), readDate(in));
+                }
+                target.replayAdd(task);
+            }
+            case OP_DELETE -> target.replayDelete(target.idAt(in.readInt()));
+            case OP_DELETE_BY_ID -> target.replayDelete(in.readLong());
+            case OP_EDIT, OP_EDIT_BY_ID -> {
+                long id = op == OP_EDIT ? target.idAt(in.readInt()) : in.readLong();
+                TaskField field = TaskField.values()[in.readByte()];
+                Object value = switch (field) {
+                    case TITLE, DESCRIPTION -> readString(in);
+                    case DONE -> in.readBoolean();
+                    case DUE_DATE -> readDate(in);
+                    case PRIORITY -> readPriority(in);
+                    case RECURRENCE -> readRecurrence(in);
+                };
+                target.replayEdit(id, field, value);
+            }
+            case OP_BATCH -> {
+                // Nested frames; this record's checksum already covers them
+                while (in.available() > 0) {
+                    int length = in.readInt();
+                    in.readInt();
+                    apply(new DataInputStream(new ByteArrayInputStream(in.readNBytes(length))), target);
+                }
+            }
+            default -> throw new IOException("Unknown journal operation: " + op);
+        }
+    }
+
+    // --- Appending ---
+    public synchronized void logAdd(Task task) {
+        try {
+            // Plain tasks keep the shorter record older journals hold
+            boolean recurring = task.isRecurring() || task.isOccurrence();
+            payload.writeByte(recurring ? OP_ADD_RECURRING : OP_ADD);
+            payload.writeLong(task.getId());
+            writeString(task.getTitle());
+            writeString(task.getDescription());
+            writeDate(task.getDueDate());
+            writePriority(task.getPriority());
+            payload.writeBoolean(task.isDone());
+            if (recurring) {
+                writeRecurrence(task.getRecurrence());
+                payload.writeLong(task.getSeriesId());
+                writeDate(task.getOccurrenceDate());
+            }
+            appendRecord();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void logDelete(long id) {
+        try {
+            payload.writeByte(OP_DELETE_BY_ID);
+            payload.writeLong(id);
+            appendRecord();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void logEdit(long id, TaskField field, Task task) {
+        try {
+            payload.writeByte(OP_EDIT_BY_ID);
+            payload.writeLong(id);
+            payload.writeByte(field.ordinal());
+            switch (field) {
+                case TITLE -> writeString(task.getTitle());
+                case DESCRIPTION -> writeString(task.getDescription());
+                case DONE -> payload.writeBoolean(task.isDone());
+                case DUE_DATE -> writeDate(task.getDueDate());
+                case PRIORITY -> writePriority(task.getPriority());
+                case RECURRENCE -> writeRecurrence(task.getRecurrence());
+            }
+            appendRecord();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void appendRecord() throws IOException {
+        payload.flush();
+        byte[] body = payloadBytes.toByteArray();
+        payloadBytes.reset();
+
+        crc.reset();
+        crc.update(body);
+        DataOutputStream frame = new DataOutputStream(batch != null ? batch : pending);
+        frame.writeInt(body.length);
+        frame.writeInt((int) crc.getValue());
+        frame.write(body);
+
+        if (batch == null && pending.size() >= BATCH_BYTES) {
+            commit();
+        }
+    }
+
+    /** Holds back the records logged from now on until endBatch. */
+    public synchronized void beginBatch() {
+        if (batch != null) {
+            throw new IllegalStateException("A journal batch is already open");
+        }
+        batch = new ByteArrayOutputStream(BATCH_BYTES);
+    }
+
+    /** Drops the records held back since beginBatch, as if they had never been logged. */
+    public synchronized void abortBatch() {
+        batch = null;
+    }
+
+    /** Appends the held-back records as one record and commits it. */
+    public synchronized void endBatch() throws IOException {
+        ByteArrayOutputStream records = batch;
+        batch = null;
+        if (records == null || records.size() == 0) {
+            return;
+        }
+        payload.writeByte(OP_BATCH);
+        records.writeTo(payload);
+        appendRecord();
+        commit();
+    }
+
+    /** Writes and fsyncs every buffered record; called by the committer and on close. */
+    public synchronized void commit() throws IOException {
+        if (pending.size() == 0 || channel == null) {
+            return;
+        }
+        long started = TaskMetrics.start();
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        journalSize += pending.size();
+        TaskMetrics.stop(TaskMetrics.Op.JOURNAL_COMMIT, started, 0, pending.size());
+        pending.reset();
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to commit task journal: " + e.getMessage());
+        }
+    }
+
+    /** Never true while a batch is open, since the snapshot would hold half of it. */
+    public synchronized boolean needsCompaction() {
+        return batch == null && journalSize + pending.size() >= COMPACT_THRESHOLD_BYTES;
+    }
+
+    /**
+     * Folds the journal into a new snapshot. The snapshot is written and fsynced to a
+     * temporary file, the old journal is renamed aside, the snapshot is moved into place
+     * and only then is the old journal deleted, so {@link #recover()} can always tell
+     * which state is complete.
+     */
+    public synchronized void compact() throws IOException {
+        long started = TaskMetrics.start();
+        commit();
+        snapshotWriter.write(snapshotTmpPath);
+
+        channel.close();
+        Files.move(journalPath, obsoleteJournalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(snapshotTmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(obsoleteJournalPath);
+
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        journalSize = 0;
+        TaskMetrics.stop(TaskMetrics.Op.JOURNAL_COMPACT, started, 0, snapshotPath);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        committer.shutdownNow();
+        if (channel != null) {
+            commit();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // --- Field encoding ---
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            payload.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        payload.writeInt(bytes.length);
+        payload.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private void writeDate(LocalDate date) throws IOException {
+        payload.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        long day = in.readLong();
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    private void writePriority(Priority priority) throws IOException {
+        payload.writeByte(priority == null ? -1 : priority.ordinal());
+    }
+
+    private static Priority readPriority(DataInputStream in) throws IOException {
+        byte ordinal = in.readByte();
+        return ordinal < 0 ? null : Priority.values()[ordinal];
+    }
+
+    // The rule's text form, which is short and already has a parser
+    private void writeRecurrence(Recurrence recurrence) throws IOException {
+        writeString(recurrence == null ? null : recurrence.toString());
+    }
+
+    private static Recurrence readRecurrence(DataInputStream in) throws IOException {
+        String text = readString(in);
+        return text == null ? null : Recurrence.parse(text);
+    }
+}
@@ -0,0 +1,128 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.function.Consumer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Streams a JSON array of tasks to and from disk one element at a time, so neither
+ * the whole document nor a JSON tree is ever held in memory.
+ */
+public class TaskJsonCodec {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TaskAdapter taskAdapter = new TaskAdapter();
+    private boolean compact;
+
+    public TaskJsonCodec(boolean compact) {
+        this.compact = compact;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    /** Reads the array in file order, handing each task to the consumer as soon as it is parsed. */
+    public void read(Path path, Consumer<Task> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             Reader reader = new BufferedReader(
+                 Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+             JsonReader in = new JsonReader(reader)) {
+
+            if (in.peek() == JsonToken.END_DOCUMENT) {
+                return;
+            }
+            in.beginArray();
+            while (in.hasNext()) {
+                Task task = taskAdapter.read(in);
+                if (task != null) {
+                    consumer.accept(task);
+                }
+            }
+            in.endArray();
+        }
+    }
+
+    /** Reads one task from a stream the caller is consuming, e.g. an HTTP request body. */
+    public Task read(JsonReader in) throws IOException {
+        return taskAdapter.read(in);
+    }
+
+    /** Writes one task into a document the caller is producing, e.g. an HTTP response. */
+    public void write(JsonWriter out, Task task) throws IOException {
+        taskAdapter.write(out, task);
+    }
+
+    /** Writes the tasks to a temporary file and moves it into place once complete. */
+    public void write(Path path, Iterable<Task> tasks) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            writeDurably(tmp, tasks);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Writes the tasks straight to the given file and forces them to disk before returning. */
+    public void writeDurably(Path path, Iterable<Task> tasks) throws IOException {
+        try (ArrayWriter out = openArray(path)) {
+            for (Task task : tasks) {
+                out.write(task);
+            }
+            out.finish();
+        }
+    }
+
+    /** Starts a JSON array in the given file, for writers that produce tasks incrementally. */
+    public ArrayWriter openArray(Path path) throws IOException {
+        return new ArrayWriter(path);
+    }
+
+    /**
+     * A JSON array being written one task at a time. finish() closes the array and forces
+     * the file to disk; closing without finishing leaves a truncated file behind.
+     */
+    public final class ArrayWriter implements Closeable {
+        private final FileChannel channel;
+        private final JsonWriter out;
+
+        private ArrayWriter(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+            out = new JsonWriter(writer);
+            out.setSerializeNulls(false);
+            if (!compact) {
+                out.setIndent("  ");
+            }
+            out.beginArray();
+        }
+
+        public void write(Task task) throws IOException {
+            taskAdapter.write(out, task);
+        }
+
+        public void finish() throws IOException {
+            out.endArray();
+            out.flush();
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+import java.util.List;
+
+/**
+ * Notified of each change to a TaskManager's list, with positions in list order, so a
+ * view can apply the change instead of reloading everything. Calls are made on the
+ * mutating thread while the manager's write lock is held, in the order the changes
+ * happened; listeners must be quick and UI code must hand the change to its own thread.
+ */
+public interface TaskListListener {
+
+    /** The whole list was replaced (load, or registration); tasks is an immutable copy. */
+    void tasksReplaced(List<Task> tasks);
+
+    void taskAdded(int position, Task task);
+
+    void taskRemoved(int position, Task task);
+
+    /** A field of the task at position changed. */
+    void taskUpdated(int position, Task task, TaskField field);
+}
@@ -0,0 +1,186 @@
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.paint.Color;
+
+/**
+ * FX-thread mirror of a TaskManager's list for MainApp's ListView. It applies the
+ * manager's add/remove/update changes one at a time instead of re-setting every item,
+ * and caches each task's display text, so marking one task done touches one row and
+ * one cell no matter how long the list is.
+ */
+public class TaskListModel implements TaskListListener {
+
+    private static final String CELL_STYLE = "-fx-font-weight: bold;";
+    private static final Map<Priority, Color> PRIORITY_FILL = new EnumMap<>(Priority.class);
+
+    static {
+        PRIORITY_FILL.put(Priority.HIGH, Color.RED);
+        PRIORITY_FILL.put(Priority.MEDIUM, Color.ORANGE);
+        PRIORITY_FILL.put(Priority.LOW, Color.GREEN);
+    }
+
+    private final ObservableList<Task> allTasks = FXCollections.observableArrayList();
+    private final ObservableList<Task> matches = FXCollections.observableArrayList();
+    private final ObservableList<Task> readOnlyMatches = FXCollections.unmodifiableObservableList(matches);
+    // Row of each task in matches, so edits and deletes find it without a scan
+    private final Map<Task, Integer> matchPositions = new IdentityHashMap<>();
+
+    // Changes in the order the manager fired them; only the FX thread applies them
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // Formatted cell text per task; cleared at midnight, when "(Overdue!)" may change
+    private final Map<Task, String> textCache = new IdentityHashMap<>();
+    private LocalDate cacheDay = LocalDate.now();
+    private long nextDayMillis = startOfNextDay(cacheDay);
+
+    private TaskListModel() {
+    }
+
+    /** A model that follows the manager's list from now on. */
+    public static TaskListModel create(TaskManager manager) {
+        TaskListModel model = new TaskListModel();
+        manager.addTaskListListener(model);
+        return model;
+    }
+
+    /** Every task, in list order. */
+    public ObservableList<Task> getAllTasks() {
+        return allTasks;
+    }
+
+    /** A filtered subset (search results); kept in step with edits and deletes. */
+    public ObservableList<Task> getMatches() {
+        return readOnlyMatches;
+    }
+
+    /** Replaces the search results; call on the FX thread. */
+    public void setMatches(List<Task> tasks) {
+        drain();
+        matches.setAll(tasks);
+        matchPositions.clear();
+        renumberMatches(0);
+    }
+
+    public ListCell<Task> createCell(ListView<Task> listView) {
+        return new TaskCell();
+    }
+
+    // --- TaskListListener (any thread) ---
+
+    @Override
+    public void tasksReplaced(List<Task> tasks) {
+        onFxThread(() -> {
+            textCache.clear();
+            matches.clear();
+            matchPositions.clear();
+            allTasks.setAll(tasks);
+        });
+    }
+
+    @Override
+    public void taskAdded(int position, Task task) {
+        onFxThread(() -> allTasks.add(position, task));
+    }
+
+    @Override
+    public void taskRemoved(int position, Task task) {
+        onFxThread(() -> {
+            textCache.remove(task);
+            if (position >= 0 && position < allTasks.size()) {
+                allTasks.remove(position);
+            }
+            Integer match = matchPositions.remove(task);
+            if (match != null) {
+                matches.remove(match.intValue());
+                renumberMatches(match);
+            }
+        });
+    }
+
+    @Override
+    public void taskUpdated(int position, Task task, TaskField field) {
+        onFxThread(() -> {
+            textCache.remove(task);
+            // Setting the same element fires a single replace, so only that row's cell updates
+            if (position >= 0 && position < allTasks.size()) {
+                allTasks.set(position, task);
+            }
+            Integer match = matchPositions.get(task);
+            if (match != null) {
+                matches.set(match, task);
+            }
+        });
+    }
+
+    // Every change goes through one queue, so a change fired on the FX thread never
+    // overtakes one still waiting in runLater
+    private void onFxThread(Runnable change) {
+        pending.add(change);
+        if (Platform.isFxApplicationThread()) {
+            drain();
+        } else if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        Runnable change;
+        while ((change = pending.poll()) != null) {
+            change.run();
+        }
+    }
+
+    private void renumberMatches(int from) {
+        for (int i = from; i < matches.size(); i++) {
+            matchPositions.put(matches.get(i), i);
+        }
+    }
+
+    // --- Cells ---
+
+    private String textOf(Task task) {
+        if (System.currentTimeMillis() >= nextDayMillis) {
+            textCache.clear();
+            cacheDay = LocalDate.now();
+            nextDayMillis = startOfNextDay(cacheDay);
+        }
+        return textCache.computeIfAbsent(task, t -> t.format(cacheDay));
+    }
+
+    private static long startOfNextDay(LocalDate day) {
+        return day.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private final class TaskCell extends ListCell<Task> {
+
+        TaskCell() {
+            setStyle(CELL_STYLE);
+        }
+
+        @Override
+        protected void updateItem(Task task, boolean empty) {
+            super.updateItem(task, empty);
+            if (empty || task == null) {
+                setText(null);
+            } else {
+                setText(textOf(task));
+                setTextFill(PRIORITY_FILL.getOrDefault(task.getPriority(), Color.GREEN));
+            }
+        }
+    }
+}
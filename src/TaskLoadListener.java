@@ -0,0 +1,26 @@
+import java.util.List;
+
+/**
+ * Follows a load that runs on a background thread. Every method is called on the
+ * loading thread; UI code must hand results over to its own thread.
+ */
+public interface TaskLoadListener {
+
+    int FIRST_PAGE_SIZE = 100;
+
+    TaskLoadListener NONE = new TaskLoadListener() {
+    };
+
+    /** The first FIRST_PAGE_SIZE tasks (or all of them, if fewer), as soon as they are decoded. */
+    default void firstPage(List<Task> page) {
+    }
+
+    /** Called periodically; total is -1 when the source size is not known up front. */
+    default void progress(long loaded, long total) {
+    }
+
+    /** Polled while loading; returning true abandons the load and keeps the current tasks. */
+    default boolean isCancelled() {
+        return false;
+    }
+}
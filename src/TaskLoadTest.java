@@ -0,0 +1,291 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Load generator for TaskServer: a number of clients, each on its own virtual thread with
+ * a kept-alive connection, send a mix of list, query, get, add, edit and delete requests
+ * for a fixed time and report requests/sec and p50/p99 latency per request type.
+ *
+ * Usage: java TaskLoadTest [--url http://localhost:8080] [--clients 32] [--seconds 20]
+ *                          [--warmup 5] [--writes 10]
+ *
+ * --writes is the percentage of requests that add, edit or delete. Warm-up requests are
+ * sent the same way but not counted. If the server has fewer than SEED_TASKS tasks, that
+ * many synthetic ones are added first.
+ */
+public class TaskLoadTest {
+
+    private static final int SEED_TASKS = 1000;
+    private static final int SAMPLE_TASKS = 10_000;
+
+    private enum Request {
+        LIST, QUERY, GET, ADD, EDIT, DELETE
+    }
+
+    private final URI base;
+    private final HttpClient client;
+    private final TaskJsonCodec codec = new TaskJsonCodec(true);
+
+    // Ids known to exist, for get, edit and delete; clients add and remove as they go
+    private final List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+    private final SyntheticTasks generator = new SyntheticTasks(7);
+    private final List<Task> samples = generator.generate(SAMPLE_TASKS);
+
+    private final Map<Request, LatencyHistogram> latency = new EnumMap<>(Request.class);
+    private final LatencyHistogram overall = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean recording;
+
+    public TaskLoadTest(URI base) {
+        this.base = base;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        for (Request request : Request.values()) {
+            latency.put(request, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:" + TaskServer.DEFAULT_PORT;
+        int clients = 32;
+        int seconds = 20;
+        int warmup = 5;
+        int writes = 10;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url" -> url = args[++i];
+                case "--clients" -> clients = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--writes" -> writes = Integer.parseInt(args[++i]);
+                default -> {
+                    System.out.println("Usage: java TaskLoadTest [--url http://localhost:8080] [--clients 32]"
+                        + " [--seconds 20] [--warmup 5] [--writes 10]");
+                    return;
+                }
+            }
+        }
+        TaskLoadTest test = new TaskLoadTest(URI.create(url));
+        test.prepare();
+        System.out.println("Warming up for " + warmup + " s with " + clients + " clients...");
+        test.run(clients, warmup, writes, false);
+        System.out.println("Measuring for " + seconds + " s...");
+        long elapsed = test.run(clients, seconds, writes, true);
+        System.out.print(test.report(elapsed));
+    }
+
+    /** Collects existing ids, seeding the server with synthetic tasks if it has too few. */
+    void prepare() throws IOException, InterruptedException {
+        for (Task task : page(0, 1000)) {
+            ids.add(task.getId());
+        }
+        for (int i = ids.size(); i < SEED_TASKS; i++) {
+            add();
+        }
+    }
+
+    /** Runs the clients for the given time; returns the elapsed nanoseconds. */
+    long run(int clients, int seconds, int writePercent, boolean record) throws InterruptedException {
+        recording = record;
+        errors.set(0);
+        long started = System.nanoTime();
+        long deadline = started + seconds * 1_000_000_000L;
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                threads.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        send(pick(writePercent));
+                    }
+                    return null;
+                });
+            }
+        }
+        return System.nanoTime() - started;
+    }
+
+    private Request pick(int writePercent) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(100) < writePercent) {
+            // Adds and deletes balance out, so the store stays about the same size
+            return switch (random.nextInt(3)) {
+                case 0 -> Request.ADD;
+                case 1 -> Request.EDIT;
+                default -> Request.DELETE;
+            };
+        }
+        return switch (random.nextInt(3)) {
+            case 0 -> Request.LIST;
+            case 1 -> Request.QUERY;
+            default -> Request.GET;
+        };
+    }
+
+    private void send(Request request) throws InterruptedException {
+        long started = System.nanoTime();
+        try {
+            boolean ok = switch (request) {
+                case LIST -> list();
+                case QUERY -> query();
+                case GET -> get();
+                case ADD -> add();
+                case EDIT -> edit();
+                case DELETE -> delete();
+            };
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        } catch (IOException e) {
+            errors.incrementAndGet();
+        }
+        if (recording) {
+            long nanos = System.nanoTime() - started;
+            latency.get(request).record(nanos);
+            overall.record(nanos);
+        }
+    }
+
+    // --- Requests ---
+    private boolean list() throws IOException, InterruptedException {
+        int offset = ThreadLocalRandom.current().nextInt(Math.max(1, ids.size() - 50));
+        return status(HttpRequest.newBuilder(base.resolve("/tasks?offset=" + offset + "&limit=50")).GET()) == 200;
+    }
+
+    private boolean query() throws IOException, InterruptedException {
+        LocalDate today = LocalDate.now();
+        String keyword = generator.word(ThreadLocalRandom.current().nextInt(100));
+        URI uri = base.resolve("/tasks?keyword=" + keyword + "&done=false&dueTo=" + today.plusDays(30)
+            + "&sort=due_date&limit=20");
+        return status(HttpRequest.newBuilder(uri).GET()) == 200;
+    }
+
+    private boolean get() throws IOException, InterruptedException {
+        Long id = anyId();
+        if (id == null) {
+            return false;
+        }
+        int status = status(HttpRequest.newBuilder(base.resolve("/tasks/" + id)).GET());
+        return status == 200 || status == 404;
+    }
+
+    private boolean add() throws IOException, InterruptedException {
+        Task task = samples.get(ThreadLocalRandom.current().nextInt(samples.size()));
+        StringWriter body = new StringWriter();
+        try (JsonWriter out = new JsonWriter(body)) {
+            codec.write(out, task);
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/tasks"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            return false;
+        }
+        try (JsonReader in = new JsonReader(new StringReader(response.body()))) {
+            ids.add(codec.read(in).getId());
+        }
+        return true;
+    }
+
+    private boolean edit() throws IOException, InterruptedException {
+        Long id = anyId();
+        if (id == null) {
+            return false;
+        }
+        String body = "{\"title\":\"edited " + System.nanoTime() + "\",\"isDone\":" + ThreadLocalRandom.current().nextBoolean() + "}";
+        int status = status(HttpRequest.newBuilder(base.resolve("/tasks/" + id))
+            .header("Content-Type", "application/json")
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(body)));
+        // Another client may have deleted it in the meantime
+        return status == 200 || status == 404;
+    }
+
+    private boolean delete() throws IOException, InterruptedException {
+        Long id = takeId();
+        if (id == null) {
+            return false;
+        }
+        int status = status(HttpRequest.newBuilder(base.resolve("/tasks/" + id)).DELETE());
+        return status == 204;
+    }
+
+    private List<Task> page(int offset, int limit) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+            base.resolve("/tasks?offset=" + offset + "&limit=" + limit)).GET().build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Listing tasks failed with status " + response.statusCode());
+        }
+        List<Task> tasks = new ArrayList<>();
+        try (JsonReader in = new JsonReader(new StringReader(response.body()))) {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("tasks")) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        tasks.add(codec.read(in));
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        return tasks;
+    }
+
+    // Discards the body but reads it, so the connection can be reused
+    private int status(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private Long anyId() {
+        synchronized (ids) {
+            return ids.isEmpty() ? null : ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+    }
+
+    private Long takeId() {
+        synchronized (ids) {
+            if (ids.isEmpty()) {
+                return null;
+            }
+            // Swap-remove keeps this O(1)
+            int index = ThreadLocalRandom.current().nextInt(ids.size());
+            Long id = ids.get(index);
+            ids.set(index, ids.get(ids.size() - 1));
+            ids.remove(ids.size() - 1);
+            return id;
+        }
+    }
+
+    // --- Report ---
+    String report(long elapsedNanos) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-8s %10s %10s %10s %10s%n", "request", "count", "p50 ms", "p99 ms", "max ms"));
+        for (Map.Entry<Request, LatencyHistogram> entry : latency.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.append(String.format("%-8s %10d %10.2f %10.2f %10.2f%n", entry.getKey(), histogram.getCount(),
+                histogram.percentile(50) / 1e6, histogram.percentile(99) / 1e6, histogram.getMaxNanos() / 1e6));
+        }
+        out.append(String.format("%-8s %10d %10.2f %10.2f %10.2f%n", "all", overall.getCount(),
+            overall.percentile(50) / 1e6, overall.percentile(99) / 1e6, overall.getMaxNanos() / 1e6));
+        out.append(String.format("%,.0f requests/sec, %d errors%n", overall.getCount() * 1e9 / elapsedNanos, errors.get()));
+        return out.toString();
+    }
+}
@@ -1,208 +1,1700 @@
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.time.LocalDate;
-import java.lang.reflect.Type;
-import java.sql.*;
-
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonSerializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonDeserializationContext;
-
-public class TaskManager {
-    private List<Task> tasks = new ArrayList<>();
-
-    // ✅ Custom Gson with LocalDate support
-    private final Gson gson = new GsonBuilder()
-        .registerTypeAdapter(LocalDate.class, (JsonDeserializer<LocalDate>) (json, typeOfT, context) -> LocalDate.parse(json.getAsString()))
-        .registerTypeAdapter(LocalDate.class, (JsonSerializer<LocalDate>) (src, typeOfSrc, context) -> new JsonPrimitive(src.toString()))
-        .setPrettyPrinting()
-        .create();
+import java.sql.SQLException;
+
+/**
+ * Thread-safe: mutations run under a write lock, including setters called on a task the
+ * manager holds, and index queries run under a read lock. getTasks() hands out an
+ * immutable list that is republished after each change, so rendering and persistence
+ * never hold a lock while they iterate. The tasks in that list are the live ones: each
+ * field read sees the latest value, but a task edited meanwhile may show one field from
+ * before the edit and another from after it; copyOf takes consistent copies.
+ */
+public class TaskManager implements TaskChangeListener {
+    // Once the indexes are built the tasks live in the slots; until then, right after a
+    // bulk load, they are only in this list
+    private List<Task> unindexedTasks = List.of();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Immutable copy of the list for lock-free readers; null once a write invalidates it
+    private volatile List<Task> snapshot = List.of();
+
+    // --- Secondary indexes, kept up to date on every mutation ---
+    private final TaskSlots slots = new TaskSlots();
+    private final TaskIdIndex ids = new TaskIdIndex();
+    private final KeywordIndex keywordIndex = new KeywordIndex();
+    private final StatusPriorityIndex statusPriorityIndex = new StatusPriorityIndex();
+    private final DueDateIndex dueDateIndex = new DueDateIndex();
+    private final RecurrenceIndex recurrenceIndex = new RecurrenceIndex();
+    private final TaskStatistics statistics = new TaskStatistics();
+
+    // After a bulk load the indexes are rebuilt on first use, so startup only pays for
+    // the tasks that are actually touched
+    private volatile boolean indexesStale;
+
+    // Next id handed to a task that has none; ids are never reused within a list
+    private long nextId = 1;
+
+    // Deleted slots are reclaimed once there are at least this many and more than live ones
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    // Rows removed since the last database save, and whether the table must be rewritten
+    // because the list was replaced from a file
+    private final List<Task> deletedTasks = new ArrayList<>();
+    private boolean replaceDatabaseOnSave = true;
+
+    // Serializes database saves; listGeneration changes whenever the whole list is replaced
+    private final ReentrantLock saveLock = new ReentrantLock();
+    private long listGeneration;
+
+    // Steps that undo the open atomic batch, oldest first; null outside one. Slots are not
+    // compacted while atomicBatch is set, so an undone delete finds its old slot free
+    private List<Runnable> undoLog;
+    private boolean atomicBatch;
+
+    // Write-ahead journal of mutations (CLI only); null when not in use
+    private TaskJournal journal;
+    private boolean replaying;
+
+    // ✅ Streaming JSON codec (pretty-printed unless compact mode is on)
+    private final TaskJsonCodec jsonCodec = new TaskJsonCodec(false);
+
+    // Save files as memory-mapped binary snapshots instead of JSON
+    private volatile boolean binarySnapshots;
+
+    // Views following the list change by change
+    private final List<TaskListListener> listListeners = new CopyOnWriteArrayList<>();
+
+    // Shard directory the list was loaded from or last saved to; null when not in use. Its
+    // cold shards are read, under shardLoadLock, by the first read that could need them
+    private volatile TaskShardStore shardStore;
+    private volatile boolean coldShardsPending;
+    private final ReentrantLock shardLoadLock = new ReentrantLock();
+    private static final Predicate<TaskShardStore.Shard> ALL_SHARDS = shard -> true;
+
+    // Queries with at least this many candidates are filtered and sorted on the fork-join pool
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 20_000;
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 
     public void addTask(String title, String description, LocalDate dueDate, Priority priority) {
-        tasks.add(new Task(title, description, dueDate, priority));
+        addTask(new Task(title, description, dueDate, priority));
     }
 
     public void addTask(Task task) {
-        tasks.add(task);
+        long started = TaskMetrics.start();
+        update(() -> {
+            indexTask(task);
+            fireAdded(slots.size() - 1, task);
+            if (isJournaling()) {
+                journal.logAdd(task);
+                compactJournalIfNeeded();
+            }
+        });
+        TaskMetrics.stop(TaskMetrics.Op.ADD, started);
+    }
+
+    /** Adds a whole batch under one lock acquisition, as bulk imports do. */
+    public void addTasks(List<Task> batch) {
+        long started = TaskMetrics.start();
+        update(() -> {
+            for (Task task : batch) {
+                indexTask(task);
+                fireAdded(slots.size() - 1, task);
+                if (isJournaling()) {
+                    journal.logAdd(task);
+                }
+            }
+            if (isJournaling()) {
+                compactJournalIfNeeded();
+            }
+        });
+        TaskMetrics.stop(TaskMetrics.Op.ADD, started, batch.size());
     }
 
     public void listTasks() {
-        if (tasks.isEmpty()) {
+        List<Task> current = getTasks();
+        if (current.isEmpty()) {
             System.out.println("No tasks available.");
             return;
         }
-        for (int i = 0; i < tasks.size(); i++) {
-            System.out.println((i + 1) + ". " + tasks.get(i));
+        for (Task task : current) {
+            printTask(task);
         }
     }
 
-    public void markTaskDone(int index) {
-        if (index >= 0 && index < tasks.size()) {
-            tasks.get(index).markDone();
-            System.out.println("Task marked as done.");
-        } else {
-            System.out.println("Invalid task number.");
+    /** The task with this id, or null. */
+    public Task getTask(long id) {
+        return read(shard -> shard.mayContain(id), () -> slots.get(ids.get(id)));
+    }
+
+    /** Returns false if no task has this id. */
+    public boolean markTaskDone(long id) {
+        ensureShards(shard -> shard.mayContain(id));
+        long started = TaskMetrics.start();
+        boolean marked = update(() -> {
+            Task task = slots.get(ids.get(id));
+            if (task != null) {
+                task.markDone();
+                return true;
+            }
+            return false;
+        });
+        TaskMetrics.stop(TaskMetrics.Op.MARK_DONE, started);
+        return marked;
+    }
+
+    /**
+     * Applies the changes to the task with this id as one atomic edit under the write lock,
+     * so queries and copyOf never see half of them; values have the types TaskJournal
+     * records. Returns the task, or null if there is none.
+     */
+    public Task editTask(long id, Map<TaskField, Object> changes) {
+        ensureShards(shard -> shard.mayContain(id));
+        long started = TaskMetrics.start();
+        Task edited = update(() -> {
+            Task task = slots.get(ids.get(id));
+            if (task != null) {
+                changes.forEach((field, value) -> applyEdit(task, field, value));
+            }
+            return task;
+        });
+        TaskMetrics.stop(TaskMetrics.Op.EDIT, started);
+        return edited;
+    }
+
+    private static void applyEdit(Task task, TaskField field, Object value) {
+        switch (field) {
+            case TITLE -> task.setTitle((String) value);
+            case DESCRIPTION -> task.setDescription((String) value);
+            case DONE -> task.setDone((Boolean) value);
+            case DUE_DATE -> task.setDueDate((LocalDate) value);
+            case PRIORITY -> task.setPriority((Priority) value);
+            case RECURRENCE -> task.setRecurrence((Recurrence) value);
         }
     }
 
-    public void deleteTask(int index) {
-        if (index >= 0 && index < tasks.size()) {
-            tasks.remove(index);
-            System.out.println("Task deleted.");
-        } else {
-            System.out.println("Invalid task number.");
+    public boolean deleteTask(long id) {
+        ensureShards(shard -> shard.mayContain(id));
+        long started = TaskMetrics.start();
+        boolean deleted = update(() -> {
+            Task task = slots.get(ids.get(id));
+            if (task != null) {
+                removeWithOccurrences(task);
+                return true;
+            }
+            return false;
+        });
+        TaskMetrics.stop(TaskMetrics.Op.DELETE, started);
+        return deleted;
+    }
+
+    public boolean deleteTask(Task task) {
+        long started = TaskMetrics.start();
+        boolean deleted = update(() -> {
+            if (isManaged(task)) {
+                removeWithOccurrences(task);
+                return true;
+            }
+            return false;
+        });
+        TaskMetrics.stop(TaskMetrics.Op.DELETE, started);
+        return deleted;
+    }
+
+    public boolean markTaskDone(Task task) {
+        // Through the manager, so a task from a fresh load is indexed and its views notified
+        long started = TaskMetrics.start();
+        boolean marked = update(() -> {
+            if (isManaged(task)) {
+                task.markDone();
+                return true;
+            }
+            return false;
+        });
+        TaskMetrics.stop(TaskMetrics.Op.MARK_DONE, started);
+        return marked;
+    }
+
+    // The very task stored under its id, not a copy carrying the same id
+    private boolean isManaged(Task task) {
+        return task.getListener() == this && slots.get(ids.get(task.getId())) == task;
+    }
+
+    // Deleting a recurring task also deletes the occurrences stored for it
+    private void removeWithOccurrences(Task task) {
+        if (task.isRecurring()) {
+            for (long exceptionId : recurrenceIndex.exceptionIds(task.getId())) {
+                Task exception = slots.get(ids.get(exceptionId));
+                if (exception != null) {
+                    removeTask(exception);
+                }
+            }
+        }
+        removeTask(task);
+    }
+
+    // Leaves a tombstone in the task's slot; nothing shifts
+    private void removeTask(Task task) {
+        int slot = task.getSlot();
+        int position = slots.positionOf(slot);
+        SyncState state = task.getSyncState();
+        int deletedCount = deletedTasks.size();
+        forgetTask(task);
+        fireRemoved(position, task);
+        logUndo(() -> restoreTask(task, slot, state, deletedCount));
+        compactSlotsIfNeeded();
+    }
+
+    // Puts a task deleted by a rolled-back batch back into its old slot and position
+    private void restoreTask(Task task, int slot, SyncState state, int deletedCount) {
+        deletedTasks.subList(deletedCount, deletedTasks.size()).clear();
+        slots.restore(slot, task);
+        task.setListener(this);
+        indexSlot(slot, task);
+        task.restoreSyncState(state);
+        fireAdded(slots.positionOf(slot), task);
+    }
+
+    private void forgetTask(Task task) {
+        if (isJournaling() && task.getSlot() >= 0) {
+            journal.logDelete(task.getId());
+            compactJournalIfNeeded();
         }
+        unindexTask(task);
+        if (task.getId() != 0 && task.getSyncState() != SyncState.NEW) {
+            deletedTasks.add(task);
+        }
+        task.markDeleted();
     }
 
+    /**
+     * Immutable snapshot of the list, in list order; it never changes after it is returned,
+     * but it holds the live tasks, which later edits change (see copyOf).
+     */
     public List<Task> getTasks() {
-        return tasks;
+        List<Task> current = snapshot;
+        if (current != null && !indexesStale && !coldShardsPending) {
+            return current;
+        }
+        ensureIndexes();
+        return read(() -> {
+            List<Task> published = snapshot;
+            if (published == null) {
+                published = Collections.unmodifiableList(slots.liveTasks());
+                snapshot = published;
+            }
+            return published;
+        });
+    }
+
+    /**
+     * Detached copies of the tasks, taken under the read lock so each shows one consistent
+     * state of its task, for callers that encode or hand tasks on field by field while
+     * other threads may edit them. Tasks this manager does not hold are copied as they are.
+     */
+    public List<Task> copyOf(Collection<Task> tasks) {
+        lock.readLock().lock();
+        try {
+            List<Task> copies = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                copies.add(task.copy());
+            }
+            return copies;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The tasks at list positions [offset, offset + limit), found through the slot tree
+     * instead of copying the list, so paging stays cheap while other threads keep writing.
+     */
+    public List<Task> getTasks(int offset, int limit) {
+        return read(() -> {
+            int count = (int) Math.max(0, Math.min(slots.size(), (long) offset + limit) - offset);
+            List<Task> page = new ArrayList<>(count);
+            // Live slots are in list order, so walk on from the first one, past tombstones
+            for (int slot = slots.slotAt(offset); slot >= 0 && page.size() < count; slot++) {
+                Task task = slots.get(slot);
+                if (task != null) {
+                    page.add(task);
+                }
+            }
+            return page;
+        });
+    }
+
+    // --- Locking ---
+    private void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            // Also when the action throws: it may have changed the list before it did
+            snapshot = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A write that goes through the indexes, so they are built first if a load dropped them
+    private void update(Runnable action) {
+        update(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T update(Supplier<T> action) {
+        return write(() -> {
+            ensureIndexesLocked();
+            return action.get();
+        });
+    }
+
+    private <T> T read(Supplier<T> action) {
+        return read(ALL_SHARDS, action);
+    }
+
+    // A read that first loads the cold shards it could need, for paths that know their scope
+    private <T> T read(Predicate<TaskShardStore.Shard> shards, Supplier<T> action) {
+        while (true) {
+            ensureShards(shards);
+            ensureIndexes();
+            lock.readLock().lock();
+            try {
+                // A load may have dropped the indexes between the two steps above
+                if (!indexesStale) {
+                    return action.get();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private void readAndPrint(Runnable action) {
+        read(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // A read that records its latency and result size under the given operation
+    private List<Task> measured(TaskMetrics.Op op, Supplier<List<Task>> query) {
+        return measured(op, TaskFilter.all(), query);
+    }
+
+    // Only cold shards that could hold tasks matching scope are loaded first
+    private List<Task> measured(TaskMetrics.Op op, TaskFilter scope, Supplier<List<Task>> query) {
+        long started = TaskMetrics.start();
+        List<Task> result = read(shard -> shard.mayMatch(scope), query);
+        TaskMetrics.stop(op, started, result.size());
+        return result;
+    }
+
+    private void measuredPrint(TaskMetrics.Op op, Runnable action) {
+        long started = TaskMetrics.start();
+        readAndPrint(action);
+        TaskMetrics.stop(op, started);
+    }
+
+    public void setCompactJson(boolean compact) {
+        jsonCodec.setCompact(compact);
+    }
+
+    public void setBinarySnapshots(boolean binary) {
+        binarySnapshots = binary;
     }
 
     public void saveToFile(String filename) {
-        try (Writer writer = new FileWriter(filename)) {
-            gson.toJson(tasks, writer);
+        long started = TaskMetrics.start();
+        try {
+            Path path = Path.of(filename);
+            if (journal != null && journal.getSnapshotPath().equals(path)) {
+                // Saving over the journaled snapshot folds the journal into it; holding the
+                // write lock keeps every journaled mutation on one side of the new snapshot
+                lock.writeLock().lock();
+                try {
+                    journal.compact();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                TaskMetrics.stop(TaskMetrics.Op.SAVE_FILE, started, slots.size(), path);
+                return;
+            }
+            Path tmp = Path.of(filename + ".tmp");
+            List<Task> toWrite = getTasks();
+            writeSnapshotFile(tmp, toWrite);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            TaskMetrics.stop(TaskMetrics.Op.SAVE_FILE, started, toWrite.size(), path);
         } catch (IOException e) {
+            TaskMetrics.failed(TaskMetrics.Op.SAVE_FILE, started);
             e.printStackTrace();
         }
     }
 
+    // Writes every task in the configured format and forces it to disk
+    private void writeSnapshotFile(Path target, List<Task> toWrite) throws IOException {
+        if (binarySnapshots) {
+            TaskSnapshot.write(target, toWrite);
+        } else {
+            jsonCodec.writeDurably(target, toWrite);
+        }
+    }
+
     public void loadFromFile(String filename) {
+        loadFromFile(filename, TaskLoadListener.NONE);
+    }
+
+    /** Loads with progress reporting; returns false, keeping the current tasks, if cancelled. */
+    public boolean loadFromFile(String filename, TaskLoadListener listener) {
+        long started = TaskMetrics.start();
+        // Parse outside the lock; only the swap below blocks other threads
+        List<Task> loaded = readFile(filename, listener);
+        if (loaded == null) {
+            return false;
+        }
+        write(() -> {
+            deletedTasks.clear();
+            replaceDatabaseOnSave = true;
+            replaceTasks(loaded);
+            compactJournalAfterReplace();
+        });
+        TaskMetrics.stop(TaskMetrics.Op.LOAD_FILE, started, loaded.size(), Path.of(filename));
+        return true;
+    }
+
+    private List<Task> readFile(String filename, TaskLoadListener listener) {
         File file = new File(filename);
-        if (!file.exists() || file.length() == 0) {
-            tasks = new ArrayList<>();
+        LoadTracker tracker = new LoadTracker(listener, -1);
+        if (file.exists() && file.length() > 0) {
+            try {
+                if (TaskSnapshot.isSnapshot(file.toPath())) {
+                    // Already lazy: only the first page is decoded here
+                    List<Task> mapped = TaskSnapshot.open(file.toPath());
+                    listener.firstPage(List.copyOf(mapped.subList(0, Math.min(mapped.size(), TaskLoadListener.FIRST_PAGE_SIZE))));
+                    listener.progress(mapped.size(), mapped.size());
+                    return mapped;
+                }
+                jsonCodec.read(file.toPath(), tracker);
+            } catch (CancellationException e) {
+                return null;
+            } catch (Exception e) {
+                System.err.println("⚠️ Failed to load tasks from file: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        }
+        return tracker.finish();
+    }
+
+    /** Collects streamed tasks, reporting the first page and progress and polling for cancellation. */
+    private static final class LoadTracker implements Consumer<Task> {
+        private static final int PROGRESS_EVERY = 1024;
+
+        private final TaskLoadListener listener;
+        private final long total;
+        private final List<Task> loaded = new ArrayList<>();
+
+        LoadTracker(TaskLoadListener listener, long total) {
+            this.listener = listener;
+            this.total = total;
+        }
+
+        @Override
+        public void accept(Task task) {
+            loaded.add(task);
+            int count = loaded.size();
+            if (count == TaskLoadListener.FIRST_PAGE_SIZE) {
+                listener.firstPage(List.copyOf(loaded));
+            }
+            if (count % PROGRESS_EVERY == 0) {
+                listener.progress(count, total);
+                if (listener.isCancelled() || Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException();
+                }
+            }
+        }
+
+        // Returns the tasks, or null if the load was cancelled
+        List<Task> finish() {
+            if (listener.isCancelled()) {
+                return null;
+            }
+            if (loaded.size() < TaskLoadListener.FIRST_PAGE_SIZE) {
+                listener.firstPage(List.copyOf(loaded));
+            }
+            listener.progress(loaded.size(), loaded.size());
+            return loaded;
+        }
+    }
+
+    // --- Sharded storage ---
+
+    /**
+     * Loads a shard directory written by saveToShards. Hot shards are read in parallel
+     * right away; cold ones (see ShardScheme) stay on disk until a read could match tasks
+     * in them, and their tasks then join the end of the list.
+     */
+    public boolean loadFromShards(String directory) {
+        long started = TaskMetrics.start();
+        shardLoadLock.lock();
+        try {
+            TaskShardStore store = TaskShardStore.open(Path.of(directory));
+            List<TaskShardStore.Shard> hot = store.getHot(LocalDate.now());
+            List<Task> loaded = store.read(hot);
+            write(() -> {
+                deletedTasks.clear();
+                replaceDatabaseOnSave = true;
+                replaceTasks(loaded);
+                compactJournalAfterReplace();
+                store.markLoaded(hot);
+                shardStore = store;
+                coldShardsPending = store.hasUnloaded();
+            });
+            TaskMetrics.stop(TaskMetrics.Op.LOAD_FILE, started, loaded.size(), Path.of(directory));
+            return true;
+        } catch (IOException e) {
+            TaskMetrics.failed(TaskMetrics.Op.LOAD_FILE, started);
+            System.err.println("⚠️ Failed to load shards from " + directory + ": " + e.getMessage());
+            return false;
+        } finally {
+            shardLoadLock.unlock();
+        }
+    }
+
+    /**
+     * Saves the list into a shard directory, as binary snapshots or JSON per
+     * setBinarySnapshots. Saving back to the directory the list came from rewrites only
+     * the shards that changed, in parallel, and leaves cold shards unread unless tasks
+     * moved into them.
+     */
+    public boolean saveToShards(String directory, ShardScheme scheme) {
+        long started = TaskMetrics.start();
+        Path dir = Path.of(directory);
+        shardLoadLock.lock();
+        try {
+            TaskShardStore store = shardStore;
+            if (store == null || !store.getDirectory().equals(dir) || store.getScheme() != scheme) {
+                // Another directory or layout gets every task, cold ones included
+                loadShards(ALL_SHARDS);
+                store = TaskShardStore.create(dir, scheme);
+            }
+            long generation = read(shard -> false, () -> listGeneration);
+            Map<String, List<Task>> byShard = groupByShard(scheme);
+            Set<String> keys = byShard.keySet();
+            List<TaskShardStore.Shard> movedInto = store.getUnloaded().stream()
+                .filter(shard -> keys.contains(shard.getKey())).toList();
+            if (!movedInto.isEmpty()) {
+                // Tasks were edited into a cold shard: read it before it is rewritten
+                loadShards(store, movedInto);
+                byShard = groupByShard(scheme);
+            }
+            int written = store.save(byShard, binarySnapshots);
+
+            TaskShardStore saved = store;
+            write(() -> {
+                // Unless the list was replaced meanwhile, it now follows the saved directory
+                if (listGeneration == generation) {
+                    shardStore = saved;
+                    coldShardsPending = saved.hasUnloaded();
+                }
+            });
+            TaskMetrics.stop(TaskMetrics.Op.SAVE_FILE, started, written, dir);
+            return true;
+        } catch (IOException e) {
+            TaskMetrics.failed(TaskMetrics.Op.SAVE_FILE, started);
+            System.err.println("⚠️ Failed to save shards to " + directory + ": " + e.getMessage());
+            return false;
+        } finally {
+            shardLoadLock.unlock();
+        }
+    }
+
+    /** The shard directory the list follows, with its layout and load state; null if none. */
+    public TaskShardStore getShardStore() {
+        return shardStore;
+    }
+
+    // Tasks in memory grouped by shard key, each group in list order; cold shards are not read
+    private Map<String, List<Task>> groupByShard(ShardScheme scheme) {
+        return read(shard -> false, () -> {
+            Map<String, List<Task>> byShard = new TreeMap<>();
+            for (Task task : currentTasks()) {
+                byShard.computeIfAbsent(scheme.keyOf(task), key -> new ArrayList<>()).add(task);
+            }
+            return byShard;
+        });
+    }
+
+    private void ensureShards(Predicate<TaskShardStore.Shard> needed) {
+        if (!coldShardsPending) {
+            return;
+        }
+        shardLoadLock.lock();
+        try {
+            loadShards(needed);
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to load cold shards: " + e.getMessage());
+        } finally {
+            shardLoadLock.unlock();
+        }
+    }
+
+    // Callers hold shardLoadLock and no manager lock
+    private void loadShards(Predicate<TaskShardStore.Shard> needed) throws IOException {
+        TaskShardStore store = shardStore;
+        if (store == null) {
+            return;
+        }
+        List<TaskShardStore.Shard> wanted = store.getUnloaded().stream().filter(needed).toList();
+        if (!wanted.isEmpty()) {
+            loadShards(store, wanted);
+        }
+    }
+
+    private void loadShards(TaskShardStore store, List<TaskShardStore.Shard> wanted) throws IOException {
+        long started = TaskMetrics.start();
+        List<Task> loaded = store.read(wanted);
+        update(() -> {
+            if (shardStore != store) {
+                return;
+            }
+            for (Task task : loaded) {
+                indexTask(task);
+                fireAdded(slots.size() - 1, task);
+            }
+            store.markLoaded(wanted);
+            coldShardsPending = store.hasUnloaded();
+        });
+        TaskMetrics.stop(TaskMetrics.Op.LOAD_FILE, started, loaded.size(), store.getDirectory());
+    }
+
+    // --- Batches ---
+
+    /**
+     * Runs work as one batch: other threads see none of its changes until all of them are
+     * made, and they are journaled as one record, so replay after a crash applies the whole
+     * batch or none of it. The work may call this manager's methods freely. Nothing is
+     * rolled back: if a step fails or the work throws, the changes made so far are kept
+     * (see inAtomicBatch). Cold shards are loaded first, since a batch may touch any task.
+     */
+    public <T> T inBatch(Supplier<T> work) {
+        return runBatch(work, false);
+    }
+
+    /**
+     * Runs work as inBatch does, but all or nothing: if the work throws, every add, delete
+     * and edit it made is undone, newest first, deleted tasks go back to their old
+     * positions, the batch's journal record is dropped, and the exception is rethrown.
+     * Loads that replace the whole list cannot be undone and fail inside it.
+     */
+    public <T> T inAtomicBatch(Supplier<T> work) {
+        return runBatch(work, true);
+    }
+
+    private <T> T runBatch(Supplier<T> work, boolean atomic) {
+        ensureShards(ALL_SHARDS);
+        return update(() -> {
+            if (atomic && atomicBatch) {
+                throw new IllegalStateException("An atomic batch is already running");
+            }
+            if (isJournaling()) {
+                journal.beginBatch();
+            }
+            List<Runnable> undo = atomic ? new ArrayList<>() : null;
+            long firstNewId = nextId;
+            boolean completed = false;
+            if (atomic) {
+                undoLog = undo;
+                atomicBatch = true;
+            }
+            try {
+                T result = work.get();
+                completed = true;
+                return result;
+            } finally {
+                if (atomic) {
+                    undoLog = null;
+                    if (!completed) {
+                        for (int i = undo.size() - 1; i >= 0; i--) {
+                            undo.get(i).run();
+                        }
+                        nextId = firstNewId;
+                    }
+                    atomicBatch = false;
+                }
+                if (isJournaling()) {
+                    if (atomic && !completed) {
+                        journal.abortBatch();
+                    } else {
+                        try {
+                            journal.endBatch();
+                        } catch (IOException e) {
+                            System.err.println("⚠️ Failed to commit task journal: " + e.getMessage());
+                        }
+                    }
+                    compactJournalIfNeeded();
+                }
+                if (atomic) {
+                    // The tombstones held back during the batch
+                    compactSlotsIfNeeded();
+                }
+            }
+        });
+    }
+
+    private void logUndo(Runnable step) {
+        if (undoLog != null) {
+            undoLog.add(step);
+        }
+    }
+
+    // --- Write-ahead journal ---
+
+    /**
+     * Loads the snapshot file, replays the journal kept next to it and from then on
+     * journals every mutation, so a crash loses at most one group-commit window.
+     */
+    public void loadWithJournal(String filename) {
+        closeJournal();
+        TaskJournal opened = new TaskJournal(Path.of(filename), target -> writeSnapshotFile(target, currentTasks()));
+        try {
+            opened.recover();
+            loadFromFile(filename);
+            // Plain write lock: an empty journal leaves a lazily opened snapshot undecoded,
+            // and only records that look tasks up by id or position build the indexes
+            write(() -> {
+                replaying = true;
+                try {
+                    opened.open(new TaskJournal.ReplayTarget() {
+                        @Override
+                        public void replayAdd(Task task) {
+                            addTask(task);
+                        }
+
+                        @Override
+                        public void replayDelete(long id) {
+                            ensureIndexesLocked();
+                            Task task = slots.get(ids.get(id));
+                            if (task != null) {
+                                removeTask(task);
+                            }
+                        }
+
+                        @Override
+                        public long idAt(int position) {
+                            ensureIndexesLocked();
+                            Task task = slots.get(slots.slotAt(position));
+                            return task != null ? task.getId() : 0;
+                        }
+
+                        @Override
+                        public void replayEdit(long id, TaskField field, Object value) {
+                            ensureIndexesLocked();
+                            Task task = slots.get(ids.get(id));
+                            if (task == null) {
+                                return;
+                            }
+                            applyEdit(task, field, value);
+                        }
+                    });
+                    journal = opened;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    replaying = false;
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Failed to open task journal: " + e.getMessage());
+        }
+    }
+
+    public void closeJournal() {
+        write(() -> {
+            if (journal == null) {
+                return;
+            }
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            journal = null;
+        });
+    }
+
+    private boolean isJournaling() {
+        return journal != null && !replaying;
+    }
+
+    private void compactJournalIfNeeded() {
+        if (journal.needsCompaction()) {
+            compactJournal();
+        }
+    }
+
+    // Journal records are relative to the snapshot, so a wholesale replace needs a new one
+    private void compactJournalAfterReplace() {
+        if (isJournaling()) {
+            compactJournal();
+        }
+    }
+
+    private void compactJournal() {
+        try {
+            journal.compact();
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to compact task journal: " + e.getMessage());
+        }
+    }
+
+    // --- Index maintenance (callers hold the write lock) ---
+    private void indexTask(Task task) {
+        SyncState state = task.getSyncState();
+        int slot = slots.assign(task);
+        task.setListener(this);
+        assignId(task);
+        indexSlot(slot, task);
+        logUndo(() -> {
+            int position = slots.positionOf(task.getSlot());
+            unindexTask(task);
+            fireRemoved(position, task);
+            task.restoreSyncState(state);
+        });
+    }
+
+    private void indexSlot(int slot, Task task) {
+        ids.put(task.getId(), slot);
+        keywordIndex.add(slot, task);
+        statusPriorityIndex.add(slot, task);
+        dueDateIndex.add(slot, task);
+        recurrenceIndex.add(slot, task);
+        statistics.add(slot, task);
+    }
+
+    // Keeps the id a task was saved with; new tasks (and clashing copies) get the next one
+    private void assignId(Task task) {
+        long id = task.getId();
+        if (id <= 0 || ids.contains(id)) {
+            task.setId(nextId++);
+            task.markNew(); // its row, if any, belongs to the task that kept the id
+        } else if (id >= nextId) {
+            nextId = id + 1;
+        }
+    }
+
+    private void unindexTask(Task task) {
+        int slot = task.getSlot();
+        if (task.getListener() != this || slot < 0) {
             return;
         }
+        keywordIndex.remove(slot);
+        statusPriorityIndex.remove(slot, task);
+        dueDateIndex.remove(slot);
+        recurrenceIndex.remove(slot, task);
+        statistics.remove(slot);
+        ids.remove(task.getId());
+        slots.release(task);
+        task.setListener(null);
+    }
+
+    private void compactSlotsIfNeeded() {
+        if (!atomicBatch && slots.tombstones() >= MIN_TOMBSTONES_TO_COMPACT && slots.tombstones() > slots.size()) {
+            compactSlots();
+        }
+    }
+
+    // Squeezes the tombstones out of the slots and moves every index entry along
+    private void compactSlots() {
+        int[] newSlotOf = slots.compact();
+        keywordIndex.renumber(newSlotOf);
+        statusPriorityIndex.clear();
+        dueDateIndex.clear();
+        recurrenceIndex.clear();
+        statistics.clear();
+        ids.clear();
+        for (Task task : slots) {
+            int slot = task.getSlot();
+            statusPriorityIndex.add(slot, task);
+            dueDateIndex.add(slot, task);
+            recurrenceIndex.add(slot, task);
+            statistics.add(slot, task);
+            ids.put(task.getId(), slot);
+        }
+    }
+
+    // Every task in list order, whether or not the indexes have been built yet
+    private List<Task> currentTasks() {
+        return indexesStale ? unindexedTasks : slots.liveTasks();
+    }
+
+    // Swaps in a new list and drops every index; they are rebuilt on first use
+    private void replaceTasks(List<Task> replacement) {
+        if (atomicBatch) {
+            throw new IllegalStateException("The whole list cannot be replaced inside an atomic batch");
+        }
+        for (Task task : slots) {
+            if (task.getListener() == this) {
+                task.setListener(null);
+            }
+        }
+        slots.clear();
+        ids.clear();
+        keywordIndex.clear();
+        statusPriorityIndex.clear();
+        dueDateIndex.clear();
+        recurrenceIndex.clear();
+        statistics.clear();
+        nextId = 1;
+        shardStore = null;
+        coldShardsPending = false;
+        unindexedTasks = replacement;
+        listGeneration++;
+        indexesStale = true;
+        if (!listListeners.isEmpty()) {
+            // The replacement is never changed after this, so listeners share it read-only
+            List<Task> view = Collections.unmodifiableList(replacement);
+            for (TaskListListener listener : listListeners) {
+                listener.tasksReplaced(view);
+            }
+        }
+    }
 
-        try (FileReader reader = new FileReader(file)) {
-            Type taskListType = new TypeToken<List<Task>>() {}.getType();
-            tasks = gson.fromJson(reader, taskListType);
-            if (tasks == null) {
-                tasks = new ArrayList<>();
+    // --- Change notification ---
+
+    /** Registers the listener and sends it the current list as a first tasksReplaced. */
+    public void addTaskListListener(TaskListListener listener) {
+        write(() -> {
+            listListeners.add(listener);
+            listener.tasksReplaced(Collections.unmodifiableList(new ArrayList<>(currentTasks())));
+        });
+    }
+
+    public void removeTaskListListener(TaskListListener listener) {
+        listListeners.remove(listener);
+    }
+
+    private void fireAdded(int position, Task task) {
+        for (TaskListListener listener : listListeners) {
+            listener.taskAdded(position, task);
+        }
+    }
+
+    private void fireRemoved(int position, Task task) {
+        for (TaskListListener listener : listListeners) {
+            listener.taskRemoved(position, task);
+        }
+    }
+
+    private void ensureIndexes() {
+        if (!indexesStale) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ensureIndexesLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureIndexesLocked() {
+        if (!indexesStale) {
+            return;
+        }
+        // Iterating a lazily decoded snapshot decodes every task once, into the slots
+        long started = TaskMetrics.start();
+        for (Task task : unindexedTasks) {
+            indexTask(task);
+        }
+        unindexedTasks = List.of();
+        snapshot = null;
+        indexesStale = false;
+        TaskMetrics.stop(TaskMetrics.Op.REBUILD_INDEXES, started, slots.size());
+    }
+
+    @Override
+    public void changeTask(Task task, TaskField field, Object value) {
+        // Setters may be called from any thread; the write lock is reentrant for our own calls
+        lock.writeLock().lock();
+        try {
+            SyncState state = task.getSyncState();
+            Object oldValue = task.put(field, value);
+            if (!Objects.equals(oldValue, value)) {
+                taskChanged(task, field, oldValue);
+                logUndo(() -> {
+                    task.put(field, oldValue);
+                    taskChanged(task, field, value);
+                    task.restoreSyncState(state);
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called with the write lock held, after the field changed from oldValue
+    private void taskChanged(Task task, TaskField field, Object oldValue) {
+        int slot = task.getSlot();
+        if (slot < 0 || task.getListener() != this) {
+            return;
+        }
+        switch (field) {
+            case TITLE, DESCRIPTION -> keywordIndex.update(slot, task);
+            case DONE -> {
+                statusPriorityIndex.doneChanged(slot, task.isDone(), task.getPriority());
+                dueDateIndex.update(slot, task);
+                statistics.doneChanged(slot, (Boolean) oldValue, task.isDone());
+            }
+            case PRIORITY -> {
+                statusPriorityIndex.priorityChanged(slot, (Priority) oldValue, task.getPriority());
+                dueDateIndex.update(slot, task);
+            }
+            case DUE_DATE -> {
+                dueDateIndex.update(slot, task);
+                statistics.update(slot, task);
             }
-        } catch (Exception e) {
-            System.err.println("⚠️ Failed to load tasks from file: " + e.getMessage());
-            tasks = new ArrayList<>();
+            case RECURRENCE -> {
+                recurrenceIndex.update(slot, task);
+                dueDateIndex.update(slot, task);
+                statistics.update(slot, task);
+            }
+        }
+        if (!listListeners.isEmpty()) {
+            int position = slots.positionOf(slot);
+            for (TaskListListener listener : listListeners) {
+                listener.taskUpdated(position, task, field);
+            }
+        }
+        if (isJournaling()) {
+            journal.logEdit(task.getId(), field, task);
+            compactJournalIfNeeded();
+        }
+    }
+
+    // Generated occurrences have no id of their own; they are named seriesId@date
+    private void printTask(Task task) {
+        String label = task.getId() != 0 ? Long.toString(task.getId()) : task.getSeriesId() + "@" + task.getOccurrenceDate();
+        System.out.println(label + ". " + task);
+    }
+
+    // Prints in iteration order, numbered by task id; returns how many were printed
+    private int printSlots(Iterator<Integer> matches) {
+        int printed = 0;
+        while (matches.hasNext()) {
+            int slot = matches.next();
+            printTask(slots.get(slot));
+            printed++;
+        }
+        return printed;
+    }
+
+    private List<Task> tasksAt(IntStream matches) {
+        return matches.mapToObj(slots::get).toList();
+    }
+
+    private List<Task> tasksAt(Iterator<Integer> matches) {
+        List<Task> result = new ArrayList<>();
+        while (matches.hasNext()) {
+            result.add(slots.get(matches.next()));
         }
+        return result;
     }
 
     // --- Search and Filter ---
-    public void searchByKeyword(String keyword) {
-        boolean found = false;
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            if (task.getTitle().toLowerCase().contains(keyword.toLowerCase()) ||
-                task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
-                System.out.println((i + 1) + ". " + task);
-                found = true;
+    public List<Task> findByKeyword(String keyword) {
+        return measured(TaskMetrics.Op.SEARCH, () -> {
+            int[] matches = keywordIndex.search(keyword);
+            List<Task> result = new ArrayList<>(matches.length);
+            for (int slot : matches) {
+                result.add(slots.get(slot));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Keyword search for search-as-you-type: when the keyword extends the previous one,
+     * only the previous matches are checked again. Pass null to search from scratch.
+     * Interrupting the calling thread abandons the query with a CancellationException.
+     */
+    public KeywordResult findByKeyword(String keyword, KeywordResult previous) {
+        long started = TaskMetrics.start();
+        KeywordResult found = read(() -> {
+            KeywordIndex.Matches matches = keywordIndex.search(keyword, previous == null ? null : previous.matches);
+            int[] matched = matches.getSlots();
+            List<Task> result = new ArrayList<>(matched.length);
+            for (int slot : matched) {
+                result.add(slots.get(slot));
             }
+            return new KeywordResult(Collections.unmodifiableList(result), matches);
+        });
+        TaskMetrics.stop(TaskMetrics.Op.SEARCH, started, found.tasks.size());
+        return found;
+    }
+
+    /** Tasks matching a keyword, in list order, and the state needed to refine them. */
+    public static final class KeywordResult {
+        private final List<Task> tasks;
+        private final KeywordIndex.Matches matches;
+
+        private KeywordResult(List<Task> tasks, KeywordIndex.Matches matches) {
+            this.tasks = tasks;
+            this.matches = matches;
         }
-        if (!found) {
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+    }
+
+    public void searchByKeyword(String keyword) {
+        List<Task> matches = measured(TaskMetrics.Op.SEARCH, () -> runQuery(TaskQuery.all().withKeyword(keyword)));
+        matches.forEach(this::printTask);
+        if (matches.isEmpty()) {
             System.out.println("No matching tasks found for keyword: " + keyword);
         }
     }
 
-    public void searchByStatus(boolean isDone) {
-        boolean found = false;
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            if (task.isDone() == isDone) {
-                System.out.println((i + 1) + ". " + task);
-                found = true;
+    /** Tasks matching both filters, in list order; pass null to ignore a filter. */
+    public List<Task> findTasks(Boolean isDone, Priority priority) {
+        TaskFilter scope = TaskFilter.all().withDone(isDone).withPriority(priority);
+        return measured(TaskMetrics.Op.FILTER, scope, () -> {
+            BitSet matches = statusPriorityIndex.select(isDone, priority);
+            List<Task> result = new ArrayList<>(matches.cardinality());
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                result.add(slots.get(slot));
             }
+            return result;
+        });
+    }
+
+    public int countTasks(Boolean isDone, Priority priority) {
+        long started = TaskMetrics.start();
+        TaskFilter scope = TaskFilter.all().withDone(isDone).withPriority(priority);
+        int count = read(shard -> shard.mayMatch(scope), () -> statusPriorityIndex.count(isDone, priority));
+        TaskMetrics.stop(TaskMetrics.Op.COUNT, started);
+        return count;
+    }
+
+    /**
+     * Open and done counts per priority, overdue, due today and due this week. Every figure
+     * is kept up to date by the mutations, so this takes the same time for any number of tasks.
+     */
+    public TaskStatistics.Summary statistics() {
+        long started = TaskMetrics.start();
+        LocalDate today = LocalDate.now();
+        TaskStatistics.Summary summary = read(() -> {
+            int[] week = statistics.pendingHistogram(today, 7);
+            return new TaskStatistics.Summary(today, statusPriorityIndex.counts(), statistics.overdue(today),
+                week[0], Arrays.stream(week).sum(), statistics.undatedPending(), statistics.recurring());
+        });
+        TaskMetrics.stop(TaskMetrics.Op.STATISTICS, started);
+        return summary;
+    }
+
+    /** Pending tasks due on each of the days starting at from; recurring series are not included. */
+    public int[] dueHistogram(LocalDate from, int days) {
+        return read(() -> statistics.pendingHistogram(from, days));
+    }
+
+    public void showStatistics() {
+        TaskStatistics.Summary summary = statistics();
+        System.out.println(summary.format());
+        int[] histogram = dueHistogram(summary.getDay(), 7);
+        System.out.println("\nOpen tasks due in the next 7 days:");
+        for (int i = 0; i < histogram.length; i++) {
+            LocalDate day = summary.getDay().plusDays(i);
+            System.out.printf("%s %-3s %5d %s%n", day, day.getDayOfWeek().toString().substring(0, 3), histogram[i],
+                "#".repeat(Math.min(histogram[i], 50)));
         }
-        if (!found) {
+    }
+
+    public void searchByStatus(boolean isDone) {
+        TaskQuery query = TaskQuery.all().withDone(isDone);
+        List<Task> matches = measured(TaskMetrics.Op.FILTER, query.getFilter(), () -> runQuery(query));
+        matches.forEach(this::printTask);
+        if (matches.isEmpty()) {
             System.out.println("No " + (isDone ? "completed" : "pending") + " tasks found.");
         }
     }
 
     public void searchByPriority(Priority priority) {
-        boolean found = false;
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            if (task.getPriority() == priority) {
-                System.out.println((i + 1) + ". " + task);
-                found = true;
+        TaskQuery query = TaskQuery.all().withPriority(priority);
+        List<Task> matches = measured(TaskMetrics.Op.FILTER, query.getFilter(), () -> runQuery(query));
+        matches.forEach(this::printTask);
+        if (matches.isEmpty()) {
+            System.out.println("No tasks found with priority: " + priority);
+        }
+    }
+
+    // --- Composable queries ---
+
+    /**
+     * Tasks meeting every condition of the query, in its sort order and cut to its limit.
+     * The status/priority bitsets, the keyword index or the due-date index supply the
+     * candidates; once there are parallelThreshold of them the remaining checks and the
+     * sort are split across the fork-join pool. Ties are broken by list order, so a
+     * parallel run returns exactly what a sequential one would.
+     */
+    public List<Task> query(TaskQuery query) {
+        return measured(TaskMetrics.Op.QUERY, query.getFilter(), () -> runQuery(query));
+    }
+
+    /** Candidate count from which queries run in parallel; Integer.MAX_VALUE keeps them sequential. */
+    public void setParallelThreshold(int threshold) {
+        parallelThreshold = Math.max(1, threshold);
+    }
+
+    // Limits up to this size keep a bounded heap of the best matches instead of sorting them all
+    private static final int TOP_K_LIMIT = 10_000;
+
+    // Callers hold the read lock. With a due range, occurrences of recurring tasks are
+    // generated for it and merged in; the series themselves only match queries without one.
+    private List<Task> runQuery(TaskQuery query) {
+        List<Task> stored = runStoredQuery(query);
+        TaskFilter filter = query.getFilter();
+        if (!filter.hasDueRange() || Boolean.TRUE.equals(filter.getDone()) || !recurrenceIndex.hasSeries()) {
+            return stored;
+        }
+        List<Task> generated = new ArrayList<>();
+        for (Task occurrence : recurrenceIndex.occurrences(filter.getDueFrom(), filter.getDueTo(), LocalDate.now(), query.getLimit())) {
+            if (query.matches(occurrence)) {
+                generated.add(occurrence);
             }
         }
-        if (!found) {
-            System.out.println("No tasks found with priority: " + priority);
+        Comparator<Task> order = resultOrder(query.getSort());
+        generated.sort(order);
+        return merge(stored, generated, order, query.getLimit());
+    }
+
+    // The order runQuery returns stored tasks in, extended to generated occurrences, which
+    // take their series' place in the list
+    private Comparator<Task> resultOrder(TaskQuery.Sort sort) {
+        Comparator<Task> byList = Comparator.comparingInt(this::listSlot).thenComparing(Task::getDueDate);
+        return sort.comparator() == null ? byList : sort.comparator().thenComparing(byList);
+    }
+
+    private int listSlot(Task task) {
+        return task.getSlot() >= 0 ? task.getSlot() : ids.get(task.getSeriesId());
+    }
+
+    // Merges two lists sorted in the same order, keeping the first limit tasks
+    private static List<Task> merge(List<Task> stored, List<Task> generated, Comparator<Task> order, int limit) {
+        if (generated.isEmpty()) {
+            return stored;
+        }
+        int size = (int) Math.min(limit, (long) stored.size() + generated.size());
+        List<Task> merged = new ArrayList<>(size);
+        int i = 0;
+        int j = 0;
+        while (merged.size() < size) {
+            if (j == generated.size() || (i < stored.size() && order.compare(stored.get(i), generated.get(j)) <= 0)) {
+                merged.add(stored.get(i++));
+            } else {
+                merged.add(generated.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    // Callers hold the read lock, which keeps writers out while pool threads read the slots
+    private List<Task> runStoredQuery(TaskQuery query) {
+        TaskFilter filter = query.getFilter();
+        BitSet selected = statusPriorityIndex.select(filter.getDone(), filter.getPriority());
+        int[] candidates;
+        boolean dueOrdered = false;
+        boolean checkDueRange = false;
+        if (query.getKeyword() != null) {
+            candidates = keywordIndex.search(query.getKeyword());
+            checkDueRange = filter.hasDueRange();
+        } else if (filter.hasDueRange()) {
+            candidates = slotArray(dueDateIndex.dueBetween(filter.getDueFrom(), filter.getDueTo(), filter.getDone()));
+            dueOrdered = true;
+        } else {
+            candidates = selected.stream().toArray();
+            selected = null;
+        }
+
+        IntStream matches = IntStream.of(candidates);
+        if (candidates.length >= parallelThreshold) {
+            matches = matches.parallel();
+        }
+        if (selected != null) {
+            matches = matches.filter(selected::get);
+        }
+        if (checkDueRange) {
+            matches = matches.filter(slot -> {
+                Task task = slots.get(slot);
+                return !task.isRecurring() && filter.matches(task);
+            });
+        }
+
+        TaskQuery.Sort sort = query.getSort();
+        int limit = query.getLimit();
+        if (sort == TaskQuery.Sort.LIST_ORDER) {
+            // Slots are handed out in list order
+            return tasksAt(limited(dueOrdered ? matches.sorted() : matches, limit));
+        }
+        if (sort == TaskQuery.Sort.DUE_DATE && dueOrdered) {
+            return tasksAt(limited(matches, limit));
+        }
+        Comparator<Task> byTask = sort.comparator();
+        Comparator<Integer> order = (a, b) -> {
+            int c = byTask.compare(slots.get(a), slots.get(b));
+            return c != 0 ? c : Integer.compare(a, b);
+        };
+        if (limit <= TOP_K_LIMIT) {
+            TopSlots top = matches.collect(() -> new TopSlots(limit, order), TopSlots::add, TopSlots::addAll);
+            return tasksAt(top.sorted().stream().mapToInt(Integer::intValue));
+        }
+        return tasksAt(limited(matches.boxed().sorted(order).mapToInt(Integer::intValue), limit));
+    }
+
+    // An ordered parallel limit buffers its input, so only pay for it when there is one
+    private static IntStream limited(IntStream matches, int limit) {
+        return limit == TaskQuery.NO_LIMIT ? matches : matches.limit(limit);
+    }
+
+    // The first limit slots in a total order, kept in a max-heap so each candidate costs O(log limit)
+    private static final class TopSlots {
+        private final int limit;
+        private final Comparator<Integer> order;
+        private final PriorityQueue<Integer> heap;
+
+        TopSlots(int limit, Comparator<Integer> order) {
+            this.limit = limit;
+            this.order = order;
+            this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed());
+        }
+
+        void add(int slot) {
+            if (heap.size() < limit) {
+                heap.add(slot);
+            } else if (limit > 0 && order.compare(slot, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(slot);
+            }
+        }
+
+        void addAll(TopSlots other) {
+            for (int slot : other.heap) {
+                add(slot);
+            }
+        }
+
+        List<Integer> sorted() {
+            List<Integer> result = new ArrayList<>(heap);
+            result.sort(order);
+            return result;
+        }
+    }
+
+    private static int[] slotArray(Iterator<Integer> slots) {
+        int[] result = new int[64];
+        int count = 0;
+        while (slots.hasNext()) {
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count * 2);
+            }
+            result[count++] = slots.next();
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // --- Recurring tasks ---
+
+    /** Marks one occurrence of a recurring task done; false if the task does not recur on that date. */
+    public boolean markOccurrenceDone(long seriesId, LocalDate date) {
+        return editOccurrence(seriesId, date, Map.of(TaskField.DONE, true)) != null;
+    }
+
+    /**
+     * Applies the changes to one occurrence of a recurring task, as editTask does. The first
+     * change stores the occurrence as a task of its own (an exception to the series) that
+     * replaces the generated one from then on. Returns it, or null if the task does not
+     * recur on that date.
+     */
+    public Task editOccurrence(long seriesId, LocalDate date, Map<TaskField, Object> changes) {
+        ensureShards(shard -> shard.mayContain(seriesId) || shard.mayMatch(TaskFilter.all().withDueBetween(date, date)));
+        long started = TaskMetrics.start();
+        Task edited = update(() -> {
+            Task occurrence = storedOccurrence(seriesId, date);
+            if (occurrence != null) {
+                changes.forEach((field, value) -> applyEdit(occurrence, field, value));
+            }
+            return occurrence;
+        });
+        TaskMetrics.stop(TaskMetrics.Op.EDIT, started);
+        return edited;
+    }
+
+    // The exception stored for the occurrence, added now if there is none yet
+    private Task storedOccurrence(long seriesId, LocalDate date) {
+        Task series = slots.get(ids.get(seriesId));
+        if (series == null || !series.isRecurring() || series.getDueDate() == null
+                || !series.getRecurrence().occursOn(series.getDueDate(), date)) {
+            return null;
+        }
+        Task stored = slots.get(ids.get(recurrenceIndex.exceptionId(seriesId, date)));
+        if (stored == null) {
+            stored = series.occurrenceOn(date);
+            indexTask(stored);
+            fireAdded(slots.size() - 1, stored);
+            if (isJournaling()) {
+                journal.logAdd(stored);
+                compactJournalIfNeeded();
+            }
         }
+        return stored;
+    }
+
+    // --- Due-date and priority ordered views (the list itself is never reordered) ---
+
+    /**
+     * Tasks ordered by due date, then priority (HIGH first), captured when called. Each
+     * recurring task appears once, as its next occurrence from today.
+     */
+    public List<Task> tasksByDueDate() {
+        LocalDate today = LocalDate.now();
+        return measured(TaskMetrics.Op.SORT_BY_DUE_DATE, () -> mergeDue(tasksAt(dueDateIndex.inDueOrder()),
+            recurrenceIndex.occurrences(today, null, today, 1), TaskQuery.NO_LIMIT));
+    }
+
+    /** Tasks ordered by priority (LOW to HIGH), list order within a priority. */
+    public List<Task> tasksByPriority() {
+        return measured(TaskMetrics.Op.SORT_BY_PRIORITY, () -> tasksAt(statusPriorityIndex.inPriorityOrder()));
+    }
+
+    /**
+     * Pending tasks due before today, earliest first, with the occurrences of recurring tasks
+     * missed in the last RecurrenceIndex.OPEN_START_DAYS days.
+     */
+    public List<Task> findOverdue() {
+        LocalDate today = LocalDate.now();
+        return measured(TaskMetrics.Op.OVERDUE, TaskFilter.overdue(today), () -> mergeDue(tasksAt(dueDateIndex.overdue(today)),
+            recurrenceIndex.occurrences(null, today.minusDays(1), today, TaskQuery.NO_LIMIT), TaskQuery.NO_LIMIT));
+    }
+
+    /** Tasks due in [from, to], occurrences of recurring tasks included; see RecurrenceIndex for open ends. */
+    public List<Task> findDueBetween(LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        return measured(TaskMetrics.Op.DUE_BETWEEN, TaskFilter.all().withDueBetween(from, to),
+            () -> mergeDue(tasksAt(dueDateIndex.dueBetween(from, to, null)),
+                recurrenceIndex.occurrences(from, to, today, TaskQuery.NO_LIMIT), TaskQuery.NO_LIMIT));
+    }
+
+    public List<Task> nextDue(int limit) {
+        LocalDate today = LocalDate.now();
+        return measured(TaskMetrics.Op.NEXT_DUE, TaskFilter.all().withDone(false).withDueBetween(today, null),
+            () -> mergeDue(tasksAt(dueDateIndex.nextDue(today, limit).iterator()),
+                recurrenceIndex.occurrences(today, null, today, limit), limit));
+    }
+
+    // Stored tasks in DueDateIndex order with generated occurrences, already in that order, merged in
+    private List<Task> mergeDue(List<Task> stored, List<Task> generated, int limit) {
+        return merge(stored, generated, resultOrder(TaskQuery.Sort.DUE_DATE), limit);
     }
 
     public void sortByDueDate() {
-        tasks.sort(Comparator.comparing(Task::getDueDate));
+        List<Task> sorted = tasksByDueDate();
         System.out.println("Tasks sorted by due date:");
-        viewTasks();
+        sorted.forEach(this::printTask);
+        if (sorted.isEmpty()) {
+            System.out.println("No tasks found.");
+        }
     }
 
     public void viewTasks() {
-        if (tasks.isEmpty()) {
+        List<Task> current = getTasks();
+        if (current.isEmpty()) {
             System.out.println("No tasks found.");
             return;
         }
 
-        for (int i = 0; i < tasks.size(); i++) {
-            System.out.println((i + 1) + ". " + tasks.get(i));
+        for (Task task : current) {
+            printTask(task);
         }
     }
 
     public void sortByPriority() {
-        tasks.sort(Comparator.comparing(Task::getPriority));
-        System.out.println("Tasks sorted by priority:");
-        viewTasks();
+        measuredPrint(TaskMetrics.Op.SORT_BY_PRIORITY, () -> {
+            System.out.println("Tasks sorted by priority:");
+            if (printSlots(statusPriorityIndex.inPriorityOrder()) == 0) {
+                System.out.println("No tasks found.");
+            }
+        });
     }
 
     public void showOverdueTasks() {
-        boolean found = false;
         LocalDate today = LocalDate.now();
-
+        TaskQuery query = TaskQuery.overdue(today);
+        List<Task> overdue = measured(TaskMetrics.Op.OVERDUE, query.getFilter(), () -> runQuery(query));
         System.out.println("📌 Overdue Tasks (Due before " + today + "):");
-
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            if (!task.isDone() && task.getDueDate().isBefore(today)) {
-                System.out.println((i + 1) + ". " + task);
-                found = true;
-            }
-        }
-
-        if (!found) {
+        overdue.forEach(this::printTask);
+        if (overdue.isEmpty()) {
             System.out.println("🎉 No overdue tasks. You're on track!");
         }
     }
     private final DatabaseHelper dbHelper = new DatabaseHelper();
-    private static final String DB_URL = "jdbc:sqlite:tasks.db";
     // Initialize the DB (call this from constructor or main)
     public void initDatabase() {
-        try (Connection conn = DriverManager.getConnection(DB_URL);
-             Statement stmt = conn.createStatement()) {
-            String sql = """
-                CREATE TABLE IF NOT EXISTS tasks (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    title TEXT,
-                    description TEXT,
-                    isDone INTEGER,
-                    dueDate TEXT,
-                    priority TEXT
-                );
-            """;
-            stmt.execute(sql);
+        try {
+            DatabaseConnection.getInstance();
         } catch (SQLException e) {
             System.err.println("⚠️ Error initializing DB: " + e.getMessage());
         }
     }
-    public void saveToDatabase() {
-        dbHelper.saveTasks(tasks);
+    /**
+     * Writes the changes since the last save. The change set is collected under the lock,
+     * but the database I/O runs outside it, so other threads can keep editing meanwhile;
+     * anything they change is picked up by the next save.
+     * Returns false if the save failed or was cancelled by interrupting the saving thread.
+     */
+    public boolean saveToDatabase() {
+        ensureShards(ALL_SHARDS);
+        long started = TaskMetrics.start();
+        saveLock.lock();
+        try {
+            List<Task> inserted = new ArrayList<>();
+            List<Task> updated = new ArrayList<>();
+            List<Task> deleted = new ArrayList<>();
+            boolean[] clearTable = new boolean[1];
+            long[] generation = new long[1];
+
+            write(() -> {
+                clearTable[0] = replaceDatabaseOnSave;
+                generation[0] = listGeneration;
+                for (Task task : currentTasks()) {
+                    SyncState state = task.getSyncState();
+                    if (clearTable[0] || state == SyncState.NEW || task.getId() == 0) {
+                        inserted.add(task);
+                    } else if (state == SyncState.DIRTY) {
+                        updated.add(task);
+                    } else {
+                        continue;
+                    }
+                    // Marked clean up front: an edit during the save makes it dirty again
+                    task.markClean();
+                }
+                if (!clearTable[0]) {
+                    deleted.addAll(deletedTasks);
+                }
+                deletedTasks.clear();
+                replaceDatabaseOnSave = false;
+            });
+
+            boolean saved = dbHelper.saveTasks(inserted, updated, deleted, clearTable[0]);
+
+            write(() -> {
+                boolean sameList = generation[0] == listGeneration;
+                if (!saved) {
+                    // Put the change set back so the next save retries it
+                    for (Task task : inserted) {
+                        task.markNew();
+                    }
+                    for (Task task : updated) {
+                        task.markDirtyForSave();
+                    }
+                    if (sameList) {
+                        deletedTasks.addAll(deleted);
+                        replaceDatabaseOnSave |= clearTable[0];
+                    }
+                    return;
+                }
+                // Rows inserted for tasks that were deleted while the save ran must go next time
+                for (Task task : inserted) {
+                    if (sameList && task.getSyncState() == SyncState.DELETED && task.getId() != 0
+                        && !deletedTasks.contains(task)) {
+                        deletedTasks.add(task);
+                    }
+                }
+            });
+            if (saved) {
+                TaskMetrics.stop(TaskMetrics.Op.SAVE_DATABASE, started, inserted.size() + updated.size() + deleted.size());
+            } else {
+                TaskMetrics.failed(TaskMetrics.Op.SAVE_DATABASE, started);
+            }
+            return saved;
+        } finally {
+            saveLock.unlock();
+        }
     }
 
     public void loadFromDatabase() {
-        tasks = dbHelper.loadTasks();
+        loadFromDatabase(TaskLoadListener.NONE);
+    }
+
+    /**
+     * Loads with progress reporting; returns false, keeping the current tasks, if cancelled
+     * or if the database could not be read.
+     */
+    public boolean loadFromDatabase(TaskLoadListener listener) {
+        long started = TaskMetrics.start();
+        LoadTracker tracker = new LoadTracker(listener, dbHelper.countTasks());
+        try {
+            if (!dbHelper.loadTasks(tracker)) {
+                // A half-read table would otherwise replace the list and be saved back over it
+                System.err.println("⚠️ Failed to load tasks from the database; keeping the current list");
+                return false;
+            }
+        } catch (CancellationException e) {
+            return false;
+        }
+        List<Task> loaded = tracker.finish();
+        if (loaded == null) {
+            return false;
+        }
+        write(() -> {
+            deletedTasks.clear();
+            replaceDatabaseOnSave = false;
+            replaceTasks(loaded);
+            compactJournalAfterReplace();
+        });
+        TaskMetrics.stop(TaskMetrics.Op.LOAD_DATABASE, started, loaded.size());
+        return true;
+    }
+
+    /**
+     * One page of the tasks stored in the database that match the filter, without loading
+     * the rest; pass the previous page's cursor to continue. Reflects the last save, not
+     * unsaved edits. Returns null if the query failed.
+     */
+    public TaskPage queryDatabase(TaskFilter filter, TaskPage.Cursor after, int pageSize) {
+        return dbHelper.queryTasks(filter, after, pageSize);
+    }
+
+    public long countInDatabase(TaskFilter filter) {
+        return dbHelper.countTasks(filter);
+    }
+
+    /**
+     * Ranked full-text search over the tasks stored in the database, answered from its FTS
+     * index without loading anything; see DatabaseHelper.searchTasks. Returns null if the
+     * query failed.
+     */
+    public List<TaskSearchHit> searchDatabase(String text, boolean prefix, int limit) {
+        return dbHelper.searchTasks(text, prefix, limit);
     }
-    
 }
@@ -0,0 +1,165 @@
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded stress check for TaskManager: writer threads add, complete, edit through
+ * setters and delete tasks while reader threads take snapshots, search and count. Tasks
+ * are completed by an edit that also renames them, and readers check on copyOf copies
+ * that no task is ever seen with only one of the two changes; they also verify that a
+ * snapshot never changes under them. At the end every index and the running statistics
+ * are checked against a recount of the final list. Exits with status 1 if any check fails.
+ *
+ * Usage: java TaskManagerStress [seconds] [writers] [readers]   (default 5 4 4)
+ */
+public class TaskManagerStress {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        TaskManager manager = new TaskManager();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicLong writes = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers + readers);
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            pool.submit(() -> {
+                Random random = new Random(writer);
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    int op = random.nextInt(10);
+                    if (op < 5) {
+                        manager.addTask(new Task("stress w" + writer + " #" + n++, "load test",
+                            LocalDate.now().plusDays(random.nextInt(60) - 30),
+                            Priority.values()[random.nextInt(Priority.values().length)]));
+                    } else {
+                        List<Task> current = manager.getTasks();
+                        if (!current.isEmpty()) {
+                            Task task = current.get(random.nextInt(current.size()));
+                            if (op < 7) {
+                                Map<TaskField, Object> changes = new EnumMap<>(TaskField.class);
+                                changes.put(TaskField.TITLE, task.getTitle().replace(DONE_SUFFIX, "") + DONE_SUFFIX);
+                                changes.put(TaskField.DONE, true);
+                                manager.editTask(task.getId(), changes);
+                            } else if (op < 8) {
+                                // Setters on a held task race each other and the other writers
+                                task.setPriority(Priority.values()[random.nextInt(Priority.values().length)]);
+                            } else if (op < 9) {
+                                task.setDueDate(LocalDate.now().plusDays(random.nextInt(60) - 30));
+                            } else {
+                                manager.deleteTask(task);
+                            }
+                        }
+                    }
+                    writes.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        for (int r = 0; r < readers; r++) {
+            pool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        List<Task> snapshot = manager.getTasks();
+                        int size = snapshot.size();
+                        for (Task task : snapshot) {
+                            if (task == null) {
+                                fail(failures, "snapshot contains null");
+                            }
+                        }
+                        if (snapshot.size() != size) {
+                            fail(failures, "snapshot changed while being read");
+                        }
+                        if (size > 0) {
+                            int from = random(size);
+                            for (Task copy : manager.copyOf(snapshot.subList(from, Math.min(size, from + 64)))) {
+                                if (copy.getTitle().endsWith(DONE_SUFFIX) != copy.isDone()) {
+                                    fail(failures, "copy shows half of an edit: " + copy);
+                                }
+                            }
+                        }
+                        manager.findByKeyword("stress");
+                        manager.findTasks(false, Priority.HIGH);
+                        manager.findOverdue();
+                        manager.countTasks(null, null);
+                        reads.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        fail(failures, "reader threw " + e);
+                    }
+                }
+                return null;
+            });
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(seconds + 30L, TimeUnit.SECONDS)) {
+            fail(failures, "threads did not finish");
+        }
+
+        // Quiescent checks: every index must agree with the final list
+        List<Task> tasks = manager.getTasks();
+        long done = tasks.stream().filter(Task::isDone).count();
+        check(failures, manager.countTasks(null, null) == tasks.size(), "total count");
+        check(failures, manager.countTasks(true, null) == done, "done count");
+        check(failures, manager.findTasks(true, null).size() == done, "done bitset");
+        check(failures, manager.findByKeyword("stress").size() == tasks.size(), "keyword index");
+        check(failures, manager.tasksByDueDate().size() == tasks.size(), "due-date index");
+        for (Priority priority : Priority.values()) {
+            for (boolean isDone : new boolean[] {false, true}) {
+                long expected = tasks.stream().filter(t -> t.getPriority() == priority && t.isDone() == isDone).count();
+                check(failures, manager.countTasks(isDone, priority) == expected, priority + " count");
+                check(failures, manager.findTasks(isDone, priority).size() == expected, priority + " bitset");
+            }
+        }
+        LocalDate today = LocalDate.now();
+        long overdue = tasks.stream().filter(t -> !t.isDone() && t.getDueDate().isBefore(today)).count();
+        check(failures, manager.findOverdue().size() == overdue, "overdue index");
+        check(failures, tasks.stream().allMatch(t -> t.getTitle().endsWith(DONE_SUFFIX) == t.isDone()), "done titles");
+        TaskStatistics.Summary summary = manager.statistics();
+        check(failures, summary.getOverdue() == overdue, "overdue statistic");
+        check(failures, summary.getDone() == done, "done statistic");
+        for (Priority priority : Priority.values()) {
+            for (boolean isDone : new boolean[] {false, true}) {
+                long expected = tasks.stream().filter(t -> t.getPriority() == priority && t.isDone() == isDone).count();
+                check(failures, summary.count(isDone, priority) == expected, priority + " statistic");
+            }
+        }
+        long dueToday = tasks.stream().filter(t -> !t.isDone() && t.getDueDate().equals(today)).count();
+        long dueThisWeek = tasks.stream()
+            .filter(t -> !t.isDone() && !t.getDueDate().isBefore(today) && t.getDueDate().isBefore(today.plusDays(7)))
+            .count();
+        check(failures, summary.getDueToday() == dueToday, "due-today statistic");
+        check(failures, summary.getDueThisWeek() == dueThisWeek, "due-this-week statistic");
+
+        System.out.printf("%d writes, %d read rounds, %d tasks left, %d failures%n",
+            writes.get(), reads.get(), tasks.size(), failures.get());
+        System.exit(failures.get() == 0 ? 0 : 1);
+    }
+
+    private static final String DONE_SUFFIX = " (done)";
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    private static void check(AtomicInteger failures, boolean ok, String what) {
+        if (!ok) {
+            fail(failures, what + " does not match the task list");
+        }
+    }
+
+    private static void fail(AtomicInteger failures, String message) {
+        if (failures.incrementAndGet() <= 10) {
+            System.err.println("FAIL: " + message);
+        }
+    }
+}
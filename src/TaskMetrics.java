@@ -0,0 +1,279 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+/**
+ * Counters, latency histograms and sizes (rows, bytes) for TaskManager operations and
+ * persistence calls. Call sites take a start time and report it back:
+ *
+ *     long started = TaskMetrics.start();
+ *     ...
+ *     TaskMetrics.stop(TaskMetrics.Op.SEARCH, started, matches.length);
+ *
+ * When metrics are disabled start() returns 0 and stop() returns at once, so the hot
+ * path costs one volatile read and allocates nothing. Enable with -Dtaskmanager.metrics=true
+ * or through JMX; -Dtaskmanager.metrics.dumpSeconds=N also prints a table to stderr every
+ * N seconds.
+ */
+public final class TaskMetrics {
+
+    /** Measured operations. */
+    public enum Op {
+        ADD, DELETE, MARK_DONE, EDIT,
+        SEARCH, FILTER, QUERY, COUNT, STATISTICS, SORT_BY_DUE_DATE, SORT_BY_PRIORITY, OVERDUE, DUE_BETWEEN, NEXT_DUE,
+        REBUILD_INDEXES,
+        SAVE_FILE, LOAD_FILE, SAVE_DATABASE, LOAD_DATABASE, IMPORT, EXPORT,
+        DB_WRITE, DB_READ,
+        JOURNAL_COMMIT, JOURNAL_COMPACT
+    }
+
+    private static final String OBJECT_NAME = "taskmanager:type=TaskMetrics";
+
+    private static volatile boolean enabled = Boolean.getBoolean("taskmanager.metrics");
+
+    private static final Map<Op, Stats> STATS = new EnumMap<>(Op.class);
+
+    static {
+        for (Op op : Op.values()) {
+            STATS.put(op, new Stats());
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not register the metrics MBean: " + e.getMessage());
+        }
+        long dumpSeconds = Long.getLong("taskmanager.metrics.dumpSeconds", 0);
+        if (dumpSeconds > 0) {
+            startDump(dumpSeconds);
+        }
+    }
+
+    private TaskMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /** Start time for stop(), or 0 when disabled. */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void stop(Op op, long started) {
+        if (started != 0) {
+            STATS.get(op).record(System.nanoTime() - started, 0, 0);
+        }
+    }
+
+    /** items is rows or tasks handled, e.g. matches returned or rows written. */
+    public static void stop(Op op, long started, long items) {
+        if (started != 0) {
+            STATS.get(op).record(System.nanoTime() - started, items, 0);
+        }
+    }
+
+    public static void stop(Op op, long started, long items, long bytes) {
+        if (started != 0) {
+            STATS.get(op).record(System.nanoTime() - started, items, bytes);
+        }
+    }
+
+    /** Like stop, with the size of the file read or written as the byte count. */
+    public static void stop(Op op, long started, long items, Path file) {
+        if (started != 0) {
+            long bytes;
+            try {
+                bytes = Files.size(file);
+            } catch (IOException e) {
+                bytes = 0;
+            }
+            STATS.get(op).record(System.nanoTime() - started, items, bytes);
+        }
+    }
+
+    /** Counts a failed attempt; its latency is not recorded. */
+    public static void failed(Op op, long started) {
+        if (started != 0) {
+            STATS.get(op).errors.incrementAndGet();
+        }
+    }
+
+    public static List<OperationStats> snapshot() {
+        List<OperationStats> result = new ArrayList<>();
+        for (Map.Entry<Op, Stats> entry : STATS.entrySet()) {
+            Stats stats = entry.getValue();
+            if (stats.latency.getCount() > 0 || stats.errors.get() > 0) {
+                result.add(new OperationStats(entry.getKey().name(), stats));
+            }
+        }
+        return result;
+    }
+
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-18s %10s %7s %10s %10s %10s %10s %10s %12s %12s%n",
+            "operation", "count", "errors", "mean us", "p50 us", "p99 us", "p99.9 us", "max us", "items", "bytes"));
+        for (OperationStats stats : snapshot()) {
+            out.append(String.format("%-18s %10d %7d %10.1f %10.1f %10.1f %10.1f %10.1f %12d %12d%n",
+                stats.getName(), stats.getCount(), stats.getErrors(), stats.getMeanMicros(), stats.getP50Micros(),
+                stats.getP99Micros(), stats.getP999Micros(), stats.getMaxMicros(), stats.getItems(), stats.getBytes()));
+        }
+        return out.toString();
+    }
+
+    public static void reset() {
+        for (Stats stats : STATS.values()) {
+            stats.reset();
+        }
+    }
+
+    private static void startDump(long periodSeconds) {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> System.err.print(dump()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong items = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+
+        void record(long nanos, long itemCount, long byteCount) {
+            latency.record(nanos);
+            if (itemCount != 0) {
+                items.addAndGet(itemCount);
+            }
+            if (byteCount != 0) {
+                bytes.addAndGet(byteCount);
+            }
+        }
+
+        void reset() {
+            latency.reset();
+            errors.set(0);
+            items.set(0);
+            bytes.set(0);
+        }
+    }
+
+    /** Point-in-time figures for one operation; exposed over JMX as composite data. */
+    public static final class OperationStats {
+        private final String name;
+        private final long count;
+        private final long errors;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p90Micros;
+        private final double p99Micros;
+        private final double p999Micros;
+        private final double maxMicros;
+        private final long items;
+        private final long bytes;
+
+        private OperationStats(String name, Stats stats) {
+            LatencyHistogram latency = stats.latency;
+            this.name = name;
+            this.count = latency.getCount();
+            this.errors = stats.errors.get();
+            this.meanMicros = count == 0 ? 0 : latency.getTotalNanos() / 1000.0 / count;
+            this.p50Micros = latency.percentile(50) / 1000.0;
+            this.p90Micros = latency.percentile(90) / 1000.0;
+            this.p99Micros = latency.percentile(99) / 1000.0;
+            this.p999Micros = latency.percentile(99.9) / 1000.0;
+            this.maxMicros = latency.getMaxNanos() / 1000.0;
+            this.items = stats.items.get();
+            this.bytes = stats.bytes.get();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP90Micros() {
+            return p90Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getP999Micros() {
+            return p999Micros;
+        }
+
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    private static final class Bean implements TaskMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return TaskMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            TaskMetrics.setEnabled(on);
+        }
+
+        @Override
+        public List<OperationStats> getOperations() {
+            return snapshot();
+        }
+
+        @Override
+        public String dump() {
+            return TaskMetrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            TaskMetrics.reset();
+        }
+    }
+}
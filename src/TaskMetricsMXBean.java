@@ -0,0 +1,21 @@
+import java.util.List;
+
+/**
+ * JMX view of TaskMetrics, registered as taskmanager:type=TaskMetrics. Latencies are
+ * in microseconds.
+ */
+public interface TaskMetricsMXBean {
+
+    boolean isEnabled();
+
+    /** Turns recording on or off at runtime; while off nothing is measured. */
+    void setEnabled(boolean enabled);
+
+    /** One entry per operation that has been recorded at least once. */
+    List<TaskMetrics.OperationStats> getOperations();
+
+    /** The same figures as a text table, as printed by the periodic dump. */
+    String dump();
+
+    void reset();
+}
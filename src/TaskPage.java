@@ -0,0 +1,56 @@
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated database query. The cursor remembers the sort key of
+ * the last row, so fetching the next page costs the same however deep into the result
+ * it is, and rows inserted or deleted meanwhile never shift a page.
+ */
+public final class TaskPage {
+
+    /** Position after the last row of a page, for one filter and its order. */
+    public static final class Cursor {
+        private final TaskFilter filter;
+        private final long lastId;
+        private final Long lastDueDay;
+
+        Cursor(TaskFilter filter, long lastId, Long lastDueDay) {
+            this.filter = filter;
+            this.lastId = lastId;
+            this.lastDueDay = lastDueDay;
+        }
+
+        TaskFilter getFilter() {
+            return filter;
+        }
+
+        long getLastId() {
+            return lastId;
+        }
+
+        /** Epoch day of the last row, or null if it had no due date. */
+        Long getLastDueDay() {
+            return lastDueDay;
+        }
+    }
+
+    private final List<Task> tasks;
+    private final Cursor next;
+
+    TaskPage(List<Task> tasks, Cursor next) {
+        this.tasks = List.copyOf(tasks);
+        this.next = next;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    /** Cursor for the following page, or null if this is the last one. */
+    public Cursor getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,146 @@
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Immutable in-memory query: a keyword, the status, priority and due-date conditions of a
+ * TaskFilter, a sort order and a limit. Unset conditions match everything; TaskManager.query
+ * runs it against the indexes and returns the matching tasks.
+ */
+public final class TaskQuery {
+
+    /** Result order; ties are always broken by list order, so results are deterministic. */
+    public enum Sort {
+        LIST_ORDER(null),
+        /** Due date, then priority (HIGH first); tasks without a due date come last. */
+        DUE_DATE(Comparator.comparing(Task::getDueDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
+            .thenComparing(Task::getPriority, Comparator.nullsLast(Comparator.<Priority>reverseOrder()))),
+        /** LOW to HIGH, tasks without a priority last, like TaskManager.tasksByPriority. */
+        PRIORITY(Comparator.comparing(Task::getPriority, Comparator.nullsLast(Comparator.<Priority>naturalOrder()))),
+        /** Title, ignoring case. */
+        TITLE(Comparator.comparing(Task::getTitle, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
+        private final Comparator<Task> order;
+
+        Sort(Comparator<Task> order) {
+            this.order = order;
+        }
+
+        /** The task order, or null for LIST_ORDER. */
+        Comparator<Task> comparator() {
+            return order;
+        }
+    }
+
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private static final TaskQuery ALL = new TaskQuery(null, TaskFilter.all(), Sort.LIST_ORDER, NO_LIMIT);
+
+    private final String keyword;
+    private final TaskFilter filter;
+    private final Sort sort;
+    private final int limit;
+
+    private TaskQuery(String keyword, TaskFilter filter, Sort sort, int limit) {
+        this.keyword = keyword;
+        this.filter = filter;
+        this.sort = Objects.requireNonNull(sort);
+        this.limit = limit;
+    }
+
+    public static TaskQuery all() {
+        return ALL;
+    }
+
+    /** Undone tasks due before today, earliest first. */
+    public static TaskQuery overdue(LocalDate today) {
+        return ALL.withDone(false).withDueBetween(null, today.minusDays(1)).sortedBy(Sort.DUE_DATE);
+    }
+
+    /** Tasks whose title or description contains the keyword, ignoring case; null or blank matches all. */
+    public TaskQuery withKeyword(String keyword) {
+        String trimmed = keyword == null || keyword.isBlank() ? null : keyword.trim();
+        return new TaskQuery(trimmed, filter, sort, limit);
+    }
+
+    /** Only done or only undone tasks; null matches both. */
+    public TaskQuery withDone(Boolean done) {
+        return new TaskQuery(keyword, filter.withDone(done), sort, limit);
+    }
+
+    public TaskQuery withPriority(Priority priority) {
+        return new TaskQuery(keyword, filter.withPriority(priority), sort, limit);
+    }
+
+    /** Tasks due between the two dates, both inclusive; a null bound is open. */
+    public TaskQuery withDueBetween(LocalDate from, LocalDate to) {
+        return new TaskQuery(keyword, filter.withDueBetween(from, to), sort, limit);
+    }
+
+    public TaskQuery sortedBy(Sort sort) {
+        return new TaskQuery(keyword, filter, sort, limit);
+    }
+
+    /** At most limit tasks, the first ones in sort order. */
+    public TaskQuery limitedTo(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Negative limit: " + limit);
+        }
+        return new TaskQuery(keyword, filter, sort, limit);
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    /** The status, priority and due-date conditions; its order is not used. */
+    public TaskFilter getFilter() {
+        return filter;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /** Whether the task meets every condition; the sort and limit play no part. */
+    public boolean matches(Task task) {
+        if (!filter.matches(task)) {
+            return false;
+        }
+        if (keyword == null) {
+            return true;
+        }
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        return task.getTitle().toLowerCase(Locale.ROOT).contains(lower)
+            || (task.getDescription() != null && task.getDescription().toLowerCase(Locale.ROOT).contains(lower));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TaskQuery other)) {
+            return false;
+        }
+        return Objects.equals(keyword, other.keyword) && filter.equals(other.filter)
+            && sort == other.sort && limit == other.limit;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(keyword, filter, sort, limit);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskQuery[keyword=" + keyword + ", done=" + filter.getDone() + ", priority=" + filter.getPriority()
+            + ", due=" + filter.getDueFrom() + ".." + filter.getDueTo() + ", sort=" + sort
+            + (limit == NO_LIMIT ? "" : ", limit=" + limit) + "]";
+    }
+}
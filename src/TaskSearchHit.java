@@ -0,0 +1,34 @@
+/**
+ * One full-text match from the database: the task, its relevance and a snippet of the
+ * matching text with the matched terms wrapped in the highlight markers.
+ */
+public final class TaskSearchHit {
+
+    private final Task task;
+    private final double score;
+    private final String snippet;
+
+    TaskSearchHit(Task task, double score, String snippet) {
+        this.task = task;
+        this.score = score;
+        this.snippet = snippet;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    /** BM25 relevance with title matches weighted above description ones; higher is better. */
+    public double getScore() {
+        return score;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    @Override
+    public String toString() {
+        return task.getId() + ". " + snippet;
+    }
+}
@@ -0,0 +1,400 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP/JSON API over one TaskManager, so several tools can read and update the same
+ * tasks at once. Every request runs on its own virtual thread and TaskManager's lock keeps
+ * them consistent. Responses are encoded from copies taken under the read lock, so a task
+ * is never sent half-edited while another request changes it; connections are kept alive
+ * between requests.
+ *
+ *   GET    /tasks                   a page of tasks in list order
+ *   GET    /tasks?keyword=..&done=..&priority=..&dueFrom=..&dueTo=..&sort=..
+ *                                   a page of the matching tasks (see TaskQuery)
+ *   GET    /tasks/{id}
+ *   POST   /tasks                   body: a task; answers 201 with the stored task
+ *   PATCH  /tasks/{id}              body: only the fields to change (PUT works the same)
+ *   PATCH  /tasks/{id}?occurrence=yyyy-mm-dd
+ *                                   the same for one occurrence of a recurring task
+ *   DELETE /tasks/{id}
+ *
+ * Pages take offset and limit (default 100, at most 1000) and look like
+ * {"tasks": [...], "next": 100}; next is the offset of the following page and is left
+ * out on the last one. Errors are {"error": "..."} with a 4xx or 5xx status. Queries with
+ * dueFrom or dueTo include the occurrences of recurring tasks in that range; those have no
+ * id, only seriesId and occurrenceDate.
+ *
+ * Usage: java TaskServer [--port 8080] [--file tasks.txt] [--binary]
+ */
+public class TaskServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final Set<String> QUERY_PARAMS = Set.of("keyword", "done", "priority", "dueFrom", "dueTo", "sort");
+
+    // A request the client got wrong, answered with its status and message
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void write(JsonWriter out) throws IOException;
+    }
+
+    private final TaskManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final TaskJsonCodec codec = new TaskJsonCodec(true);
+
+    /** Port 0 picks a free one; see getPort(). */
+    public TaskServer(TaskManager manager, InetSocketAddress address) throws IOException {
+        this.manager = manager;
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/tasks", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Stops accepting connections and gives requests in flight up to delaySeconds to finish. */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // --- Routing ---
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String rest = exchange.getRequestURI().getPath().substring("/tasks".length());
+            String method = exchange.getRequestMethod();
+            if (rest.isEmpty() || rest.equals("/")) {
+                switch (method) {
+                    case "GET" -> listTasks(exchange);
+                    case "POST" -> addTask(exchange);
+                    default -> throw new HttpError(405, method + " is not supported on /tasks");
+                }
+            } else if (rest.startsWith("/")) {
+                long id = parseId(rest.substring(1));
+                switch (method) {
+                    case "GET" -> getTask(exchange, id);
+                    case "PATCH", "PUT" -> editTask(exchange, id);
+                    case "DELETE" -> deleteTask(exchange, id);
+                    default -> throw new HttpError(405, method + " is not supported on /tasks/{id}");
+                }
+            } else {
+                throw new HttpError(404, "No such resource");
+            }
+        } catch (HttpError e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // --- Handlers ---
+    private void listTasks(HttpExchange exchange) throws IOException {
+        Map<String, String> params = params(exchange.getRequestURI());
+        int offset = intParam(params, "offset", 0, 0, Integer.MAX_VALUE);
+        int limit = intParam(params, "limit", DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE);
+
+        // One task past the page tells whether there is another page
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit + 1);
+        List<Task> page;
+        if (Collections.disjoint(params.keySet(), QUERY_PARAMS)) {
+            page = manager.getTasks(offset, limit + 1);
+        } else {
+            List<Task> found = manager.query(queryFrom(params).limitedTo(wanted));
+            page = found.subList(Math.min(offset, found.size()), found.size());
+        }
+        boolean more = page.size() > limit;
+        List<Task> tasks = manager.copyOf(more ? page.subList(0, limit) : page);
+
+        sendJson(exchange, 200, out -> {
+            out.beginObject();
+            out.name("tasks").beginArray();
+            for (Task task : tasks) {
+                codec.write(out, task);
+            }
+            out.endArray();
+            if (more) {
+                out.name("next").value(offset + limit);
+            }
+            out.endObject();
+        });
+    }
+
+    private void getTask(HttpExchange exchange, long id) throws IOException {
+        sendTask(exchange, 200, found(manager.getTask(id), id));
+    }
+
+    private void addTask(HttpExchange exchange) throws IOException {
+        Task task = readBody(exchange, codec::read);
+        if (task == null || task.getTitle() == null || task.getTitle().isBlank()) {
+            throw new HttpError(400, "A task needs a title");
+        }
+        task.setId(0);
+        manager.addTask(task);
+        exchange.getResponseHeaders().set("Location", "/tasks/" + task.getId());
+        sendTask(exchange, 201, task);
+    }
+
+    // ?occurrence=yyyy-mm-dd edits that occurrence of a recurring task instead of the series
+    private void editTask(HttpExchange exchange, long id) throws IOException {
+        String occurrence = params(exchange.getRequestURI()).get("occurrence");
+        Map<TaskField, Object> changes = readBody(exchange, TaskServer::readChanges);
+        if (occurrence == null) {
+            sendTask(exchange, 200, found(manager.editTask(id, changes), id));
+            return;
+        }
+        LocalDate date;
+        try {
+            date = LocalDate.parse(occurrence);
+        } catch (DateTimeParseException e) {
+            throw new HttpError(400, "occurrence must be yyyy-mm-dd");
+        }
+        Task edited = manager.editOccurrence(id, date, changes);
+        if (edited == null) {
+            throw new HttpError(404, "Task " + id + " has no occurrence on " + date);
+        }
+        sendTask(exchange, 200, edited);
+    }
+
+    private void deleteTask(HttpExchange exchange, long id) throws IOException {
+        if (!manager.deleteTask(id)) {
+            throw new HttpError(404, "No task with id " + id);
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    // --- Requests ---
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(JsonReader in) throws IOException;
+    }
+
+    private static <T> T readBody(HttpExchange exchange, BodyReader<T> reader) {
+        try (JsonReader in = new JsonReader(new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), BUFFER_SIZE))) {
+            return reader.read(in);
+        } catch (IOException | IllegalStateException | IllegalArgumentException | DateTimeParseException e) {
+            throw new HttpError(400, "Bad request body: " + e.getMessage());
+        }
+    }
+
+    // The fields of a PATCH body, with the value types TaskManager.editTask expects
+    private static Map<TaskField, Object> readChanges(JsonReader in) throws IOException {
+        Map<TaskField, Object> changes = new EnumMap<>(TaskField.class);
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            boolean isNull = in.peek() == JsonToken.NULL;
+            if (isNull) {
+                in.nextNull();
+            }
+            switch (name) {
+                case "title" -> {
+                    String title = isNull ? null : in.nextString();
+                    if (title == null || title.isBlank()) {
+                        throw new HttpError(400, "A task needs a title");
+                    }
+                    changes.put(TaskField.TITLE, title);
+                }
+                case "description" -> changes.put(TaskField.DESCRIPTION, isNull ? null : in.nextString());
+                case "isDone" -> {
+                    if (isNull) {
+                        throw new HttpError(400, "isDone cannot be null");
+                    }
+                    changes.put(TaskField.DONE, in.nextBoolean());
+                }
+                case "dueDate" -> changes.put(TaskField.DUE_DATE, isNull ? null : LocalDate.parse(in.nextString()));
+                case "priority" -> changes.put(TaskField.PRIORITY, isNull ? null : Priority.valueOf(in.nextString()));
+                case "recurrence" -> changes.put(TaskField.RECURRENCE, isNull ? null : Recurrence.parse(in.nextString()));
+                case "id", "seriesId", "occurrenceDate" -> {
+                    // These never change; echoing them back is harmless
+                    if (!isNull) {
+                        in.skipValue();
+                    }
+                }
+                default -> throw new HttpError(400, "Unknown field: " + name);
+            }
+        }
+        in.endObject();
+        return changes;
+    }
+
+    private static Map<String, String> params(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static TaskQuery queryFrom(Map<String, String> params) {
+        try {
+            TaskQuery query = TaskQuery.all().withKeyword(params.get("keyword"));
+            String done = params.get("done");
+            if (done != null && !done.isEmpty()) {
+                if (!done.equals("true") && !done.equals("false")) {
+                    throw new IllegalArgumentException("done must be true or false");
+                }
+                query = query.withDone(Boolean.parseBoolean(done));
+            }
+            String priority = params.get("priority");
+            if (priority != null && !priority.isEmpty()) {
+                query = query.withPriority(Priority.valueOf(priority.toUpperCase(Locale.ROOT)));
+            }
+            LocalDate from = dateParam(params, "dueFrom");
+            LocalDate to = dateParam(params, "dueTo");
+            if (from != null || to != null) {
+                query = query.withDueBetween(from, to);
+            }
+            String sort = params.get("sort");
+            if (sort != null && !sort.isEmpty()) {
+                query = query.sortedBy(TaskQuery.Sort.valueOf(sort.toUpperCase(Locale.ROOT)));
+            }
+            return query;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new HttpError(400, "Bad query: " + e.getMessage());
+        }
+    }
+
+    private static LocalDate dateParam(Map<String, String> params, String name) {
+        String value = params.get(name);
+        return value == null || value.isEmpty() ? null : LocalDate.parse(value);
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue, int min, int max) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < min || parsed > max) {
+                throw new HttpError(400, name + " must be between " + min + " and " + max);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, name + " must be a number");
+        }
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "No such resource");
+        }
+    }
+
+    private static Task found(Task task, long id) {
+        if (task == null) {
+            throw new HttpError(404, "No task with id " + id);
+        }
+        return task;
+    }
+
+    // --- Responses ---
+    private void sendTask(HttpExchange exchange, int status, Task task) throws IOException {
+        Task copy = manager.copyOf(List.of(task)).get(0);
+        sendJson(exchange, status, out -> codec.write(out, copy));
+    }
+
+    // Streams the body with chunked encoding, so a page is never built up in memory first
+    private static void sendJson(HttpExchange exchange, int status, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        JsonWriter out = new JsonWriter(new BufferedWriter(
+            new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER_SIZE));
+        out.setSerializeNulls(false);
+        body.write(out);
+        out.flush();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            sendJson(exchange, status, out -> out.beginObject().name("error").value(message).endObject());
+        } catch (IOException | IllegalStateException e) {
+            // The client is gone or the response had already started; nothing more to say
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        String file = "tasks.txt";
+        boolean binary = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--file" -> file = args[++i];
+                case "--binary" -> binary = true;
+                default -> {
+                    System.out.println("Usage: java TaskServer [--port 8080] [--file tasks.txt] [--binary]");
+                    return;
+                }
+            }
+        }
+        // Small keep-alive responses would otherwise wait on Nagle's algorithm
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        TaskManager manager = new TaskManager();
+        // Only --binary turns a JSON file into a snapshot on shutdown
+        manager.setBinarySnapshots(binary);
+        manager.loadWithJournal(file);
+        TaskServer server = new TaskServer(manager, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        String saveFile = file;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            manager.saveToFile(saveFile);
+            manager.closeJournal();
+        }));
+        server.start();
+        System.out.println("Serving " + manager.getTasks().size() + " tasks on http://localhost:"
+            + server.getPort() + "/tasks (Ctrl+C to save and stop)");
+    }
+}
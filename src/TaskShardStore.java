@@ -0,0 +1,505 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A task list stored as a directory of shards, one file per key of a ShardScheme, listed
+ * in manifest.json together with each shard's counts, id and due-date ranges:
+ *
+ *   {"version": 1, "scheme": "BY_DUE_MONTH", "generation": 7, "shards": [
+ *     {"key": "2026-10", "file": "2026-10-7.bin", "tasks": 812, "pending": 640, "minId": 3,
+ *      "maxId": 9120, "minDue": "2026-10-01", "maxDue": "2026-10-31", "fingerprint": ...}]}
+ *
+ * Shards are binary snapshots or JSON arrays and are read and written in parallel. A save
+ * rewrites only the shards whose fingerprint changed, each into a new file, and replaces
+ * the manifest last, so a crash at any point leaves the previous save readable.
+ *
+ * The store remembers which shards have been loaded since open(); TaskManager uses the
+ * manifest ranges to load a cold shard only once a query could match tasks in it.
+ */
+public final class TaskShardStore {
+
+    public static final String MANIFEST = "manifest.json";
+    private static final int VERSION = 1;
+
+    // Files written by save(), as opposed to anything else a user keeps in the directory
+    private static final Pattern SHARD_FILE = Pattern.compile("[A-Za-z0-9-]+-\\d+\\.(bin|json)");
+
+    /** Where one shard lives and what was in it when it was last saved. Immutable. */
+    public static final class Shard {
+        private final String key;
+        private final String file;
+        private final int tasks;
+        private final int pending;
+        private final long minId;
+        private final long maxId;
+        private final LocalDate minDue;
+        private final LocalDate maxDue;
+        private final long fingerprint;
+
+        Shard(String key, String file, int tasks, int pending, long minId, long maxId,
+              LocalDate minDue, LocalDate maxDue, long fingerprint) {
+            this.key = key;
+            this.file = file;
+            this.tasks = tasks;
+            this.pending = pending;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.minDue = minDue;
+            this.maxDue = maxDue;
+            this.fingerprint = fingerprint;
+        }
+
+        static Shard of(String key, String file, List<Task> tasks) {
+            int pending = 0;
+            long minId = Long.MAX_VALUE;
+            long maxId = Long.MIN_VALUE;
+            LocalDate minDue = null;
+            LocalDate maxDue = null;
+            for (Task task : tasks) {
+                if (!task.isDone()) {
+                    pending++;
+                }
+                minId = Math.min(minId, task.getId());
+                maxId = Math.max(maxId, task.getId());
+                LocalDate due = task.getDueDate();
+                if (due != null) {
+                    minDue = minDue == null || due.isBefore(minDue) ? due : minDue;
+                    maxDue = maxDue == null || due.isAfter(maxDue) ? due : maxDue;
+                }
+            }
+            return new Shard(key, file, tasks.size(), pending, minId, maxId, minDue, maxDue, fingerprint(tasks));
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public int getTasks() {
+            return tasks;
+        }
+
+        public int getPending() {
+            return pending;
+        }
+
+        /** Whether tasks matching the filter could be in this shard, going by its counts and ranges. */
+        public boolean mayMatch(TaskFilter filter) {
+            Boolean done = filter.getDone();
+            if (done != null && (done ? tasks - pending : pending) == 0) {
+                return false;
+            }
+            if (filter.hasDueRange()) {
+                if (minDue == null
+                    || (filter.getDueFrom() != null && maxDue.isBefore(filter.getDueFrom()))
+                    || (filter.getDueTo() != null && minDue.isAfter(filter.getDueTo()))) {
+                    return false;
+                }
+            }
+            return tasks > 0;
+        }
+
+        public boolean mayContain(long id) {
+            return tasks > 0 && id >= minId && id <= maxId;
+        }
+
+        @Override
+        public String toString() {
+            return key + ": " + tasks + " tasks, " + pending + " pending"
+                + (minDue == null ? "" : ", due " + minDue + ".." + maxDue) + " (" + file + ")";
+        }
+    }
+
+    private final Path directory;
+    private final ShardScheme scheme;
+    private final TaskJsonCodec jsonCodec = new TaskJsonCodec(true);
+    private long generation;
+    private final Map<String, Shard> shards = new TreeMap<>();
+    private final Set<String> unloaded = new HashSet<>();
+
+    private TaskShardStore(Path directory, ShardScheme scheme) {
+        this.directory = directory;
+        this.scheme = scheme;
+    }
+
+    /** An empty store; its first save replaces whatever the directory held. */
+    public static TaskShardStore create(Path directory, ShardScheme scheme) {
+        TaskShardStore store = new TaskShardStore(directory, scheme);
+        try {
+            // New files must not reuse the names the current manifest points to
+            store.generation = open(directory).generation;
+        } catch (IOException e) {
+            // No readable manifest yet; nothing to keep clear of
+        }
+        return store;
+    }
+
+    /** Whether the directory holds a manifest to open. */
+    public static boolean exists(Path directory) {
+        return Files.isRegularFile(directory.resolve(MANIFEST));
+    }
+
+    /** Reads the manifest; every shard starts out unloaded. */
+    public static TaskShardStore open(Path directory) throws IOException {
+        try (JsonReader in = new JsonReader(Files.newBufferedReader(directory.resolve(MANIFEST), StandardCharsets.UTF_8))) {
+            ShardScheme scheme = null;
+            long generation = 0;
+            List<Shard> listed = new ArrayList<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "version" -> {
+                        int version = in.nextInt();
+                        if (version > VERSION) {
+                            throw new IOException("Unsupported shard manifest version " + version);
+                        }
+                    }
+                    case "scheme" -> scheme = ShardScheme.valueOf(in.nextString());
+                    case "generation" -> generation = in.nextLong();
+                    case "shards" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            listed.add(readShard(in));
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (scheme == null) {
+                throw new IOException("Shard manifest names no scheme: " + directory);
+            }
+            TaskShardStore store = new TaskShardStore(directory, scheme);
+            store.generation = generation;
+            for (Shard shard : listed) {
+                store.shards.put(shard.key, shard);
+                store.unloaded.add(shard.key);
+            }
+            return store;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new IOException("Corrupt shard manifest in " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public ShardScheme getScheme() {
+        return scheme;
+    }
+
+    public synchronized List<Shard> getShards() {
+        return List.copyOf(shards.values());
+    }
+
+    public synchronized boolean isLoaded(Shard shard) {
+        return !unloaded.contains(shard.key);
+    }
+
+    public synchronized boolean hasUnloaded() {
+        return !unloaded.isEmpty();
+    }
+
+    public synchronized List<Shard> getUnloaded() {
+        return shards.values().stream().filter(shard -> unloaded.contains(shard.key)).toList();
+    }
+
+    /** The shards to read straight away: everything that is not cold. */
+    public synchronized List<Shard> getHot(LocalDate today) {
+        return shards.values().stream().filter(shard -> !scheme.isCold(shard, today)).toList();
+    }
+
+    /**
+     * Reads the shards in parallel. Every shard is written in list order, so merging them
+     * by id restores the order the tasks were created in. Call markLoaded once the tasks
+     * are in the list.
+     */
+    public List<Task> read(Collection<Shard> toRead) throws IOException {
+        return mergeById(parallel(toRead, shard -> readFile(directory.resolve(shard.file))));
+    }
+
+    public synchronized void markLoaded(Collection<Shard> loaded) {
+        for (Shard shard : loaded) {
+            unloaded.remove(shard.key);
+        }
+    }
+
+    /**
+     * Writes every shard in byShard whose tasks changed since it was last saved or loaded,
+     * in parallel, then the manifest. Unloaded shards missing from byShard are kept as they
+     * are; loaded ones missing from it had all their tasks removed and are dropped. An
+     * unloaded shard must be loaded before tasks for it can be saved. Returns the number of
+     * shard files written.
+     */
+    public synchronized int save(Map<String, List<Task>> byShard, boolean binary) throws IOException {
+        for (String key : byShard.keySet()) {
+            if (unloaded.contains(key)) {
+                throw new IllegalStateException("Shard " + key + " must be loaded before it is saved");
+            }
+        }
+        Files.createDirectories(directory);
+        long next = generation + 1;
+        String extension = binary ? ".bin" : ".json";
+        List<Shard> saved = parallel(byShard.entrySet(), entry -> {
+            String key = entry.getKey();
+            Shard current = Shard.of(key, key + "-" + next + extension, entry.getValue());
+            Shard previous = shards.get(key);
+            if (previous != null && previous.fingerprint == current.fingerprint
+                && previous.tasks == current.tasks && previous.file.endsWith(extension)) {
+                return previous;
+            }
+            writeFile(directory.resolve(current.file), entry.getValue(), binary);
+            return current;
+        });
+
+        Map<String, Shard> updated = new TreeMap<>();
+        for (String key : unloaded) {
+            updated.put(key, shards.get(key));
+        }
+        int written = 0;
+        for (Shard shard : saved) {
+            updated.put(shard.key, shard);
+            if (shard != shards.get(shard.key)) {
+                written++;
+            }
+        }
+        if (written == 0 && updated.keySet().equals(shards.keySet())) {
+            return 0;
+        }
+        writeManifest(next, updated.values());
+        generation = next;
+        shards.clear();
+        shards.putAll(updated);
+        deleteUnreferenced();
+        return written;
+    }
+
+    // --- Shard files ---
+    private List<Task> readFile(Path file) throws IOException {
+        if (TaskSnapshot.isSnapshot(file)) {
+            // Copying decodes every record here, on this shard's own thread
+            return new ArrayList<>(TaskSnapshot.open(file));
+        }
+        List<Task> tasks = new ArrayList<>();
+        jsonCodec.read(file, tasks::add);
+        return tasks;
+    }
+
+    private void writeFile(Path file, List<Task> tasks, boolean binary) throws IOException {
+        if (binary) {
+            TaskSnapshot.write(file, tasks);
+        } else {
+            jsonCodec.writeDurably(file, tasks);
+        }
+    }
+
+    private void deleteUnreferenced() {
+        Set<String> referenced = new HashSet<>();
+        for (Shard shard : shards.values()) {
+            referenced.add(shard.file);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (SHARD_FILE.matcher(name).matches() && !referenced.contains(name)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not remove old shard files from " + directory + ": " + e.getMessage());
+        }
+    }
+
+    // Tasks of several shards, each in id order, merged into one list in id order
+    static List<Task> mergeById(List<List<Task>> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int total = 0;
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+            Comparator.comparingLong(head -> parts.get(head[0]).get(head[1]).getId()));
+        for (int i = 0; i < parts.size(); i++) {
+            total += parts.get(i).size();
+            if (!parts.get(i).isEmpty()) {
+                heads.add(new int[] {i, 0});
+            }
+        }
+        List<Task> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<Task> part = parts.get(head[0]);
+            merged.add(part.get(head[1]));
+            if (++head[1] < part.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    // Order-insensitive 64-bit digest of every field of every task, so unchanged shards are not rewritten
+    static long fingerprint(List<Task> tasks) {
+        long sum = 0;
+        for (Task task : tasks) {
+            long h = task.getId();
+            h = h * 31 + hash(task.getTitle());
+            h = h * 31 + hash(task.getDescription());
+            h = h * 31 + (task.getDueDate() == null ? -1 : task.getDueDate().toEpochDay());
+            h = h * 31 + (task.getPriority() == null ? -1 : task.getPriority().ordinal());
+            h = h * 31 + (task.isDone() ? 1 : 0);
+            h = h * 31 + (task.getRecurrence() == null ? 0 : hash(task.getRecurrence().toString()));
+            h = h * 31 + task.getSeriesId();
+            h = h * 31 + (task.getOccurrenceDate() == null ? -1 : task.getOccurrenceDate().toEpochDay());
+            sum += mix(h);
+        }
+        return sum;
+    }
+
+    // FNV-1a over the chars; String.hashCode is only 32 bits and easy to collide
+    private static long hash(String text) {
+        if (text == null) {
+            return 0;
+        }
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h = (h ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    // --- Manifest ---
+    private void writeManifest(long generation, Collection<Shard> listed) throws IOException {
+        Path tmp = directory.resolve(MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             JsonWriter out = new JsonWriter(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8)))) {
+            out.setIndent("  ");
+            out.beginObject();
+            out.name("version").value(VERSION);
+            out.name("scheme").value(scheme.name());
+            out.name("generation").value(generation);
+            out.name("shards").beginArray();
+            for (Shard shard : listed) {
+                out.beginObject();
+                out.name("key").value(shard.key);
+                out.name("file").value(shard.file);
+                out.name("tasks").value(shard.tasks);
+                out.name("pending").value(shard.pending);
+                out.name("minId").value(shard.minId);
+                out.name("maxId").value(shard.maxId);
+                if (shard.minDue != null) {
+                    out.name("minDue").value(shard.minDue.toString());
+                    out.name("maxDue").value(shard.maxDue.toString());
+                }
+                out.name("fingerprint").value(shard.fingerprint);
+                out.endObject();
+            }
+            out.endArray();
+            out.endObject();
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Shard readShard(JsonReader in) throws IOException {
+        String key = null;
+        String file = null;
+        int tasks = 0;
+        int pending = 0;
+        long minId = 0;
+        long maxId = 0;
+        LocalDate minDue = null;
+        LocalDate maxDue = null;
+        long fingerprint = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "key" -> key = in.nextString();
+                case "file" -> file = in.nextString();
+                case "tasks" -> tasks = in.nextInt();
+                case "pending" -> pending = in.nextInt();
+                case "minId" -> minId = in.nextLong();
+                case "maxId" -> maxId = in.nextLong();
+                case "minDue" -> minDue = LocalDate.parse(in.nextString());
+                case "maxDue" -> maxDue = LocalDate.parse(in.nextString());
+                case "fingerprint" -> fingerprint = in.nextLong();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (key == null || file == null || !SHARD_FILE.matcher(file).matches()) {
+            throw new IOException("Shard entry without a valid key and file");
+        }
+        return new Shard(key, file, tasks, pending, minId, maxId, minDue, maxDue, fingerprint);
+    }
+
+    // --- Parallel shard I/O ---
+    @FunctionalInterface
+    private interface ShardWork<T, R> {
+        R apply(T item) throws IOException;
+    }
+
+    // Runs the work for every item on a pool of up to one thread per core; results keep the items' order
+    private static <T, R> List<R> parallel(Collection<T> items, ShardWork<T, R> work) throws IOException {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        int threads = Math.min(items.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "shard-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<R>> futures = new ArrayList<>(items.size());
+            for (T item : items) {
+                futures.add(pool.submit(() -> work.apply(item)));
+            }
+            List<R> results = new ArrayList<>(items.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Shard I/O interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Holds the tasks of a TaskManager in dense int slots, in list order. The secondary
+ * indexes store slots instead of Task references. Deleting a task leaves a tombstone
+ * (a null slot) instead of shifting the tasks behind it, and compact() squeezes the
+ * tombstones out once there are enough of them to be worth renumbering the indexes.
+ *
+ * A task's position in the list is its rank among the live slots, kept in a Fenwick
+ * tree so positionOf and slotAt are O(log n) even right after a deletion.
+ */
+public class TaskSlots implements Iterable<Task> {
+
+    private Task[] tasks = new Task[16];
+    private int nextSlot;
+    private int liveCount;
+
+    // Fenwick tree (1-based) over the live flags of the slots
+    private int[] ranks = new int[17];
+
+    public int assign(Task task) {
+        int slot = nextSlot++;
+        if (slot == tasks.length) {
+            tasks = Arrays.copyOf(tasks, slot * 2);
+            rebuildRanks();
+        }
+        tasks[slot] = task;
+        addRank(slot, 1);
+        liveCount++;
+        task.setSlot(slot);
+        return slot;
+    }
+
+    public void release(Task task) {
+        int slot = task.getSlot();
+        if (slot < 0 || slot >= nextSlot || tasks[slot] != task) {
+            return;
+        }
+        tasks[slot] = null;
+        addRank(slot, -1);
+        liveCount--;
+        task.setSlot(-1);
+    }
+
+    /** Puts a released task back into its old slot, which must still be free (no compact() since). */
+    public void restore(int slot, Task task) {
+        if (slot < 0 || slot >= nextSlot || tasks[slot] != null) {
+            throw new IllegalStateException("Slot " + slot + " is not free");
+        }
+        tasks[slot] = task;
+        addRank(slot, 1);
+        liveCount++;
+        task.setSlot(slot);
+    }
+
+    public void clear() {
+        for (int slot = 0; slot < nextSlot; slot++) {
+            if (tasks[slot] != null) {
+                tasks[slot].setSlot(-1);
+            }
+        }
+        tasks = new Task[16];
+        ranks = new int[17];
+        nextSlot = 0;
+        liveCount = 0;
+    }
+
+    /**
+     * Moves the live tasks down over the tombstones, keeping their order. Returns the
+     * new slot of every old slot (-1 for tombstones) so indexes can be renumbered.
+     */
+    public int[] compact() {
+        int[] newSlotOf = new int[nextSlot];
+        int next = 0;
+        for (int slot = 0; slot < nextSlot; slot++) {
+            Task task = tasks[slot];
+            if (task == null) {
+                newSlotOf[slot] = -1;
+                continue;
+            }
+            newSlotOf[slot] = next;
+            tasks[next] = task;
+            task.setSlot(next);
+            next++;
+        }
+        Arrays.fill(tasks, next, nextSlot, null);
+        nextSlot = next;
+        rebuildRanks();
+        return newSlotOf;
+    }
+
+    public Task get(int slot) {
+        return slot >= 0 && slot < nextSlot ? tasks[slot] : null;
+    }
+
+    /** Zero-based position of the slot's task in the list, or -1 if the slot is free. */
+    public int positionOf(int slot) {
+        if (slot < 0 || slot >= nextSlot || tasks[slot] == null) {
+            return -1;
+        }
+        int rank = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            rank += ranks[i];
+        }
+        return rank - 1;
+    }
+
+    /** Slot of the task at the given list position, or -1 if out of range. */
+    public int slotAt(int position) {
+        if (position < 0 || position >= liveCount) {
+            return -1;
+        }
+        // Descend the tree for the smallest slot with position + 1 live slots up to it
+        int remaining = position + 1;
+        int index = 0;
+        for (int step = Integer.highestOneBit(ranks.length - 1); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next < ranks.length && ranks[next] < remaining) {
+                index = next;
+                remaining -= ranks[next];
+            }
+        }
+        return index;
+    }
+
+    public int size() {
+        return liveCount;
+    }
+
+    /** One past the highest slot handed out; bitsets over slots never need more bits. */
+    public int capacity() {
+        return nextSlot;
+    }
+
+    /** Deleted slots not yet reclaimed by compact(). */
+    public int tombstones() {
+        return nextSlot - liveCount;
+    }
+
+    /** The live tasks in list order, as a new list. */
+    public List<Task> liveTasks() {
+        List<Task> live = new ArrayList<>(liveCount);
+        for (Task task : this) {
+            live.add(task);
+        }
+        return live;
+    }
+
+    /** Iterates the live tasks in list order. */
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int slot = advance(0);
+
+            private int advance(int from) {
+                while (from < nextSlot && tasks[from] == null) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return slot < nextSlot;
+            }
+
+            @Override
+            public Task next() {
+                if (slot >= nextSlot) {
+                    throw new NoSuchElementException();
+                }
+                Task task = tasks[slot];
+                slot = advance(slot + 1);
+                return task;
+            }
+        };
+    }
+
+    private void addRank(int slot, int delta) {
+        for (int i = slot + 1; i < ranks.length; i += i & -i) {
+            ranks[i] += delta;
+        }
+    }
+
+    // Linear-time Fenwick construction over the current slots
+    private void rebuildRanks() {
+        ranks = new int[tasks.length + 1];
+        for (int i = 1; i < ranks.length; i++) {
+            if (i <= nextSlot && tasks[i - 1] != null) {
+                ranks[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent < ranks.length) {
+                ranks[parent] += ranks[i];
+            }
+        }
+    }
+}
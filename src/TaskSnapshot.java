@@ -0,0 +1,266 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Versioned binary snapshot of a task list, read through a memory-mapped file so that
+ * opening it only touches the header. Tasks are decoded one by one the first time they
+ * are accessed.
+ *
+ * Layout (little-endian):
+ *   header   magic "PTMS", int version, int count, int reserved, long heapOffset
+ *   records  count fixed-width records of RECORD_SIZE bytes:
+ *            long id, int epochDay, byte priority, byte done, short reserved,
+ *            int titleOffset, int titleLength, int descOffset, int descLength,
+ *            long seriesId, int occurrenceEpochDay, int ruleOffset, int ruleLength, int reserved
+ *   heap     UTF-8 bytes of every title, description and repeat rule; offset -1 means null
+ *
+ * Version 1 files, whose records end after descLength (V1_RECORD_SIZE), are still read.
+ * A snapshot is mapped as one buffer, so it can be at most MAX_FILE_SIZE (2 GB); write()
+ * fails with an IOException rather than produce a file that open() could not map.
+ */
+public class TaskSnapshot {
+
+    public static final int MAGIC = 0x534D5450; // "PTMS" read little-endian
+    public static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 24;
+    private static final int RECORD_SIZE = 56;
+    private static final int V1_RECORD_SIZE = 32;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    private TaskSnapshot() {
+    }
+
+    /** True if the file starts with the snapshot magic number. */
+    public static boolean isSnapshot(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // keep reading until four bytes or EOF
+            }
+            return magic.position() == 4 && magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Writes the tasks and forces the file to disk; output over 2 GB is deleted and reported. */
+    public static void write(Path path, List<Task> tasks) throws IOException {
+        int count = tasks.size();
+        long heapOffset = HEADER_SIZE + (long) count * RECORD_SIZE;
+        if (heapOffset > MAX_FILE_SIZE) {
+            throw tooLarge(count);
+        }
+        try {
+            writeRegions(path, tasks, heapOffset);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private static void writeRegions(Path path, List<Task> tasks, long heapOffset) throws IOException {
+        int count = tasks.size();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            // Records and string heap are streamed side by side into their own regions
+            Region records = new Region(channel, HEADER_SIZE);
+            Region heap = new Region(channel, heapOffset);
+            byte[] record = new byte[RECORD_SIZE];
+            ByteBuffer fields = ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN);
+
+            for (Task task : tasks) {
+                byte[] title = bytes(task.getTitle());
+                byte[] desc = bytes(task.getDescription());
+                byte[] rule = bytes(task.getRecurrence() == null ? null : task.getRecurrence().toString());
+
+                fields.clear();
+                fields.putLong(task.getId());
+                fields.putInt(task.getDueDate() == null ? NO_DATE : Math.toIntExact(task.getDueDate().toEpochDay()));
+                fields.put((byte) (task.getPriority() == null ? -1 : task.getPriority().ordinal()));
+                fields.put((byte) (task.isDone() ? 1 : 0));
+                fields.putShort((short) 0);
+                fields.putInt(heapRef(heap, heapOffset, title, count));
+                fields.putInt(title == null ? 0 : title.length);
+                heap.put(title);
+                fields.putInt(heapRef(heap, heapOffset, desc, count));
+                fields.putInt(desc == null ? 0 : desc.length);
+                heap.put(desc);
+                fields.putLong(task.getSeriesId());
+                fields.putInt(task.getOccurrenceDate() == null ? NO_DATE : Math.toIntExact(task.getOccurrenceDate().toEpochDay()));
+                fields.putInt(heapRef(heap, heapOffset, rule, count));
+                fields.putInt(rule == null ? 0 : rule.length);
+                heap.put(rule);
+                fields.putInt(0);
+                records.put(record);
+            }
+            records.flush();
+            heap.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0).putLong(heapOffset);
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+    }
+
+    /** Maps the snapshot and returns a read-only list that decodes each task on first access. */
+    public static List<Task> open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_FILE_SIZE) {
+                throw new IOException("Task snapshot larger than 2 GB: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a task snapshot: " + path);
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION && version != 1) {
+                throw new IOException("Unsupported task snapshot version " + version + " in " + path);
+            }
+            int recordSize = version == 1 ? V1_RECORD_SIZE : RECORD_SIZE;
+            int count = buffer.getInt(8);
+            long heapOffset = buffer.getLong(16);
+            if (heapOffset != HEADER_SIZE + (long) count * recordSize || heapOffset > buffer.limit()) {
+                throw new IOException("Corrupt task snapshot: " + path);
+            }
+            return new LazyTaskList(buffer, count, recordSize, (int) heapOffset);
+        }
+    }
+
+    /** Read-only view over the mapped records; a Task is built the first time its index is read. */
+    private static final class LazyTaskList extends AbstractList<Task> implements RandomAccess {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int recordSize;
+        private final int heapOffset;
+        private final Task[] decoded;
+
+        LazyTaskList(ByteBuffer buffer, int count, int recordSize, int heapOffset) {
+            this.buffer = buffer;
+            this.count = count;
+            this.recordSize = recordSize;
+            this.heapOffset = heapOffset;
+            this.decoded = new Task[count];
+        }
+
+        @Override
+        public Task get(int index) {
+            Task task = decoded[index];
+            if (task == null) {
+                task = decode(index);
+                decoded[index] = task;
+            }
+            return task;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        private Task decode(int index) {
+            int at = HEADER_SIZE + index * recordSize;
+            long id = buffer.getLong(at);
+            int epochDay = buffer.getInt(at + 8);
+            byte priority = buffer.get(at + 12);
+            boolean isDone = buffer.get(at + 13) != 0;
+            String title = string(buffer.getInt(at + 16), buffer.getInt(at + 20));
+            String description = string(buffer.getInt(at + 24), buffer.getInt(at + 28));
+
+            Task task = new Task(title, description,
+                epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay),
+                priority < 0 ? null : Priority.values()[priority]);
+            task.setDone(isDone);
+            task.setId(id);
+            if (recordSize > V1_RECORD_SIZE) {
+                int occurrenceDay = buffer.getInt(at + 40);
+                task.setOccurrenceOf(buffer.getLong(at + 32), occurrenceDay == NO_DATE ? null : LocalDate.ofEpochDay(occurrenceDay));
+                String rule = string(buffer.getInt(at + 44), buffer.getInt(at + 48));
+                task.setRecurrence(rule == null ? null : Recurrence.parse(rule));
+            }
+            return task;
+        }
+
+        private String string(int offset, int length) {
+            if (offset < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(heapOffset + offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // --- Writing helpers ---
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int heapRef(Region heap, long heapOffset, byte[] value, int count) throws IOException {
+        if (value == null) {
+            return -1;
+        }
+        if (heap.position() + value.length > MAX_FILE_SIZE) {
+            throw tooLarge(count);
+        }
+        return (int) (heap.position() - heapOffset);
+    }
+
+    private static IOException tooLarge(int count) {
+        return new IOException("A snapshot of " + count + " tasks would exceed 2 GB; save them as JSON or in shards");
+    }
+
+    /** Buffered sequential writer for one region of the file. */
+    private static final class Region {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long flushedTo;
+
+        Region(FileChannel channel, long start) {
+            this.channel = channel;
+            this.flushedTo = start;
+        }
+
+        long position() {
+            return flushedTo + buffer.position();
+        }
+
+        void put(byte[] bytes) throws IOException {
+            if (bytes == null) {
+                return;
+            }
+            int written = 0;
+            while (written < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int chunk = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, chunk);
+                written += chunk;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushedTo += channel.write(buffer, flushedTo);
+            }
+            buffer.clear();
+        }
+    }
+}
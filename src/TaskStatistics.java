@@ -0,0 +1,259 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Running totals behind the summaries: a histogram of how many pending and done tasks are
+ * due on each day, and how many pending ones are overdue. Every mutation adjusts them in
+ * O(1), so a summary never scans the list; counts per priority and status come from
+ * StatusPriorityIndex, which already keeps them the same way.
+ *
+ * The overdue count is relative to the day it was last rolled to. When a summary is asked
+ * for on a later day, the pending tasks of the days that have passed are added to it, so
+ * the count moves forward at midnight without touching any task.
+ *
+ * Recurring series are counted on their own rather than by due date, like DueDateIndex.
+ * Like the other indexes it remembers what each slot was counted as, so an edit or a
+ * removal takes back exactly what was added, whatever the task holds by then.
+ */
+public class TaskStatistics {
+
+    // epoch-day -> {pending, done}; days without tasks have no entry
+    private final Map<Long, int[]> byDueDay = new HashMap<>();
+    private int undatedPending;
+    private int recurring;
+
+    // Pending tasks due before overdueDay
+    private long overdueDay = LocalDate.now().toEpochDay();
+    private int overdue;
+
+    // What each slot was counted as, so changes and removals take back exactly that
+    private static final long UNDATED = Long.MIN_VALUE;
+    private static final long SERIES = Long.MAX_VALUE;
+    private long[] countedDay = new long[16];
+    private final BitSet counted = new BitSet();
+    private final BitSet countedDone = new BitSet();
+
+    public void add(int slot, Task task) {
+        if (slot >= countedDay.length) {
+            countedDay = Arrays.copyOf(countedDay, Math.max(slot + 1, countedDay.length * 2));
+        }
+        remove(slot);
+        long day = task.isRecurring() ? SERIES : task.getDueDate() == null ? UNDATED : task.getDueDate().toEpochDay();
+        countedDay[slot] = day;
+        counted.set(slot);
+        countedDone.set(slot, task.isDone());
+        count(day, task.isDone(), 1);
+    }
+
+    public void remove(int slot) {
+        if (!counted.get(slot)) {
+            return;
+        }
+        count(countedDay[slot], countedDone.get(slot), -1);
+        counted.clear(slot);
+        countedDone.clear(slot);
+    }
+
+    public void doneChanged(int slot, boolean wasDone, boolean isDone) {
+        if (wasDone == isDone || !counted.get(slot) || countedDone.get(slot) == isDone) {
+            return;
+        }
+        count(countedDay[slot], wasDone, -1);
+        count(countedDay[slot], isDone, 1);
+        countedDone.set(slot, isDone);
+    }
+
+    /** Re-files the slot after its due date or repeat rule changed. */
+    public void update(int slot, Task task) {
+        if (counted.get(slot)) {
+            add(slot, task);
+        }
+    }
+
+    public void clear() {
+        byDueDay.clear();
+        counted.clear();
+        countedDone.clear();
+        undatedPending = 0;
+        recurring = 0;
+        overdue = 0;
+    }
+
+    private void count(long day, boolean isDone, int delta) {
+        if (day == SERIES) {
+            recurring += delta;
+            return;
+        }
+        if (day == UNDATED) {
+            if (!isDone) {
+                undatedPending += delta;
+            }
+            return;
+        }
+        int[] counts = byDueDay.computeIfAbsent(day, d -> new int[2]);
+        counts[isDone ? 1 : 0] += delta;
+        if (counts[0] == 0 && counts[1] == 0) {
+            byDueDay.remove(day);
+        }
+        if (!isDone && day < overdueDay) {
+            overdue += delta;
+        }
+    }
+
+    // --- Reading (callers hold at least the read lock; rolling is guarded separately) ---
+
+    /** Pending (isDone false), done (true) or all (null) tasks due on the day. */
+    public int dueOn(LocalDate day, Boolean isDone) {
+        int[] counts = byDueDay.get(day.toEpochDay());
+        if (counts == null) {
+            return 0;
+        }
+        return isDone == null ? counts[0] + counts[1] : counts[isDone ? 1 : 0];
+    }
+
+    /** Pending tasks due on each of the days starting at from. */
+    public int[] pendingHistogram(LocalDate from, int days) {
+        int[] histogram = new int[days];
+        for (int i = 0; i < days; i++) {
+            histogram[i] = dueOn(from.plusDays(i), false);
+        }
+        return histogram;
+    }
+
+    /** Pending tasks due before today; rolls the count forward first if the day has changed. */
+    public synchronized int overdue(LocalDate today) {
+        long target = today.toEpochDay();
+        if (target != overdueDay) {
+            // The days in between cross the boundary: usually one, after midnight
+            long low = Math.min(target, overdueDay);
+            long high = Math.max(target, overdueDay);
+            int crossing = 0;
+            if (high - low <= byDueDay.size()) {
+                for (long day = low; day < high; day++) {
+                    int[] counts = byDueDay.get(day);
+                    crossing += counts == null ? 0 : counts[0];
+                }
+            } else {
+                for (Map.Entry<Long, int[]> entry : byDueDay.entrySet()) {
+                    if (entry.getKey() >= low && entry.getKey() < high) {
+                        crossing += entry.getValue()[0];
+                    }
+                }
+            }
+            overdue += target > overdueDay ? crossing : -crossing;
+            overdueDay = target;
+        }
+        return overdue;
+    }
+
+    public int undatedPending() {
+        return undatedPending;
+    }
+
+    public int recurring() {
+        return recurring;
+    }
+
+    /** Counts as of one moment; every figure is computed in constant time. */
+    public static final class Summary {
+        private final LocalDate day;
+        // counts[priority ordinal][done ? 1 : 0]; the last row holds tasks without a priority
+        private final int[][] counts;
+        private final int overdue;
+        private final int dueToday;
+        private final int dueThisWeek;
+        private final int undated;
+        private final int recurring;
+
+        Summary(LocalDate day, int[][] counts, int overdue, int dueToday, int dueThisWeek, int undated, int recurring) {
+            this.day = day;
+            this.counts = counts;
+            this.overdue = overdue;
+            this.dueToday = dueToday;
+            this.dueThisWeek = dueThisWeek;
+            this.undated = undated;
+            this.recurring = recurring;
+        }
+
+        public LocalDate getDay() {
+            return day;
+        }
+
+        /** Tasks matching both filters; a null argument means "any". */
+        public int count(Boolean isDone, Priority priority) {
+            int total = 0;
+            for (int row = 0; row < counts.length; row++) {
+                if (priority != null && row != priority.ordinal()) {
+                    continue;
+                }
+                if (isDone == null || !isDone) {
+                    total += counts[row][0];
+                }
+                if (isDone == null || isDone) {
+                    total += counts[row][1];
+                }
+            }
+            return total;
+        }
+
+        public int getTotal() {
+            return count(null, null);
+        }
+
+        public int getPending() {
+            return count(false, null);
+        }
+
+        public int getDone() {
+            return count(true, null);
+        }
+
+        /** Pending tasks due before the day; recurring series are not included. */
+        public int getOverdue() {
+            return overdue;
+        }
+
+        public int getDueToday() {
+            return dueToday;
+        }
+
+        /** Pending tasks due in the seven days starting with the day. */
+        public int getDueThisWeek() {
+            return dueThisWeek;
+        }
+
+        /** Pending tasks without a due date. */
+        public int getUndated() {
+            return undated;
+        }
+
+        /** Recurring series, whatever their state. */
+        public int getRecurring() {
+            return recurring;
+        }
+
+        /** One line, for a status strip. */
+        @Override
+        public String toString() {
+            return getPending() + " open (" + count(false, Priority.HIGH) + " high) · "
+                + overdue + " overdue · " + dueToday + " due today · "
+                + dueThisWeek + " this week · " + getDone() + " done";
+        }
+
+        /** A small table of open/done counts per priority followed by the due-date figures. */
+        public String format() {
+            StringBuilder text = new StringBuilder(String.format("%-10s %8s %8s%n", "Priority", "Open", "Done"));
+            for (Priority priority : Priority.values()) {
+                text.append(String.format("%-10s %8d %8d%n", priority, count(false, priority), count(true, priority)));
+            }
+            int[] none = counts[counts.length - 1];
+            if (none[0] + none[1] > 0) {
+                text.append(String.format("%-10s %8d %8d%n", "(none)", none[0], none[1]));
+            }
+            text.append(String.format("%-10s %8d %8d%n", "Total", getPending(), getDone()));
+            text.append(String.format("%nOverdue: %d   Due today: %d   Due this week: %d   No due date: %d   Recurring: %d",
+                overdue, dueToday, dueThisWeek, undated, recurring));
+            return text.toString();
+        }
+    }
+}
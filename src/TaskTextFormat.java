@@ -0,0 +1,306 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Line-oriented task formats for bulk import and export.
+ *
+ * CSV follows RFC 4180: fields containing a comma, quote or line break are quoted, so a
+ * record may span lines. A header naming the columns (id, title, description, dueDate,
+ * priority, isDone, recurrence, seriesId, occurrenceDate) may come first, in any order;
+ * without one that order is assumed, and records may stop after isDone.
+ * NDJSON holds one task object per line, with the same fields as the JSON files.
+ */
+public enum TaskTextFormat {
+    CSV,
+    NDJSON;
+
+    private static final String[] CSV_COLUMNS = {"id", "title", "description", "dueDate", "priority", "isDone",
+        "recurrence", "seriesId", "occurrenceDate"};
+
+    private static final TaskAdapter ADAPTER = new TaskAdapter();
+
+    /** Turns one record into a task; throws IllegalArgumentException saying what is wrong. */
+    @FunctionalInterface
+    public interface RecordParser {
+        Task parse(String record);
+    }
+
+    /** CSV for .csv files, NDJSON for .ndjson and .jsonl; null for anything else. */
+    public static TaskTextFormat forFile(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        return null;
+    }
+
+    /** The line written before the first record, or null if the format has none. */
+    public String header() {
+        return this == CSV ? String.join(",", CSV_COLUMNS) : null;
+    }
+
+    /** True while a record read so far is still inside a quoted field that spans lines. */
+    public boolean isIncomplete(String record) {
+        return endsInQuotes(record, false);
+    }
+
+    /**
+     * Whether a quoted field is still open after the line, given whether one was open
+     * before it; lets a reader follow a multi-line record one line at a time.
+     */
+    public boolean endsInQuotes(String line, boolean inQuotes) {
+        if (this != CSV) {
+            return false;
+        }
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                inQuotes = !inQuotes;
+            }
+        }
+        return inQuotes;
+    }
+
+    /** True if the file's first record is a header rather than a task. */
+    public boolean isHeader(String firstRecord) {
+        if (this != CSV) {
+            return false;
+        }
+        for (String name : splitCsv(firstRecord)) {
+            if (name.trim().equalsIgnoreCase("title")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** A parser for the records that follow the given header, or in default order if null. */
+    public RecordParser parser(String header) {
+        if (this == NDJSON) {
+            return record -> validate(parseJson(record));
+        }
+        int[] columnOf = csvColumns(header);
+        return record -> validate(parseCsv(record, columnOf));
+    }
+
+    public String format(Task task) {
+        if (this == NDJSON) {
+            return formatJson(task);
+        }
+        StringBuilder line = new StringBuilder(96);
+        line.append(task.getId() != 0 ? Long.toString(task.getId()) : "").append(',');
+        appendCsv(line, task.getTitle());
+        line.append(',');
+        appendCsv(line, task.getDescription());
+        line.append(',');
+        line.append(task.getDueDate() != null ? task.getDueDate().toString() : "").append(',');
+        line.append(task.getPriority() != null ? task.getPriority().name() : "").append(',');
+        line.append(task.isDone()).append(',');
+        line.append(task.getRecurrence() != null ? task.getRecurrence().toString() : "").append(',');
+        line.append(task.isOccurrence() ? Long.toString(task.getSeriesId()) : "").append(',');
+        line.append(task.getOccurrenceDate() != null ? task.getOccurrenceDate().toString() : "");
+        return line.toString();
+    }
+
+    // --- Validation ---
+    private static Task validate(Task task) {
+        if (task.getTitle() == null || task.getTitle().isBlank()) {
+            throw new IllegalArgumentException("missing title");
+        }
+        if (task.getId() < 0) {
+            throw new IllegalArgumentException("negative id " + task.getId());
+        }
+        return task;
+    }
+
+    // --- NDJSON ---
+    private static Task parseJson(String record) {
+        try (JsonReader in = new JsonReader(new StringReader(record))) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IllegalArgumentException("expected a JSON object");
+            }
+            Task task = ADAPTER.read(in);
+            if (in.peek() != JsonToken.END_DOCUMENT) {
+                throw new IllegalArgumentException("trailing data after the object");
+            }
+            return task;
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new IllegalArgumentException("malformed JSON: " + e.getMessage());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("bad dueDate: " + e.getParsedString());
+        }
+    }
+
+    private static String formatJson(Task task) {
+        StringWriter buffer = new StringWriter(128);
+        try (JsonWriter out = new JsonWriter(buffer)) {
+            out.setSerializeNulls(false);
+            ADAPTER.write(out, task);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // a StringWriter never fails
+        }
+        return buffer.toString();
+    }
+
+    // --- CSV ---
+    // columnOf[i] is the field index holding CSV_COLUMNS[i], or -1 if the file lacks it
+    private static int[] csvColumns(String header) {
+        int[] columnOf = new int[CSV_COLUMNS.length];
+        if (header == null) {
+            for (int i = 0; i < columnOf.length; i++) {
+                columnOf[i] = i;
+            }
+            return columnOf;
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            positions.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (int i = 0; i < columnOf.length; i++) {
+            columnOf[i] = positions.getOrDefault(CSV_COLUMNS[i].toLowerCase(Locale.ROOT), -1);
+        }
+        return columnOf;
+    }
+
+    private static Task parseCsv(String record, int[] columnOf) {
+        List<String> fields = splitCsv(record);
+        String id = field(fields, columnOf[0]);
+        String title = field(fields, columnOf[1]);
+        String description = field(fields, columnOf[2]);
+        String dueDate = field(fields, columnOf[3]);
+        String priority = field(fields, columnOf[4]);
+        String done = field(fields, columnOf[5]);
+        String recurrence = field(fields, columnOf[6]);
+        String seriesId = field(fields, columnOf[7]);
+        String occurrenceDate = field(fields, columnOf[8]);
+
+        // An empty field is how export writes a missing value
+        Task task = new Task(title, description.isEmpty() ? null : description, parseDate(dueDate), parsePriority(priority));
+        task.setDone(parseDone(done));
+        if (!id.isEmpty()) {
+            task.setId(parseId("id", id));
+        }
+        if (!recurrence.isBlank()) {
+            task.setRecurrence(Recurrence.parse(recurrence));
+        }
+        if (!seriesId.isBlank()) {
+            task.setOccurrenceOf(parseId("seriesId", seriesId), parseDate("occurrenceDate", occurrenceDate));
+        }
+        return task;
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column) : "";
+    }
+
+    private static long parseId(String column, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad " + column + ": " + value);
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        return parseDate("dueDate", value);
+    }
+
+    private static LocalDate parseDate(String column, String value) {
+        if (value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("bad " + column + ": " + value);
+        }
+    }
+
+    private static Priority parsePriority(String value) {
+        if (value.isBlank()) {
+            return null;
+        }
+        try {
+            return Priority.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("bad priority: " + value);
+        }
+    }
+
+    private static boolean parseDone(String value) {
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "", "false", "0", "no" -> false;
+            case "true", "1", "yes" -> true;
+            default -> throw new IllegalArgumentException("bad isDone: " + value);
+        };
+    }
+
+    // Splits one complete record; quoted fields may contain commas, doubled quotes and newlines
+    private static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>(CSV_COLUMNS.length);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
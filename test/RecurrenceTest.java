@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RecurrenceTest {
+
+    private static final LocalDate JAN_31 = LocalDate.of(2026, 1, 31);
+
+    // --- Monthly on the 31st ---
+
+    @Test
+    void monthlyOnThe31stUsesTheLastDayOfShortMonths() {
+        Recurrence monthly = Recurrence.monthly();
+        assertEquals(LocalDate.of(2026, 2, 28), monthly.occurrence(JAN_31, 1));
+        assertEquals(LocalDate.of(2026, 4, 30), monthly.occurrence(JAN_31, 3));
+        assertEquals(LocalDate.of(2028, 2, 29), monthly.occurrence(LocalDate.of(2028, 1, 31), 1));
+    }
+
+    @Test
+    void monthlyOnThe31stDoesNotDriftAfterFebruary() {
+        Recurrence monthly = Recurrence.monthly();
+        assertEquals(LocalDate.of(2026, 3, 31), monthly.occurrence(JAN_31, 2));
+        assertTrue(monthly.occursOn(JAN_31, LocalDate.of(2026, 3, 31)));
+        assertFalse(monthly.occursOn(JAN_31, LocalDate.of(2026, 3, 28)));
+        assertEquals(2, monthly.firstOnOrAfter(JAN_31, LocalDate.of(2026, 3, 1)));
+    }
+
+    @Test
+    void monthlyWithIntervalSkipsMonths() {
+        Recurrence everyOther = Recurrence.monthly().every(2);
+        assertEquals(LocalDate.of(2026, 3, 31), everyOther.occurrence(JAN_31, 1));
+        assertFalse(everyOther.occursOn(JAN_31, LocalDate.of(2026, 2, 28)));
+        assertEquals(2, everyOther.firstOnOrAfter(JAN_31, LocalDate.of(2026, 4, 1)));
+    }
+
+    @Test
+    void managerExpandsMonthlySeriesInAWindow() {
+        TaskManager manager = new TaskManager();
+        Task rent = new Task("Rent", "", JAN_31, Priority.HIGH);
+        rent.setRecurrence(Recurrence.monthly());
+        manager.addTask(rent);
+
+        List<Task> due = manager.findDueBetween(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 4, 30));
+
+        assertEquals(List.of(LocalDate.of(2026, 2, 28), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 4, 30)),
+            due.stream().map(Task::getDueDate).toList());
+        assertTrue(due.stream().allMatch(task -> task.getSeriesId() == rent.getId()));
+    }
+
+    // --- UNTIL and COUNT ---
+
+    @Test
+    void untilIncludesAnOccurrenceOnThatDay() {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        Recurrence weekly = Recurrence.weekly().until(LocalDate.of(2026, 1, 29));
+        assertEquals(4, weekly.last(start));
+        assertTrue(weekly.occursOn(start, LocalDate.of(2026, 1, 29)));
+        assertFalse(weekly.occursOn(start, LocalDate.of(2026, 2, 5)));
+    }
+
+    @Test
+    void untilBetweenOccurrencesEndsAtTheOneBefore() {
+        Recurrence monthly = Recurrence.monthly().until(LocalDate.of(2026, 4, 29));
+        assertEquals(2, monthly.last(JAN_31));
+        assertFalse(monthly.occursOn(JAN_31, LocalDate.of(2026, 4, 30)));
+    }
+
+    @Test
+    void countLimitsTheNumberOfOccurrences() {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        Recurrence daily = Recurrence.daily().times(3);
+        assertEquals(2, daily.last(start));
+        assertTrue(daily.occursOn(start, LocalDate.of(2026, 1, 3)));
+        assertFalse(daily.occursOn(start, LocalDate.of(2026, 1, 4)));
+    }
+
+    @Test
+    void theEarlierOfUntilAndCountWins() {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        assertEquals(1, Recurrence.daily().times(10).until(LocalDate.of(2026, 1, 2)).last(start));
+        assertEquals(2, Recurrence.daily().times(3).until(LocalDate.of(2026, 12, 31)).last(start));
+    }
+
+    @Test
+    void untilBeforeTheStartLeavesNoOccurrences() {
+        LocalDate start = LocalDate.of(2026, 1, 10);
+        Recurrence daily = Recurrence.daily().until(LocalDate.of(2026, 1, 9));
+        assertEquals(-1, daily.last(start));
+        assertFalse(daily.occursOn(start, start));
+    }
+
+    @Test
+    void seriesWithoutEndIsEndless() {
+        assertEquals(Recurrence.ENDLESS, Recurrence.weekly().last(JAN_31));
+    }
+
+    // --- Text form ---
+
+    @Test
+    void parsesAndPrintsTheStoredForm() {
+        Recurrence rule = Recurrence.parse("FREQ=MONTHLY;INTERVAL=2;UNTIL=2026-12-31;COUNT=10");
+        assertEquals(Recurrence.monthly().every(2).until(LocalDate.of(2026, 12, 31)).times(10), rule);
+        assertEquals("FREQ=MONTHLY;INTERVAL=2;UNTIL=2026-12-31;COUNT=10", rule.toString());
+        assertEquals(rule, Recurrence.parse(rule.toString()));
+    }
+
+    @Test
+    void rejectsRulesWithoutFrequency() {
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("INTERVAL=2"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("FREQ=YEARLY"));
+    }
+}
@@ -0,0 +1,208 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TaskJournalTest {
+
+    @TempDir
+    Path dir;
+
+    // --- Replay ---
+
+    @Test
+    void replaysRecordsInTheOrderTheyWereLogged() throws IOException {
+        Path snapshot = dir.resolve("tasks.txt");
+        TaskJournal journal = open(snapshot, new Recorder());
+        Task task = new Task("Write report", "draft", LocalDate.of(2026, 10, 20), Priority.HIGH);
+        task.setId(3);
+        journal.logAdd(task);
+        task.setPriority(Priority.LOW);
+        journal.logEdit(3, TaskField.PRIORITY, task);
+        journal.logDelete(3);
+        journal.close();
+
+        Recorder replayed = new Recorder();
+        open(snapshot, replayed).close();
+
+        assertEquals(List.of("add 3 Write report draft 2026-10-20 HIGH", "edit 3 PRIORITY LOW", "delete 3"), replayed.events);
+    }
+
+    @Test
+    void replaysRecurringTasksAndOccurrences() throws IOException {
+        Path snapshot = dir.resolve("tasks.txt");
+        TaskJournal journal = open(snapshot, new Recorder());
+        Task series = new Task("Rent", "", LocalDate.of(2026, 1, 31), Priority.MEDIUM);
+        series.setId(1);
+        series.setRecurrence(Recurrence.monthly().times(12));
+        Task occurrence = series.occurrenceOn(LocalDate.of(2026, 2, 28));
+        occurrence.setId(2);
+        journal.logAdd(series);
+        journal.logAdd(occurrence);
+        journal.close();
+
+        Recorder replayed = new Recorder();
+        open(snapshot, replayed).close();
+
+        assertEquals(Recurrence.monthly().times(12), replayed.added.get(0).getRecurrence());
+        assertEquals(1, replayed.added.get(1).getSeriesId());
+        assertEquals(LocalDate.of(2026, 2, 28), replayed.added.get(1).getOccurrenceDate());
+    }
+
+    @Test
+    void managerRebuildsItsListFromSnapshotAndJournal() {
+        String file = dir.resolve("tasks.txt").toString();
+        TaskManager manager = new TaskManager();
+        manager.loadWithJournal(file);
+        manager.addTask("one", "", null, Priority.LOW);
+        manager.addTask("two", "", LocalDate.of(2026, 5, 1), Priority.HIGH);
+        manager.addTask("three", "", null, Priority.MEDIUM);
+        manager.markTaskDone(2);
+        manager.deleteTask(1);
+        manager.closeJournal();
+
+        TaskManager reopened = new TaskManager();
+        reopened.loadWithJournal(file);
+        try {
+            assertEquals(List.of("two", "three"), reopened.getTasks().stream().map(Task::getTitle).toList());
+            assertTrue(reopened.getTask(2).isDone());
+            assertNull(reopened.getTask(1));
+        } finally {
+            reopened.closeJournal();
+        }
+    }
+
+    @Test
+    void batchIsReplayedWhole() throws IOException {
+        Path snapshot = dir.resolve("tasks.txt");
+        TaskJournal journal = open(snapshot, new Recorder());
+        journal.beginBatch();
+        journal.logDelete(1);
+        journal.logDelete(2);
+        journal.endBatch();
+        journal.beginBatch();
+        journal.logDelete(3);
+        journal.abortBatch();
+        journal.close();
+
+        Recorder replayed = new Recorder();
+        open(snapshot, replayed).close();
+
+        assertEquals(List.of("delete 1", "delete 2"), replayed.events);
+    }
+
+    // --- CRC recovery ---
+
+    @Test
+    void stopsAtACorruptRecordAndTruncatesIt() throws IOException {
+        Path snapshot = dir.resolve("tasks.txt");
+        Path file = journalWithDeletes(snapshot, 3);
+        long second = recordEnd(file, 0);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            // First payload byte of the second record
+            raf.seek(second + 8);
+            raf.write(raf.read() ^ 0xFF);
+        }
+
+        Recorder replayed = new Recorder();
+        open(snapshot, replayed).close();
+
+        assertEquals(List.of("delete 1"), replayed.events);
+        assertEquals(second, Files.size(file));
+    }
+
+    @Test
+    void dropsATornLastRecord() throws IOException {
+        Path snapshot = dir.resolve("tasks.txt");
+        Path file = journalWithDeletes(snapshot, 3);
+        long third = recordEnd(file, recordEnd(file, 0));
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(Files.size(file) - 3);
+        }
+
+        Recorder replayed = new Recorder();
+        open(snapshot, replayed).close();
+
+        assertEquals(List.of("delete 1", "delete 2"), replayed.events);
+        assertEquals(third, Files.size(file));
+    }
+
+    @Test
+    void appendsAfterTheLastValidRecord() throws IOException {
+        Path snapshot = dir.resolve("tasks.txt");
+        Path file = journalWithDeletes(snapshot, 2);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(Files.size(file) - 1);
+        }
+        TaskJournal journal = open(snapshot, new Recorder());
+        journal.logDelete(9);
+        journal.close();
+
+        Recorder replayed = new Recorder();
+        open(snapshot, replayed).close();
+
+        assertEquals(List.of("delete 1", "delete 9"), replayed.events);
+    }
+
+    private Path journalWithDeletes(Path snapshot, int count) throws IOException {
+        TaskJournal journal = open(snapshot, new Recorder());
+        for (int id = 1; id <= count; id++) {
+            journal.logDelete(id);
+            // One record per commit, so each sits in the file on its own
+            journal.commit();
+        }
+        journal.close();
+        return Path.of(snapshot + ".journal");
+    }
+
+    // Offset just past the record starting at offset: [int length][int crc][payload]
+    private static long recordEnd(Path file, long offset) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            raf.seek(offset);
+            return offset + 8 + raf.readInt();
+        }
+    }
+
+    private static TaskJournal open(Path snapshot, Recorder target) throws IOException {
+        TaskJournal journal = new TaskJournal(snapshot, path -> Files.writeString(path, "[]"));
+        journal.recover();
+        journal.open(target);
+        return journal;
+    }
+
+    // Writes down every replayed operation
+    private static final class Recorder implements TaskJournal.ReplayTarget {
+        final List<String> events = new ArrayList<>();
+        final List<Task> added = new ArrayList<>();
+
+        @Override
+        public void replayAdd(Task task) {
+            added.add(task);
+            events.add("add " + task.getId() + " " + task.getTitle() + " " + task.getDescription() + " "
+                + task.getDueDate() + " " + task.getPriority());
+        }
+
+        @Override
+        public void replayDelete(long id) {
+            events.add("delete " + id);
+        }
+
+        @Override
+        public void replayEdit(long id, TaskField field, Object value) {
+            events.add("edit " + id + " " + field + " " + value);
+        }
+
+        @Override
+        public long idAt(int position) {
+            throw new AssertionError("Only id-addressed records are written now");
+        }
+    }
+}
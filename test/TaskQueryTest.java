@@ -0,0 +1,79 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TaskQueryTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+    private static final String[] WORDS = {"report", "invoice", "meeting", "garden", "review", "budget"};
+
+    private static TaskManager manager;
+
+    @BeforeAll
+    static void fillManager() {
+        manager = new TaskManager();
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Few distinct titles, dates and priorities, so every sort has many ties
+            Task task = new Task(WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(50), "",
+                random.nextInt(10) == 0 ? null : START.plusDays(random.nextInt(365)),
+                random.nextInt(20) == 0 ? null : Priority.values()[random.nextInt(3)]);
+            task.setDone(random.nextBoolean());
+            if (i % 5000 == 0 && task.getDueDate() != null) {
+                task.setRecurrence(Recurrence.weekly());
+            }
+            tasks.add(task);
+        }
+        manager.addTasks(tasks);
+    }
+
+    @Test
+    void parallelResultsMatchSequentialOnes() {
+        List<TaskQuery> queries = List.of(
+            TaskQuery.all(),
+            TaskQuery.all().withDone(false),
+            TaskQuery.all().withPriority(Priority.HIGH).sortedBy(TaskQuery.Sort.DUE_DATE),
+            TaskQuery.all().withKeyword("report").sortedBy(TaskQuery.Sort.TITLE),
+            TaskQuery.all().withKeyword("get").withDone(true).sortedBy(TaskQuery.Sort.PRIORITY).limitedTo(100),
+            TaskQuery.all().withDueBetween(START.plusDays(30), START.plusDays(90)).sortedBy(TaskQuery.Sort.DUE_DATE),
+            TaskQuery.all().withDueBetween(null, START.plusDays(10)).withDone(false).limitedTo(20),
+            TaskQuery.all().sortedBy(TaskQuery.Sort.PRIORITY).limitedTo(1000),
+            TaskQuery.all().withKeyword("no such words"));
+
+        for (TaskQuery query : queries) {
+            manager.setParallelThreshold(Integer.MAX_VALUE);
+            List<String> sequential = keys(manager.query(query));
+            manager.setParallelThreshold(1);
+            List<String> parallel = keys(manager.query(query));
+            manager.setParallelThreshold(TaskManager.DEFAULT_PARALLEL_THRESHOLD);
+
+            assertEquals(sequential, parallel, query::toString);
+        }
+    }
+
+    @Test
+    void limitKeepsTheFirstTasksOfTheFullResult() {
+        TaskQuery query = TaskQuery.all().withDone(false).sortedBy(TaskQuery.Sort.DUE_DATE);
+        manager.setParallelThreshold(1);
+        try {
+            List<String> all = keys(manager.query(query));
+            assertEquals(all.subList(0, 50), keys(manager.query(query.limitedTo(50))));
+        } finally {
+            manager.setParallelThreshold(TaskManager.DEFAULT_PARALLEL_THRESHOLD);
+        }
+    }
+
+    // Stored tasks by id, generated occurrences by series and date
+    private static List<String> keys(List<Task> tasks) {
+        return tasks.stream()
+            .map(task -> task.getId() != 0 ? Long.toString(task.getId()) : task.getSeriesId() + "@" + task.getOccurrenceDate())
+            .toList();
+    }
+}
@@ -0,0 +1,110 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TaskSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryField() throws IOException {
+        Task plain = task(7, "Write report", "Quarterly, with ✓ and ünïcode", LocalDate.of(2026, 10, 20), Priority.HIGH);
+        plain.setDone(true);
+        Task bare = task(8, "No date", null, null, null);
+        Task series = task(9, "Rent", "", LocalDate.of(2026, 1, 31), Priority.MEDIUM);
+        series.setRecurrence(Recurrence.monthly().until(LocalDate.of(2026, 12, 31)));
+        Task occurrence = series.occurrenceOn(LocalDate.of(2026, 3, 31));
+        occurrence.setId(10);
+        occurrence.setDone(true);
+        List<Task> tasks = List.of(plain, bare, series, occurrence);
+        Path file = dir.resolve("tasks.snap");
+
+        TaskSnapshot.write(file, tasks);
+        List<Task> read = TaskSnapshot.open(file);
+
+        assertTrue(TaskSnapshot.isSnapshot(file));
+        assertEquals(tasks.size(), read.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertSameTask(tasks.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void roundTripsAnEmptyList() throws IOException {
+        Path file = dir.resolve("empty.snap");
+        TaskSnapshot.write(file, List.of());
+        assertTrue(TaskSnapshot.open(file).isEmpty());
+    }
+
+    @Test
+    void mappedListIsReadOnly() throws IOException {
+        Path file = dir.resolve("tasks.snap");
+        TaskSnapshot.write(file, List.of(task(1, "a", "", null, Priority.LOW)));
+        List<Task> read = TaskSnapshot.open(file);
+        assertThrows(UnsupportedOperationException.class, () -> read.set(0, new Task()));
+        assertThrows(UnsupportedOperationException.class, () -> read.add(new Task()));
+    }
+
+    @Test
+    void jsonFilesAreNotSnapshots() throws IOException {
+        Path json = dir.resolve("tasks.txt");
+        Files.writeString(json, "[]");
+        assertFalse(TaskSnapshot.isSnapshot(json));
+        assertFalse(TaskSnapshot.isSnapshot(dir.resolve("missing")));
+        assertThrows(IOException.class, () -> TaskSnapshot.open(json));
+    }
+
+    @Test
+    void managerSavesAndLoadsBinarySnapshots() {
+        TaskManager manager = new TaskManager();
+        manager.setBinarySnapshots(true);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(new Task("task " + i, "description " + i, LocalDate.of(2026, 1, 1).plusDays(i),
+                Priority.values()[i % 3]));
+        }
+        manager.addTasks(tasks);
+        manager.markTaskDone(5);
+        String file = dir.resolve("tasks.txt").toString();
+
+        manager.saveToFile(file);
+        TaskManager loaded = new TaskManager();
+        loaded.loadFromFile(file);
+
+        assertTrue(TaskSnapshot.isSnapshot(Path.of(file)));
+        List<Task> expected = manager.getTasks();
+        List<Task> actual = loaded.getTasks();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameTask(expected.get(i), actual.get(i));
+        }
+        assertTrue(loaded.getTask(5).isDone());
+    }
+
+    private static Task task(long id, String title, String description, LocalDate due, Priority priority) {
+        Task task = new Task(title, description, due, priority);
+        task.setId(id);
+        return task;
+    }
+
+    private static void assertSameTask(Task expected, Task actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getDueDate(), actual.getDueDate());
+        assertEquals(expected.getPriority(), actual.getPriority());
+        assertEquals(expected.isDone(), actual.isDone());
+        assertEquals(expected.getRecurrence(), actual.getRecurrence());
+        assertEquals(expected.getSeriesId(), actual.getSeriesId());
+        assertEquals(expected.getOccurrenceDate(), actual.getOccurrenceDate());
+    }
+}